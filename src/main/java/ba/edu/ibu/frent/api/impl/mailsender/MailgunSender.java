@@ -1,44 +1,56 @@
 package ba.edu.ibu.frent.api.impl.mailsender;
 
 import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of the {@link MailSender} interface that utilizes the Mailgun service for sending emails.
  * This class is responsible for formatting and sending emails to a list of specified email addresses.
+ * Every call is a single blocking request to Mailgun, so callers are expected to go through the outbound mail queue
+ * and to keep the number of recipients within {@link #MAX_RECIPIENTS}.
  *
  * @author Edin Bajrić
  * @see MailSender
  */
-@Component
 public class MailgunSender implements MailSender {
 
+    /**
+     * The maximum number of recipients Mailgun accepts in a single batch message.
+     */
+    public static final int MAX_RECIPIENTS = 1000;
+
     private final RestTemplate restTemplate;
     private final String fromEmail;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructs a new instance of the {@code MailgunSender} class.
      *
      * @param restTemplate The {@link RestTemplate} used for making HTTP requests.
      * @param fromEmail    The sender's email address.
+     * @param objectMapper The {@link ObjectMapper} used for reading and writing JSON.
      */
-    public MailgunSender(RestTemplate restTemplate, String fromEmail) {
+    public MailgunSender(RestTemplate restTemplate, String fromEmail, ObjectMapper objectMapper) {
         this.restTemplate = restTemplate;
         this.fromEmail = fromEmail;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Sends an email to the specified list of email addresses using the Mailgun service.
+     * The email is sent as a batch message, so every recipient gets an individual copy and never sees the others.
      *
      * @param emails  A list of email addresses to send the email to.
      * @param message The content of the email.
@@ -53,13 +65,17 @@ public class MailgunSender implements MailSender {
         MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
         map.add("from", fromEmail);
 
+        Map<String, Map<String, String>> recipientVariables = new LinkedHashMap<>();
         for (String email : emails) {
-            String emailAddress = extractEmailAddressFromJson(email);
-            map.add("to", emailAddress);
+            String emailAddress = extractEmailAddress(email);
+            if (!emailAddress.isEmpty() && recipientVariables.putIfAbsent(emailAddress, Map.of()) == null) {
+                map.add("to", emailAddress);
+            }
         }
 
         map.add("subject", subject);
         map.add("text", message);
+        map.add("recipient-variables", writeJson(recipientVariables));
 
         HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(map, headers);
 
@@ -67,18 +83,50 @@ public class MailgunSender implements MailSender {
     }
 
     /**
-     * Extracts the email address from a JSON string representing a user.
+     * Extracts the email address from a recipient, which is either a plain address or a JSON string
+     * representing a user.
      *
-     * @param userJson The JSON string representing a user.
+     * @param recipient The plain email address or the JSON string representing a user.
      * @return The extracted email address, or an empty string if the extraction fails.
      */
-    private String extractEmailAddressFromJson(String userJson) {
+    private String extractEmailAddress(String recipient) {
+        if (!recipient.startsWith("{")) {
+            return recipient.trim();
+        }
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(userJson);
+            JsonNode jsonNode = objectMapper.readTree(recipient);
             return jsonNode.get("email").asText();
         } catch (Exception e) {
             return "";
         }
     }
+
+    /**
+     * Extracts the email addresses from a list of recipients, dropping the ones that cannot be read.
+     *
+     * @param recipients The plain email addresses or JSON strings representing users.
+     * @return The extracted email addresses.
+     */
+    public List<String> extractEmailAddresses(List<String> recipients) {
+        return recipients.stream()
+                .map(this::extractEmailAddress)
+                .filter(emailAddress -> !emailAddress.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Writes a value as a JSON string.
+     *
+     * @param value The value to write.
+     * @return The JSON string.
+     * @throws IllegalStateException If the value cannot be written.
+     */
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to write recipient variables.", e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,254 @@
+package ba.edu.ibu.frent.api.impl.mailsender;
+
+import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import ba.edu.ibu.frent.core.model.OutboundMail;
+import ba.edu.ibu.frent.core.model.enums.MailStatus;
+import ba.edu.ibu.frent.rest.dto.MailQueueStatsDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of the {@link MailSender} interface that puts emails into a durable outbound queue instead of
+ * sending them on the caller's thread. Recipients are split into messages of at most the provider limit, and each
+ * message is stored in the database before {@link #send} returns, so queued emails survive a restart.
+ * A scheduled dispatcher claims due messages atomically and delivers them through {@link MailgunSender} with a bounded
+ * number of concurrent requests. Failed deliveries are retried with exponential backoff, except for requests Mailgun
+ * rejects as invalid.
+ *
+ * @see MailSender
+ */
+@Primary
+@Component
+public class QueuedMailSender implements MailSender {
+    private static final List<MailStatus> QUEUED = List.of(MailStatus.PENDING, MailStatus.SENDING);
+
+    private final MongoTemplate mongoTemplate;
+    private final MailgunSender mailgunSender;
+    private final ThreadPoolTaskExecutor mailExecutor;
+    private final Semaphore permits;
+    private final int maxRecipients;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long claimTimeoutMillis;
+    private final long retentionDays;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatencyMillis = new LongAdder();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    /**
+     * Constructs a new instance of the {@code QueuedMailSender} class.
+     *
+     * @param mongoTemplate        The MongoTemplate the queue is stored with.
+     * @param mailgunSender        The sender that delivers the queued emails.
+     * @param mailExecutor         The executor the deliveries run on.
+     * @param concurrency          The maximum number of deliveries in progress at the same time.
+     * @param maxRecipients        The maximum number of recipients of a single message.
+     * @param maxAttempts          The number of attempts after which a message is given up on.
+     * @param initialBackoffMillis The delay before the first retry, doubled for every further one.
+     * @param maxBackoffMillis     The longest delay between two attempts.
+     * @param claimTimeoutMillis   The time after which a message claimed by a crashed dispatcher is attempted again.
+     * @param retentionDays        The number of days sent messages are kept.
+     */
+    public QueuedMailSender(MongoTemplate mongoTemplate, MailgunSender mailgunSender,
+                            @Qualifier("mailExecutor") ThreadPoolTaskExecutor mailExecutor,
+                            @Value("${mail.queue.concurrency:4}") int concurrency,
+                            @Value("${mail.queue.max-recipients:1000}") int maxRecipients,
+                            @Value("${mail.queue.max-attempts:6}") int maxAttempts,
+                            @Value("${mail.queue.initial-backoff-ms:2000}") long initialBackoffMillis,
+                            @Value("${mail.queue.max-backoff-ms:600000}") long maxBackoffMillis,
+                            @Value("${mail.queue.claim-timeout-ms:120000}") long claimTimeoutMillis,
+                            @Value("${mail.queue.retention-days:7}") long retentionDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.mailgunSender = mailgunSender;
+        this.mailExecutor = mailExecutor;
+        this.permits = new Semaphore(concurrency);
+        this.maxRecipients = Math.min(maxRecipients, MailgunSender.MAX_RECIPIENTS);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Make sure the index sent messages expire by exists. It is not declared on the document,
+     * since the retention period is configurable.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(OutboundMail.class).ensureIndex(new Index()
+                .on("sentAt", Sort.Direction.ASC)
+                .expire(retentionDays, TimeUnit.DAYS));
+    }
+
+    /**
+     * Queues an email to the specified list of recipients. The email is sent in the background.
+     *
+     * @param emails  The plain email addresses or JSON strings representing users.
+     * @param message The content of the email.
+     * @param subject The subject of the email.
+     * @return A string describing how many messages were queued.
+     */
+    @Override
+    public String send(List<String> emails, String message, String subject) {
+        List<String> addresses = mailgunSender.extractEmailAddresses(emails);
+        List<OutboundMail> mails = new ArrayList<>();
+        for (int from = 0; from < addresses.size(); from += maxRecipients) {
+            List<String> recipients = List.copyOf(addresses.subList(from, Math.min(from + maxRecipients, addresses.size())));
+            mails.add(new OutboundMail(recipients, subject, message));
+        }
+        if (!mails.isEmpty()) {
+            mongoTemplate.insertAll(mails);
+        }
+        return "Queued " + mails.size() + " message(s) for " + addresses.size() + " recipient(s).";
+    }
+
+    /**
+     * Claim due messages and hand them over to the mail executor, as long as there is a free delivery slot.
+     */
+    @Scheduled(fixedDelayString = "${mail.queue.poll-interval-ms:1000}")
+    public void dispatch() {
+        while (permits.tryAcquire()) {
+            OutboundMail mail = claimNext();
+            if (mail == null) {
+                permits.release();
+                return;
+            }
+            try {
+                mailExecutor.execute(() -> {
+                    try {
+                        deliver(mail);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                permits.release();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the current state of the outbound mail queue.
+     *
+     * @return MailQueueStatsDTO with the queue depth, the delivery counters and the delivery latency.
+     */
+    public MailQueueStatsDTO getStats() {
+        Query queued = new Query(Criteria.where("status").in(QUEUED));
+        long pending = mongoTemplate.count(queued, OutboundMail.class);
+        long failedTotal = mongoTemplate.count(new Query(Criteria.where("status").is(MailStatus.FAILED)), OutboundMail.class);
+        OutboundMail oldest = mongoTemplate.findOne(queued.with(Sort.by(Sort.Direction.ASC, "createdAt")), OutboundMail.class);
+        long oldestPendingAgeMillis = oldest != null ? System.currentTimeMillis() - oldest.getCreatedAt().getTime() : 0;
+        long sentCount = sent.sum();
+        return new MailQueueStatsDTO(
+                pending,
+                failedTotal,
+                oldestPendingAgeMillis,
+                sentCount,
+                retried.sum(),
+                failed.sum(),
+                sentCount > 0 ? totalLatencyMillis.sum() / sentCount : 0,
+                maxLatencyMillis.get()
+        );
+    }
+
+    /**
+     * Calculate the delay before the next attempt of a message.
+     *
+     * @param attempts             The number of attempts made so far.
+     * @param initialBackoffMillis The delay after the first attempt.
+     * @param maxBackoffMillis     The longest delay.
+     * @return The delay in milliseconds.
+     */
+    static long backoffMillis(int attempts, long initialBackoffMillis, long maxBackoffMillis) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(initialBackoffMillis << doublings, maxBackoffMillis);
+    }
+
+    /**
+     * Atomically claim the message that has been due for the longest time. A claimed message becomes due again when
+     * its claim times out, so messages of a dispatcher that stopped mid-delivery are not lost.
+     *
+     * @return The claimed message, or null if no message is due.
+     */
+    private OutboundMail claimNext() {
+        Date now = new Date();
+        Query query = new Query(Criteria.where("status").in(QUEUED).and("nextAttemptAt").lte(now))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update update = new Update()
+                .set("status", MailStatus.SENDING)
+                .set("nextAttemptAt", new Date(now.getTime() + claimTimeoutMillis))
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), OutboundMail.class);
+    }
+
+    /**
+     * Deliver a claimed message and record the outcome. The outcome is only written while the claim is still held,
+     * which is the case as long as the number of attempts has not changed.
+     *
+     * @param mail The claimed message.
+     */
+    void deliver(OutboundMail mail) {
+        Query claim = new Query(Criteria.where("_id").is(mail.getId()).and("attempts").is(mail.getAttempts()));
+        try {
+            mailgunSender.send(mail.getRecipients(), mail.getMessage(), mail.getSubject());
+            Date sentAt = new Date();
+            mongoTemplate.updateFirst(claim, new Update().set("status", MailStatus.SENT).set("sentAt", sentAt).unset("lastError"), OutboundMail.class);
+            long latencyMillis = sentAt.getTime() - mail.getCreatedAt().getTime();
+            sent.increment();
+            totalLatencyMillis.add(latencyMillis);
+            maxLatencyMillis.accumulateAndGet(latencyMillis, Math::max);
+        } catch (RuntimeException e) {
+            Update update = new Update().set("lastError", String.valueOf(e.getMessage()));
+            if (isPermanent(e) || mail.getAttempts() >= maxAttempts) {
+                update.set("status", MailStatus.FAILED);
+                failed.increment();
+            } else {
+                long delay = backoffMillis(mail.getAttempts(), initialBackoffMillis, maxBackoffMillis);
+                update.set("status", MailStatus.PENDING).set("nextAttemptAt", new Date(System.currentTimeMillis() + delay));
+                retried.increment();
+            }
+            mongoTemplate.updateFirst(claim, update, OutboundMail.class);
+            System.out.println("Sending queued mail " + mail.getId() + " failed with reason ### " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check whether a delivery failure will not go away by retrying: Mailgun rejected the request itself,
+     * and it was not because of rate limiting.
+     *
+     * @param e The delivery failure.
+     * @return True if the message should not be retried, false otherwise.
+     */
+    private boolean isPermanent(RuntimeException e) {
+        return e instanceof HttpClientErrorException clientError && clientError.getStatusCode().value() != 429;
+    }
+}
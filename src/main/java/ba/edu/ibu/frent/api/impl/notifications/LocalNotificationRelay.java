@@ -0,0 +1,32 @@
+package ba.edu.ibu.frent.api.impl.notifications;
+
+import ba.edu.ibu.frent.core.api.notifications.NotificationRelay;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Implementation of the {@link NotificationRelay} interface for a single node, where every session is local
+ * and there is nothing to forward. Used unless another relay is configured with {@code notifications.relay.type}.
+ *
+ * @see MongoNotificationRelay
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.relay.type", havingValue = "local", matchIfMissing = true)
+public class LocalNotificationRelay implements NotificationRelay {
+
+    @Override
+    public void userConnected(String username) {
+    }
+
+    @Override
+    public void userDisconnected(String username) {
+    }
+
+    @Override
+    public void sendToUser(String username, String message, String notificationId) {
+    }
+
+    @Override
+    public void broadcast(String message) {
+    }
+}
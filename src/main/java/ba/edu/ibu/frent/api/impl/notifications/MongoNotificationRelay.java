@@ -0,0 +1,403 @@
+package ba.edu.ibu.frent.api.impl.notifications;
+
+import ba.edu.ibu.frent.core.api.notifications.NotificationRelay;
+import ba.edu.ibu.frent.core.api.notifications.RemoteNotificationEvent;
+import ba.edu.ibu.frent.core.model.RelayedNotification;
+import ba.edu.ibu.frent.core.model.WebSocketRoute;
+import ba.edu.ibu.frent.rest.websockets.WebSocketSessionRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.data.mongodb.core.messaging.TailableCursorRequest;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the {@link NotificationRelay} interface that passes notifications between the nodes of this
+ * application through MongoDB, so WebSocket connections can be spread over any number of nodes.
+ * <p>
+ * Every node keeps the users connected to it in the routing table, and tails the notification bus, a capped
+ * collection, for the notifications addressed to it. Users who connect or disconnect are collected and their routes
+ * are written on the notification executor with one bulk write, so opening and closing a WebSocket session never
+ * waits for MongoDB. A notification for a user is written once for every other node
+ * the user is connected to, and not at all if the user is only connected here or not connected anywhere. Notifications
+ * for users are collected while a write is running, so the nodes of all recipients of a batch are looked up with one
+ * query and the batch is written with one bulk write. A broadcast is written once and picked up by every other node.
+ * <p>
+ * Every notification gets a timestamp from the server when it is written. The bus is read with a tailable cursor, so
+ * notifications arrive without polling, and a node that lost its cursor continues after the timestamp of the last
+ * notification it has read; a node that starts continues after the newest notification on the bus. The clocks of the
+ * nodes play no part in either.
+ * <p>
+ * Enabled with {@code notifications.relay.type=mongo}. Every node needs a distinct
+ * {@code notifications.relay.node-id}, which defaults to the host name.
+ *
+ * @see NotificationRelay
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.relay.type", havingValue = "mongo")
+public class MongoNotificationRelay implements NotificationRelay {
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolTaskExecutor notificationExecutor;
+    private final TaskScheduler taskScheduler;
+    private final String nodeId;
+    private final long busSizeBytes;
+    private final long retryDelayMillis;
+    private final MessageListenerContainer container;
+    private final Queue<RelayedNotification> outgoing = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final Set<String> changedRoutes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean writingRoutes = new AtomicBoolean();
+    private volatile BsonTimestamp lastSeen = new BsonTimestamp(0, 0);
+    private volatile Subscription subscription;
+
+    /**
+     * Constructs a MongoNotificationRelay.
+     *
+     * @param mongoTemplate        The MongoTemplate the routing table and the bus are stored with.
+     * @param sessionRegistry      The registry of the sessions of this node, whose users are kept in the routing table.
+     * @param eventPublisher       The publisher of the notifications received from other nodes.
+     * @param notificationExecutor The executor notifications are forwarded on.
+     * @param taskScheduler        The scheduler a lost cursor is reopened on.
+     * @param nodeId               The identifier of this node.
+     * @param busSizeBytes         The size of the capped collection used as the bus.
+     * @param retryDelayMillis     The delay in milliseconds before a lost cursor is reopened.
+     */
+    public MongoNotificationRelay(MongoTemplate mongoTemplate, WebSocketSessionRegistry sessionRegistry,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Qualifier("notificationExecutor") ThreadPoolTaskExecutor notificationExecutor,
+                                  @Qualifier("taskScheduler") TaskScheduler taskScheduler,
+                                  @Value("${notifications.relay.node-id:${HOSTNAME:local}}") String nodeId,
+                                  @Value("${notifications.relay.bus-size-bytes:16777216}") long busSizeBytes,
+                                  @Value("${notifications.relay.retry-delay-ms:1000}") long retryDelayMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.sessionRegistry = sessionRegistry;
+        this.eventPublisher = eventPublisher;
+        this.notificationExecutor = notificationExecutor;
+        this.taskScheduler = taskScheduler;
+        this.nodeId = nodeId;
+        this.busSizeBytes = busSizeBytes;
+        this.retryDelayMillis = retryDelayMillis;
+        this.container = new DefaultMessageListenerContainer(mongoTemplate);
+    }
+
+    /**
+     * Create the bus if it does not exist yet, drop the routes a previous run of this node left behind,
+     * and start tailing the bus after the newest notification on it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!mongoTemplate.collectionExists(RelayedNotification.class)) {
+            try {
+                mongoTemplate.createCollection(RelayedNotification.class, CollectionOptions.empty().capped().size(busSizeBytes));
+            } catch (DataAccessException e) {
+                System.out.println("Notification bus was not created: " + e.getMessage());
+            }
+        }
+        mongoTemplate.remove(new Query(Criteria.where("nodeId").is(nodeId)), WebSocketRoute.class);
+        Query newest = new Query().with(Sort.by(Sort.Direction.DESC, "$natural")).limit(1);
+        newest.fields().include("writtenAt");
+        Document last = mongoTemplate.findOne(newest, Document.class, mongoTemplate.getCollectionName(RelayedNotification.class));
+        if (last != null && last.get("writtenAt") instanceof BsonTimestamp writtenAt) {
+            lastSeen = writtenAt;
+        }
+        container.start();
+        subscribe();
+    }
+
+    /**
+     * Stop tailing the bus and remove the routes of this node.
+     */
+    @PreDestroy
+    public void stop() {
+        container.stop();
+        mongoTemplate.remove(new Query(Criteria.where("nodeId").is(nodeId)), WebSocketRoute.class);
+    }
+
+    /**
+     * Write the routes of all users connected to this node with one bulk write, so they do not expire and a route
+     * that was lost, for example because it expired during a pause of this node, is restored. Routes of this node
+     * that were not written, because their user is not connected anymore, are removed.
+     */
+    @Scheduled(fixedDelayString = "${notifications.relay.heartbeat-ms:30000}")
+    public void heartbeat() {
+        Date now = new Date();
+        Set<String> usernames = sessionRegistry.getUsernames();
+        if (!usernames.isEmpty()) {
+            BulkOperations routes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WebSocketRoute.class);
+            for (String username : usernames) {
+                routes.upsert(routeQuery(username), routeUpdate(username, now));
+            }
+            routes.execute();
+        }
+        mongoTemplate.remove(new Query(Criteria.where("nodeId").is(nodeId).and("lastSeenAt").lt(now)), WebSocketRoute.class);
+    }
+
+    @Override
+    public void userConnected(String username) {
+        changedRoutes.add(username);
+        startWritingRoutes();
+    }
+
+    @Override
+    public void userDisconnected(String username) {
+        changedRoutes.add(username);
+        startWritingRoutes();
+    }
+
+    @Override
+    public void sendToUser(String username, String message, String notificationId) {
+        outgoing.add(new RelayedNotification(nodeId, null, username, message, notificationId));
+        startWriting();
+    }
+
+    @Override
+    public void broadcast(String message) {
+        dispatch(() -> write(List.of(new RelayedNotification(nodeId, null, null, message, null))));
+    }
+
+    /**
+     * Hand a notification received from another node over to the local sessions.
+     *
+     * @param notification The notification read from the bus.
+     */
+    public void receive(RelayedNotification notification) {
+        if (nodeId.equals(notification.getOriginNode())) {
+            return;
+        }
+        if (notification.getTargetNode() == null || nodeId.equals(notification.getTargetNode())) {
+            eventPublisher.publishEvent(new RemoteNotificationEvent(notification.getUsername(), notification.getMessage(),
+                    notification.getNotificationId()));
+        }
+    }
+
+    /**
+     * Remember the server timestamp of a notification read from the bus and hand it over to the local sessions.
+     *
+     * @param message The notification as read from the bus.
+     */
+    private void receive(Message<Document, RelayedNotification> message) {
+        if (message.getRaw() != null && message.getRaw().get("writtenAt") instanceof BsonTimestamp writtenAt) {
+            lastSeen = writtenAt;
+        }
+        receive(message.getBody());
+    }
+
+    /**
+     * Open a tailable cursor on the notifications for this node written after the last one read.
+     */
+    private void subscribe() {
+        Query query = new Query(Criteria.where("writtenAt").gt(lastSeen).orOperator(
+                Criteria.where("targetNode").is(nodeId),
+                Criteria.where("targetNode").is(null).and("originNode").ne(nodeId)));
+        MessageListener<Document, RelayedNotification> listener = this::receive;
+        TailableCursorRequest<RelayedNotification> request = TailableCursorRequest.builder(listener)
+                .collection(mongoTemplate.getCollectionName(RelayedNotification.class))
+                .filter(query)
+                .build();
+        subscription = container.register(request, RelayedNotification.class, error -> {
+            System.out.println("Notification bus cursor failed: " + error.getMessage());
+            Subscription failed = subscription;
+            if (failed != null) {
+                container.remove(failed);
+            }
+            taskScheduler.schedule(this::subscribe, Instant.now().plusMillis(retryDelayMillis));
+        });
+    }
+
+    /**
+     * Start writing the collected notifications for users on the notification executor, unless a write is running,
+     * in which case that write picks them up.
+     */
+    private void startWriting() {
+        if (outgoing.isEmpty() || !writing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            notificationExecutor.execute(this::writeOutgoing);
+        } catch (TaskRejectedException e) {
+            writing.set(false);
+            System.out.println("Notifications were not relayed yet: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start writing the collected route changes on the notification executor, unless a write is running, in which
+     * case that write picks them up.
+     */
+    private void startWritingRoutes() {
+        if (changedRoutes.isEmpty() || !writingRoutes.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            notificationExecutor.execute(this::writeRoutes);
+        } catch (TaskRejectedException e) {
+            writingRoutes.set(false);
+            System.out.println("Routes were not written yet: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write the routes of the users whose sessions changed with one bulk write. Whether a user is connected is read
+     * from the session registry when the route is written, so a user who connected and disconnected again in the
+     * meantime only costs one write, and the last change always wins. Routes that fail to be written are restored or
+     * removed by the next heartbeat.
+     */
+    private void writeRoutes() {
+        try {
+            List<String> usernames = new ArrayList<>(changedRoutes);
+            changedRoutes.removeAll(usernames);
+            if (!usernames.isEmpty()) {
+                Date now = new Date();
+                BulkOperations routes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WebSocketRoute.class);
+                for (String username : usernames) {
+                    if (sessionRegistry.isConnected(username)) {
+                        routes.upsert(routeQuery(username), routeUpdate(username, now));
+                    } else {
+                        routes.remove(routeQuery(username));
+                    }
+                }
+                routes.execute();
+            }
+        } catch (DataAccessException e) {
+            System.out.println("Routes were not written: " + e.getMessage());
+        } finally {
+            writingRoutes.set(false);
+        }
+        startWritingRoutes();
+    }
+
+    /**
+     * Write the collected notifications for users in batches. The nodes the recipients of a batch are connected to,
+     * other than this one, are looked up with one query, and the notification is addressed to each of them.
+     */
+    private void writeOutgoing() {
+        try {
+            List<RelayedNotification> batch = new ArrayList<>(BATCH_SIZE);
+            RelayedNotification notification;
+            while ((notification = outgoing.poll()) != null) {
+                batch.add(notification);
+                if (batch.size() == BATCH_SIZE) {
+                    route(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                route(batch);
+            }
+        } catch (DataAccessException e) {
+            System.out.println("Notifications were not relayed: " + e.getMessage());
+        } finally {
+            writing.set(false);
+        }
+        startWriting();
+    }
+
+    /**
+     * Address a batch of notifications for users to the other nodes of their recipients and write them.
+     *
+     * @param batch The notifications, without a target node.
+     */
+    private void route(List<RelayedNotification> batch) {
+        Set<String> usernames = batch.stream().map(RelayedNotification::getUsername).collect(Collectors.toSet());
+        Query query = new Query(Criteria.where("username").in(usernames).and("nodeId").ne(nodeId));
+        query.fields().include("username", "nodeId");
+        Map<String, List<String>> nodesByUser = new HashMap<>();
+        for (WebSocketRoute route : mongoTemplate.find(query, WebSocketRoute.class)) {
+            nodesByUser.computeIfAbsent(route.getUsername(), username -> new ArrayList<>()).add(route.getNodeId());
+        }
+        List<RelayedNotification> addressed = new ArrayList<>();
+        for (RelayedNotification notification : batch) {
+            for (String node : nodesByUser.getOrDefault(notification.getUsername(), List.of())) {
+                addressed.add(new RelayedNotification(nodeId, node, notification.getUsername(),
+                        notification.getMessage(), notification.getNotificationId()));
+            }
+        }
+        if (!addressed.isEmpty()) {
+            write(addressed);
+        }
+    }
+
+    /**
+     * Write notifications to the bus with one bulk write. Every notification is upserted under a new ID rather than
+     * inserted, so the server sets its {@code writtenAt} timestamp, which the nodes read the bus in order of.
+     *
+     * @param notifications The notifications to write.
+     */
+    private void write(List<RelayedNotification> notifications) {
+        BulkOperations bus = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, RelayedNotification.class);
+        for (RelayedNotification notification : notifications) {
+            Update update = new Update()
+                    .set("originNode", notification.getOriginNode())
+                    .set("targetNode", notification.getTargetNode())
+                    .set("username", notification.getUsername())
+                    .set("message", notification.getMessage())
+                    .set("notificationId", notification.getNotificationId())
+                    .set("createdAt", notification.getCreatedAt())
+                    .currentTimestamp("writtenAt");
+            bus.upsert(new Query(Criteria.where("_id").is(new ObjectId())), update);
+        }
+        bus.execute();
+    }
+
+    /**
+     * Hand a write to the bus over to the notification executor.
+     *
+     * @param write The write to run.
+     */
+    private void dispatch(Runnable write) {
+        try {
+            notificationExecutor.execute(write);
+        } catch (TaskRejectedException e) {
+            System.out.println("Notification was not relayed: " + e.getMessage());
+        }
+    }
+
+    private Query routeQuery(String username) {
+        return new Query(Criteria.where("_id").is(nodeId + ":" + username));
+    }
+
+    private Update routeUpdate(String username, Date lastSeenAt) {
+        return new Update().set("username", username).set("nodeId", nodeId).set("lastSeenAt", lastSeenAt);
+    }
+}
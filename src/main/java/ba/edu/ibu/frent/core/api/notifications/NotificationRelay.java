@@ -0,0 +1,41 @@
+package ba.edu.ibu.frent.core.api.notifications;
+
+/**
+ * An interface representing the layer that carries WebSocket notifications to the other nodes of this application.
+ * Notifications are always delivered to the sessions of this node by the caller; a relay only forwards them to the
+ * nodes the recipients may be connected to, where they arrive as a {@link RemoteNotificationEvent}.
+ * Implementations must not block the caller on the network.
+ */
+public interface NotificationRelay {
+
+    /**
+     * Record that a user has an open session on this node.
+     *
+     * @param username The username of the user.
+     */
+    void userConnected(String username);
+
+    /**
+     * Record that a user closed their last session on this node.
+     *
+     * @param username The username of the user.
+     */
+    void userDisconnected(String username);
+
+    /**
+     * Forward a message to the other nodes the user is connected to. A node that delivers the message marks the
+     * notification in the inbox of the user as delivered.
+     *
+     * @param username       The username of the recipient.
+     * @param message        The message.
+     * @param notificationId The ID of the notification in the inbox of the user.
+     */
+    void sendToUser(String username, String message, String notificationId);
+
+    /**
+     * Forward a message to every other node, for all of their sessions.
+     *
+     * @param message The message.
+     */
+    void broadcast(String message);
+}
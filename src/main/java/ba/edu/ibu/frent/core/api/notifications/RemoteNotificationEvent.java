@@ -0,0 +1,45 @@
+package ba.edu.ibu.frent.core.api.notifications;
+
+/**
+ * Event published by a {@link NotificationRelay} for a notification sent from another node, to be delivered
+ * to the sessions of this node.
+ */
+public class RemoteNotificationEvent {
+    private final String username;
+    private final String message;
+    private final String notificationId;
+
+    /**
+     * Constructs a RemoteNotificationEvent.
+     *
+     * @param username       The username of the recipient, or null for a broadcast.
+     * @param message        The message.
+     * @param notificationId The ID of the notification in the inbox of the recipient, or null for a broadcast.
+     */
+    public RemoteNotificationEvent(String username, String message, String notificationId) {
+        this.username = username;
+        this.message = message;
+        this.notificationId = notificationId;
+    }
+
+    /**
+     * Check whether the notification is meant for every session.
+     *
+     * @return True for a broadcast.
+     */
+    public boolean isBroadcast() {
+        return username == null;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getNotificationId() {
+        return notificationId;
+    }
+}
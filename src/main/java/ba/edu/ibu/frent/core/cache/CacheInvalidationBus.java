@@ -0,0 +1,237 @@
+package ba.edu.ibu.frent.core.cache;
+
+import ba.edu.ibu.frent.core.model.ChangeStreamToken;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.model.User;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tails the change streams of the movie, user and rental collections and publishes a {@link CacheInvalidationEvent}
+ * for every written document, so the in-process caches of every node drop what another node changed.
+ * <p>
+ * The resume token of the last processed change of every collection is kept per node and flushed to the database
+ * periodically, so a restarted or disconnected stream continues where it stopped. Changes may be replayed after a
+ * restart, which is harmless since invalidations are idempotent. When a stream cannot be resumed, for example because
+ * the oplog no longer holds the token, everything cached from its collection is invalidated and the stream restarts
+ * from the current time.
+ * <p>
+ * Change streams require a replica set, so the bus is only enabled with
+ * {@code cache.invalidation.change-streams.enabled=true}. For local testing a single-node replica set is enough:
+ * start {@code mongod --replSet rs0} and run {@code rs.initiate()} once.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.change-streams.enabled", havingValue = "true")
+public class CacheInvalidationBus {
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskScheduler taskScheduler;
+    private final String nodeId;
+    private final long retryDelayMillis;
+    private final MessageListenerContainer container;
+    private final Map<String, Class<?>> entityTypes = new ConcurrentHashMap<>();
+    private final Map<String, BsonDocument> pendingTokens = new ConcurrentHashMap<>();
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a CacheInvalidationBus.
+     *
+     * @param mongoTemplate    The MongoTemplate instance.
+     * @param eventPublisher   The publisher of the invalidation events.
+     * @param taskScheduler    The scheduler failed streams are restarted on.
+     * @param nodeId           The identifier of this node, under which its resume tokens are stored.
+     * @param retryDelayMillis The delay in milliseconds before a failed stream is restarted.
+     */
+    public CacheInvalidationBus(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                                @Qualifier("taskScheduler") TaskScheduler taskScheduler,
+                                @Value("${cache.invalidation.node-id:${HOSTNAME:local}}") String nodeId,
+                                @Value("${cache.invalidation.retry-delay-ms:5000}") long retryDelayMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.taskScheduler = taskScheduler;
+        this.nodeId = nodeId;
+        this.retryDelayMillis = retryDelayMillis;
+        this.container = new DefaultMessageListenerContainer(mongoTemplate);
+        for (Class<?> entityType : List.of(Movie.class, User.class, Rental.class)) {
+            entityTypes.put(mongoTemplate.getCollectionName(entityType), entityType);
+        }
+    }
+
+    /**
+     * Start tailing the change streams, resuming after the stored tokens.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        container.start();
+        entityTypes.keySet().forEach(collection -> subscribe(collection, true));
+    }
+
+    /**
+     * Stop tailing the change streams and store the latest tokens.
+     */
+    @PreDestroy
+    public void stop() {
+        container.stop();
+        flushTokens();
+    }
+
+    /**
+     * Store the resume tokens of the changes processed since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${cache.invalidation.token-flush-ms:1000}")
+    public void flushTokens() {
+        for (String collection : pendingTokens.keySet()) {
+            BsonDocument token = pendingTokens.remove(collection);
+            if (token != null) {
+                mongoTemplate.upsert(new Query(Criteria.where("_id").is(tokenId(collection))),
+                        new Update().set("token", Document.parse(token.toJson())).set("updatedAt", new Date()),
+                        ChangeStreamToken.class);
+            }
+        }
+    }
+
+    /**
+     * Publish the invalidation event of a change and remember its resume token.
+     *
+     * @param collection   The name of the collection.
+     * @param operation    The type of the change.
+     * @param documentKey  The key of the changed document, or null if the change does not concern a single document.
+     * @param fullDocument The current version of the document, if it was looked up, otherwise null.
+     * @param resumeToken  The resume token of the change.
+     * @return False if the stream has ended and must be restarted, true otherwise.
+     */
+    public boolean publish(String collection, OperationType operation, BsonDocument documentKey,
+                           Document fullDocument, BsonDocument resumeToken) {
+        Class<?> entityType = entityTypes.get(collection);
+        if (entityType == null) {
+            return true;
+        }
+        switch (operation) {
+            case INSERT, UPDATE, REPLACE, DELETE -> {
+                eventPublisher.publishEvent(new CacheInvalidationEvent(entityType, documentId(documentKey),
+                        operation == OperationType.DELETE, fullDocument));
+                if (resumeToken != null) {
+                    pendingTokens.put(collection, resumeToken);
+                }
+                return true;
+            }
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                eventPublisher.publishEvent(CacheInvalidationEvent.allOf(entityType));
+                return false;
+            }
+            default -> {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Subscribe to the change stream of a collection.
+     *
+     * Only the rentals are looked up in full on updates, since their listeners need the current due date.
+     *
+     * @param collection The name of the collection.
+     * @param resume     Whether to resume after the stored token, or start from the current time.
+     */
+    private void subscribe(String collection, boolean resume) {
+        boolean lookupDocument = entityTypes.get(collection) == Rental.class;
+        ChangeStreamRequest.ChangeStreamRequestBuilder<Document> builder = ChangeStreamRequest.builder()
+                .collection(collection)
+                .filter(Aggregation.newAggregation(Aggregation.match(Criteria.where("operationType")
+                        .nin("createIndexes", "dropIndexes", "modify", "shardCollection"))))
+                .publishTo(message -> {
+                    ChangeStreamDocument<Document> change = message.getRaw();
+                    if (change != null && !publish(collection, change.getOperationType(), change.getDocumentKey(),
+                            change.getFullDocument(), change.getResumeToken())) {
+                        restart(collection);
+                    }
+                });
+        if (lookupDocument) {
+            builder.fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        }
+        BsonValue token = resume ? storedToken(collection) : null;
+        if (token != null) {
+            builder.resumeAfter(token);
+        }
+        subscriptions.put(collection, container.register(builder.build(), Document.class, error -> {
+            System.out.println("Change stream of " + collection + " failed: " + error.getMessage());
+            restart(collection);
+        }));
+    }
+
+    /**
+     * Restart the change stream of a collection from the current time after a delay, invalidating everything cached
+     * from the collection, since changes made in the meantime are not seen.
+     *
+     * @param collection The name of the collection.
+     */
+    private void restart(String collection) {
+        Subscription subscription = subscriptions.remove(collection);
+        if (subscription != null) {
+            container.remove(subscription);
+        }
+        pendingTokens.remove(collection);
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(tokenId(collection))), ChangeStreamToken.class);
+        taskScheduler.schedule(() -> {
+            eventPublisher.publishEvent(CacheInvalidationEvent.allOf(entityTypes.get(collection)));
+            subscribe(collection, false);
+        }, Instant.now().plusMillis(retryDelayMillis));
+    }
+
+    /**
+     * Get the stored resume token of a collection.
+     *
+     * @param collection The name of the collection.
+     * @return The resume token, or null if there is none.
+     */
+    private BsonValue storedToken(String collection) {
+        ChangeStreamToken token = mongoTemplate.findById(tokenId(collection), ChangeStreamToken.class);
+        return token != null && token.getToken() != null ? BsonDocument.parse(token.getToken().toJson()) : null;
+    }
+
+    private String tokenId(String collection) {
+        return nodeId + ":" + collection;
+    }
+
+    private static String documentId(BsonDocument documentKey) {
+        if (documentKey == null || !documentKey.containsKey("_id")) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        if (id instanceof BsonObjectId objectId) {
+            return objectId.getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package ba.edu.ibu.frent.core.cache;
+
+import org.bson.Document;
+
+/**
+ * Event published to the local caches when a document they may hold was written, on this or any other node.
+ * An event without a document ID invalidates everything cached from the collection, for example after
+ * changes may have been missed.
+ */
+public class CacheInvalidationEvent {
+    private final Class<?> entityType;
+    private final String documentId;
+    private final boolean deleted;
+    private final Document fullDocument;
+
+    /**
+     * Constructs a CacheInvalidationEvent.
+     *
+     * @param entityType   The type of the entity the document is mapped to.
+     * @param documentId   The ID of the written document, or null if the whole collection is invalidated.
+     * @param deleted      True if the document was deleted.
+     * @param fullDocument The current version of the document, if it was looked up, otherwise null.
+     */
+    public CacheInvalidationEvent(Class<?> entityType, String documentId, boolean deleted, Document fullDocument) {
+        this.entityType = entityType;
+        this.documentId = documentId;
+        this.deleted = deleted;
+        this.fullDocument = fullDocument;
+    }
+
+    /**
+     * Create an event that invalidates everything cached from a collection.
+     *
+     * @param entityType The type of the entities of the collection.
+     * @return The event.
+     */
+    public static CacheInvalidationEvent allOf(Class<?> entityType) {
+        return new CacheInvalidationEvent(entityType, null, false, null);
+    }
+
+    /**
+     * Check whether the event invalidates everything cached from the collection.
+     *
+     * @return True if the whole collection is invalidated.
+     */
+    public boolean isAll() {
+        return documentId == null;
+    }
+
+    /**
+     * Check whether the event concerns entities of the given type.
+     *
+     * @param type The entity type.
+     * @return True if the written documents are mapped to the given type.
+     */
+    public boolean concerns(Class<?> type) {
+        return entityType == type;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public Document getFullDocument() {
+        return fullDocument;
+    }
+}
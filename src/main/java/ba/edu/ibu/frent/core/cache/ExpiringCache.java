@@ -0,0 +1,240 @@
+package ba.edu.ibu.frent.core.cache;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * A small thread-safe in-process cache bounded by both size and age.
+ * Entries expire after the configured time to live (or earlier, if a shorter expiry is given when they are put).
+ * Reads never lock: entries live in a ConcurrentHashMap together with their expiry and the time they were last read.
+ * Once the maximum size is exceeded, a single thread sweeps the cache, dropping the expired entries and then the
+ * least recently read ones, so that a tenth of the maximum size is free again. Eviction is therefore approximate:
+ * the cache may briefly hold more entries than the maximum while a sweep is running, and entries read within the
+ * same millisecond are equally old. Hits, misses and evictions are counted.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the cached values.
+ */
+public class ExpiringCache<K, V> {
+    private final int maximumSize;
+    private final long timeToLiveMillis;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs an ExpiringCache that uses the system clock.
+     *
+     * @param maximumSize      The maximum number of entries kept in the cache.
+     * @param timeToLiveMillis The maximum time in milliseconds an entry is kept after it was put.
+     */
+    public ExpiringCache(int maximumSize, long timeToLiveMillis) {
+        this(maximumSize, timeToLiveMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs an ExpiringCache with the given clock.
+     *
+     * @param maximumSize      The maximum number of entries kept in the cache.
+     * @param timeToLiveMillis The maximum time in milliseconds an entry is kept after it was put.
+     * @param clock            The source of the current time in milliseconds.
+     * @throws IllegalArgumentException If the maximum size or the time to live is not positive.
+     */
+    public ExpiringCache(int maximumSize, long timeToLiveMillis, LongSupplier clock) {
+        if (maximumSize < 1 || timeToLiveMillis < 1) {
+            throw new IllegalArgumentException("Maximum size and time to live must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Get the value cached for a key.
+     *
+     * @param key The key to look up.
+     * @return The cached value, or null if there is none or it has expired.
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            long now = clock.getAsLong();
+            if (entry.expiresAt > now) {
+                // Only write when the time moved on, so a hot entry is not written by every reader
+                if (entry.readAt != now) {
+                    entry.readAt = now;
+                }
+                hits.increment();
+                return entry.value;
+            }
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Put a value that expires after the configured time to live.
+     *
+     * @param key   The key of the value.
+     * @param value The value to cache.
+     */
+    public void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    /**
+     * Put a value that expires at the given time or after the configured time to live, whichever comes first.
+     *
+     * @param key       The key of the value.
+     * @param value     The value to cache.
+     * @param expiresAt The time in milliseconds after which the value must no longer be returned.
+     */
+    public void put(K key, V value, long expiresAt) {
+        long now = clock.getAsLong();
+        long expiry = Math.min(expiresAt, now + timeToLiveMillis);
+        if (expiry <= now) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiry, now));
+        if (entries.size() > maximumSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Remove the value cached for a key.
+     *
+     * @param key The key to remove.
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Remove the value cached for a key, but only if it is still the given value.
+     *
+     * @param key   The key to remove.
+     * @param value The value that must still be cached for the key.
+     */
+    public void invalidate(K key, V value) {
+        entries.computeIfPresent(key, (k, entry) -> entry.value == value ? null : entry);
+    }
+
+    /**
+     * Remove every entry that matches the given predicate. This scans the whole cache, without blocking its readers.
+     *
+     * @param predicate The predicate that selects the entries to remove.
+     * @return The number of removed entries.
+     */
+    public int invalidateIf(BiPredicate<K, V> predicate) {
+        int removed = 0;
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            if (predicate.test(entry.getKey(), entry.getValue().value) && entries.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Get the current number of entries, including expired ones that have not been removed yet.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Bring the cache back under its maximum size, leaving a tenth of it free so that the next sweep is not needed
+     * before as many entries were put. Threads that find a sweep already running return right away.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = clock.getAsLong();
+            int excess = entries.size() - maximumSize + maximumSize / 10;
+            if (excess <= 0) {
+                return;
+            }
+            // Keep the least recently read entries, the most recently read one of them on top
+            PriorityQueue<Candidate<K, V>> oldest = new PriorityQueue<>(excess,
+                    Comparator.comparingLong((Candidate<K, V> candidate) -> candidate.readAt()).reversed());
+            for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+                Entry<V> value = entry.getValue();
+                if (value.expiresAt <= now) {
+                    if (entries.remove(entry.getKey(), value)) {
+                        excess--;
+                    }
+                } else {
+                    oldest.add(new Candidate<>(entry.getKey(), value, value.readAt));
+                    if (oldest.size() > excess) {
+                        oldest.poll();
+                    }
+                }
+            }
+            while (!oldest.isEmpty() && oldest.size() > excess) {
+                oldest.poll();
+            }
+            for (Candidate<K, V> candidate : oldest) {
+                if (entries.remove(candidate.key(), candidate.entry())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * An entry considered for eviction, with the time it was last read when the sweep saw it.
+     */
+    private record Candidate<K, V>(K key, Entry<V> entry, long readAt) {
+    }
+
+    /**
+     * A cached value together with the time it expires at and the time it was last read.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+        private volatile long readAt;
+
+        private Entry(V value, long expiresAt, long readAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.readAt = readAt;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package ba.edu.ibu.frent.core.cache;
+
+import ba.edu.ibu.frent.core.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the principals behind already validated JWT tokens, keyed by the token itself.
+ * A request carrying a cached token skips both signature verification and the user lookup.
+ * Entries never outlive the token they belong to and must be invalidated whenever the user changes.
+ * <p>
+ * Every invalidation bumps the generation of the invalidated user, and clearing the cache bumps the generation of
+ * every user. A principal is only cached if the generation of its user did not change while it was being loaded, so
+ * a load that raced with a write to the user can never put the old principal back into the cache.
+ * <p>
+ * The tokens of every user are also indexed by username, so invalidating a user removes just their tokens instead
+ * of scanning the whole cache. The index may still list tokens the cache has evicted; those are dropped from it once
+ * they expire.
+ */
+@Component
+public class JwtPrincipalCache {
+    private final ExpiringCache<String, UserDetails> cache;
+    private final long ttlMillis;
+    private final Map<String, Map<String, Long>> tokensByUsername = new ConcurrentHashMap<>();
+    private final AtomicLong generations = new AtomicLong();
+    private final Map<String, Long> userGenerations = new ConcurrentHashMap<>();
+    private volatile long clearedGeneration;
+
+    /**
+     * Constructs a JwtPrincipalCache.
+     *
+     * @param maximumSize The maximum number of cached tokens.
+     * @param ttlSeconds  The maximum number of seconds a token stays cached.
+     */
+    public JwtPrincipalCache(@Value("${security.jwt.principal-cache.maximum-size:10000}") int maximumSize,
+                             @Value("${security.jwt.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.cache = new ExpiringCache<>(maximumSize, ttlMillis);
+    }
+
+    /**
+     * Get the principal of a validated token.
+     *
+     * @param token The JWT token.
+     * @return The cached principal, or null if the token is not cached.
+     */
+    public UserDetails get(String token) {
+        return cache.get(token);
+    }
+
+    /**
+     * Get the current generation of a user, to be passed to {@link #put} once the user has been loaded.
+     *
+     * @param username The username of the user.
+     * @return The generation of the user.
+     */
+    public long generation(String username) {
+        return Math.max(clearedGeneration, userGenerations.getOrDefault(username, 0L));
+    }
+
+    /**
+     * Cache the principal of a validated token, unless its user was invalidated since the given generation was taken.
+     * A token without an expiration date stays cached for the configured time to live.
+     *
+     * @param token       The JWT token.
+     * @param userDetails The principal the token belongs to.
+     * @param expiration  The expiration date of the token, or null if it does not expire.
+     * @param generation  The generation of the user taken before the principal was loaded.
+     */
+    public void put(String token, UserDetails userDetails, Date expiration, long generation) {
+        String username = userDetails.getUsername();
+        if (generation(username) != generation) {
+            return;
+        }
+        // Index the token before caching it, so an invalidation can never find it cached but not indexed
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(expiration == null ? Long.MAX_VALUE : expiration.getTime(), now + ttlMillis);
+        tokensByUsername.compute(username, (key, tokens) -> {
+            Map<String, Long> indexed = tokens != null ? tokens : new HashMap<>();
+            indexed.values().removeIf(expiry -> expiry <= now);
+            indexed.put(token, expiresAt);
+            return indexed;
+        });
+        if (expiration == null) {
+            cache.put(token, userDetails);
+        } else {
+            cache.put(token, userDetails, expiration.getTime());
+        }
+        // An invalidation that ran after the check above may have missed the new entry, so take it out again
+        if (generation(username) != generation) {
+            cache.invalidate(token, userDetails);
+        }
+    }
+
+    /**
+     * Remove every cached token of a user.
+     *
+     * @param username The username of the user.
+     */
+    public void invalidateUser(String username) {
+        if (username != null) {
+            userGenerations.put(username, generations.incrementAndGet());
+            Map<String, Long> tokens = tokensByUsername.remove(username);
+            if (tokens != null) {
+                tokens.keySet().forEach(cache::invalidate);
+            }
+        }
+    }
+
+    /**
+     * Remove every cached token of the users written on any node.
+     *
+     * @param event The invalidation event published by the {@link CacheInvalidationBus}.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.concerns(User.class)) {
+            return;
+        }
+        if (event.isAll()) {
+            clear();
+        } else {
+            String id = event.getDocumentId();
+            clearedGeneration = generations.incrementAndGet();
+            cache.invalidateIf((token, userDetails) -> userDetails instanceof User user && id.equals(user.getId()));
+        }
+    }
+
+    /**
+     * Remove every cached token.
+     */
+    public void clear() {
+        clearedGeneration = generations.incrementAndGet();
+        cache.clear();
+        tokensByUsername.clear();
+    }
+
+    /**
+     * Drop the expired tokens from the username index, and the users left without any.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.principal-cache.prune-ms:60000}")
+    public void pruneIndex() {
+        long now = System.currentTimeMillis();
+        for (String username : tokensByUsername.keySet()) {
+            tokensByUsername.computeIfPresent(username, (key, tokens) -> {
+                tokens.values().removeIf(expiry -> expiry <= now);
+                return tokens.isEmpty() ? null : tokens;
+            });
+        }
+    }
+}
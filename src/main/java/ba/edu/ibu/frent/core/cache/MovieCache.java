@@ -0,0 +1,164 @@
+package ba.edu.ibu.frent.core.cache;
+
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import ba.edu.ibu.frent.rest.dto.MovieCacheStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through cache of movies by their ID, in front of the MovieRepository for every read that does not modify
+ * the movie. The cache is bounded by size and age, and counts its hits, misses and evictions.
+ * <p>
+ * Every write to the catalog must invalidate the written movie, which also bumps the catalog version. A movie that
+ * was loaded from the database is only cached if the version did not change while it was being loaded, so a load
+ * that raced with a write can never put the old movie back into the cache. Movies written outside of this
+ * application become visible once they expire, unless the {@link CacheInvalidationBus} is enabled, which is why the
+ * default time to live is short without it. Cached movies are shared between callers and must not be modified.
+ */
+@Component
+public class MovieCache {
+    private final MovieRepository movieRepository;
+    private final ExpiringCache<String, Movie> cache;
+    private final Object versionLock = new Object();
+    private long catalogVersion;
+
+    /**
+     * Constructs a MovieCache.
+     *
+     * @param movieRepository The repository the movies are loaded from.
+     * @param maximumSize     The maximum number of cached movies.
+     * @param ttlSeconds      The maximum number of seconds a movie stays cached. Unless configured, it is 60 seconds,
+     *                        since movies written on other nodes are only seen once they expire, and 300 seconds when
+     *                        the {@link CacheInvalidationBus} removes them as soon as they are written.
+     */
+    public MovieCache(MovieRepository movieRepository,
+                      @Value("${movies.cache.maximum-size:10000}") int maximumSize,
+                      @Value("${movies.cache.ttl-seconds:#{'${cache.invalidation.change-streams.enabled:false}' == 'true' ? 300 : 60}}") long ttlSeconds) {
+        this.movieRepository = movieRepository;
+        this.cache = new ExpiringCache<>(maximumSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * Get a movie, loading and caching it on a miss.
+     *
+     * @param id The ID of the movie.
+     * @return An optional containing the movie if it exists, otherwise empty.
+     */
+    public Optional<Movie> get(String id) {
+        Movie movie = cache.get(id);
+        if (movie != null) {
+            return Optional.of(movie);
+        }
+        long version = getVersion();
+        Optional<Movie> loaded = movieRepository.findById(id);
+        loaded.ifPresent(value -> put(value, version));
+        return loaded;
+    }
+
+    /**
+     * Get several movies, loading all the missing ones with a single query. Movies that do not exist are left out.
+     *
+     * @param ids The IDs of the movies.
+     * @return The movies, cached ones first.
+     */
+    public List<Movie> getAll(Collection<String> ids) {
+        List<Movie> movies = new ArrayList<>(ids.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            Movie movie = cache.get(id);
+            if (movie != null) {
+                movies.add(movie);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long version = getVersion();
+            for (Movie movie : movieRepository.findAllById(missing)) {
+                put(movie, version);
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * Remove a movie from the cache after it was written, and bump the catalog version.
+     *
+     * @param id The ID of the movie.
+     */
+    public void invalidate(String id) {
+        synchronized (versionLock) {
+            catalogVersion++;
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Remove every movie from the cache, and bump the catalog version.
+     */
+    public void invalidateAll() {
+        synchronized (versionLock) {
+            catalogVersion++;
+            cache.clear();
+        }
+    }
+
+    /**
+     * Remove the movies written on any node from the cache.
+     *
+     * @param event The invalidation event published by the {@link CacheInvalidationBus}.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.concerns(Movie.class)) {
+            return;
+        }
+        if (event.isAll()) {
+            invalidateAll();
+        } else {
+            invalidate(event.getDocumentId());
+        }
+    }
+
+    /**
+     * Get the catalog version, which changes with every write to the catalog.
+     *
+     * @return The catalog version.
+     */
+    public long getVersion() {
+        synchronized (versionLock) {
+            return catalogVersion;
+        }
+    }
+
+    /**
+     * Get the statistics of the cache.
+     *
+     * @return MovieCacheStatsDTO with the current size, version and counters of the cache.
+     */
+    public MovieCacheStatsDTO getStats() {
+        return new MovieCacheStatsDTO(cache.size(), getVersion(), cache.getHits(), cache.getMisses(), cache.getEvictions());
+    }
+
+    /**
+     * Cache a loaded movie, unless the catalog changed since the load started.
+     *
+     * @param movie   The loaded movie.
+     * @param version The catalog version before the load started.
+     */
+    private void put(Movie movie, long version) {
+        synchronized (versionLock) {
+            if (catalogVersion == version) {
+                cache.put(movie.getId(), movie);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ba.edu.ibu.frent.core.index;
+
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.service.RentalSummaryService;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Returns the duplicate active rentals of a movie, which were possible before the (username, movieId) index on active
+ * rentals became unique and would keep that index from being built. Of every group of active rentals of the same movie
+ * by the same user, the oldest one stays active and the others are returned today, after which the rental totals of
+ * the user are adjusted.
+ */
+@Component
+public class DuplicateRentalMigration implements IndexMigration {
+    private final MongoTemplate mongoTemplate;
+    private final RentalSummaryService rentalSummaryService;
+
+    /**
+     * Constructs a DuplicateRentalMigration.
+     *
+     * @param mongoTemplate        The MongoTemplate instance.
+     * @param rentalSummaryService The service maintaining the rental totals of users.
+     */
+    public DuplicateRentalMigration(MongoTemplate mongoTemplate, RentalSummaryService rentalSummaryService) {
+        this.mongoTemplate = mongoTemplate;
+        this.rentalSummaryService = rentalSummaryService;
+    }
+
+    /**
+     * Find the duplicate active rentals with one aggregation and return all but the oldest of each group.
+     */
+    @Override
+    public void migrate() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("returned").is(false)),
+                Aggregation.group("username", "movieId").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)));
+        for (Document group : mongoTemplate.aggregate(aggregation, Rental.class, Document.class)) {
+            String username = group.get("_id", Document.class).getString("username");
+            List<Object> duplicates = new ArrayList<>(group.getList("ids", Object.class));
+            duplicates.sort(Comparator.comparing(String::valueOf));
+            duplicates.remove(0);
+            Query query = new Query(Criteria.where("_id").in(duplicates).and("returned").is(false));
+            Update update = new Update()
+                    .set("returnDate", LocalDate.now())
+                    .set("returned", true);
+            UpdateResult result = mongoTemplate.updateMulti(query, update, Rental.class);
+            rentalSummaryService.recordRentalsReturned(username, result.getModifiedCount());
+            System.out.println("Returned " + result.getModifiedCount() + " duplicate active rentals of " + username);
+        }
+    }
+}
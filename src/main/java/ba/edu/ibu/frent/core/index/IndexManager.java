@@ -0,0 +1,240 @@
+package ba.edu.ibu.frent.core.index;
+
+import com.mongodb.MongoException;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the indexes declared on the documents with {@code @Indexed} and {@code @CompoundIndex} and reports on them.
+ * Every declared index is created once all beans exist and before the web server starts, after the migrations that
+ * the indexes depend on have run. An existing index with the same name but different keys or options is replaced
+ * without leaving the collection unguarded: the declared definition is built under a temporary name first, and the old
+ * index is only dropped once the new one exists. If an index cannot be built, startup fails and the old index is kept.
+ * The report lists the declared indexes that are missing and the existing ones that were not used since the server
+ * started.
+ */
+@Component
+public class IndexManager implements SmartInitializingSingleton {
+    static final String REPLACEMENT_SUFFIX = "_next";
+
+    private final MongoTemplate mongoTemplate;
+    private final List<IndexMigration> migrations;
+    private final MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext;
+    private final Set<String> ensuredIndexes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs an IndexManager.
+     *
+     * @param mongoTemplate The MongoTemplate instance.
+     * @param migrations    The migrations that must run before the indexes are created.
+     */
+    public IndexManager(MongoTemplate mongoTemplate, List<IndexMigration> migrations) {
+        this.mongoTemplate = mongoTemplate;
+        this.migrations = migrations;
+        this.mappingContext = mongoTemplate.getConverter().getMappingContext();
+    }
+
+    /**
+     * Create the indexes once all singletons exist, so that the web server only starts accepting requests when
+     * the indexes the services rely on are in place.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        ensureIndexes();
+    }
+
+    /**
+     * Run the migrations, create the declared indexes of all documents and report on them.
+     *
+     * @throws IllegalStateException If a declared index could not be created.
+     */
+    public void ensureIndexes() {
+        for (IndexMigration migration : migrations) {
+            migration.migrate();
+        }
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        for (MongoPersistentEntity<?> entity : documents()) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getCollection());
+            for (IndexDefinition index : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                ensureIndex(entity.getCollection(), indexOps, index);
+            }
+        }
+        report();
+    }
+
+    /**
+     * Check whether a declared index was confirmed to exist with its declared definition.
+     *
+     * @param collection The name of the collection.
+     * @param name       The name of the index.
+     * @return True if the index exists, false if it was not created yet or could not be created.
+     */
+    public boolean hasIndex(String collection, String name) {
+        return ensuredIndexes.contains(collection + "." + name);
+    }
+
+    /**
+     * Log the declared indexes that do not exist and the existing indexes that were not used since the server started.
+     * Indexes that expire documents are never reported as unused, since they are used by the server itself.
+     */
+    @Scheduled(cron = "${mongo.indexes.report-cron:0 0 6 * * *}")
+    public void report() {
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        for (MongoPersistentEntity<?> entity : documents()) {
+            String collection = entity.getCollection();
+            Set<Document> existingKeys = new HashSet<>();
+            Set<String> expiringIndexes = new HashSet<>();
+            for (Document index : mongoTemplate.getCollection(collection).listIndexes()) {
+                existingKeys.add(index.get("key", Document.class));
+                if (index.containsKey("expireAfterSeconds")) {
+                    expiringIndexes.add(index.getString("name"));
+                }
+            }
+            for (IndexDefinition index : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                if (!existingKeys.contains(index.getIndexKeys())) {
+                    System.out.println("Missing index on " + collection + ": " + index.getIndexKeys().toJson());
+                }
+            }
+            for (String name : unusedIndexes(collection)) {
+                if (!expiringIndexes.contains(name)) {
+                    System.out.println("Unused index on " + collection + ": " + name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create an index. An existing index with the same name but a different definition is replaced by building the
+     * declared definition under a temporary name and dropping the old index afterwards; the replacement keeps its
+     * temporary name, since MongoDB cannot rename an index, and is recognized as the declared index from then on.
+     *
+     * @param collection The name of the collection.
+     * @param indexOps   The index operations of the collection.
+     * @param index      The declared index.
+     * @throws IllegalStateException If the index could not be created, in which case an existing index is kept.
+     */
+    private void ensureIndex(String collection, IndexOperations indexOps, IndexDefinition index) {
+        String name = index.getIndexOptions().getString("name");
+        try {
+            indexOps.ensureIndex(index);
+            ensuredIndexes.add(collection + "." + name);
+            return;
+        } catch (DataAccessException | MongoException e) {
+            List<IndexInfo> existing = indexOps.getIndexInfo();
+            if (existing.stream().anyMatch(info -> info.getName().equals(name + REPLACEMENT_SUFFIX) && sameDefinition(info, index))) {
+                ensuredIndexes.add(collection + "." + name);
+                return;
+            }
+            if (name == null || existing.stream().noneMatch(info -> info.getName().equals(name))) {
+                throw new IllegalStateException("Could not create index " + name + " on " + collection + ": " + e.getMessage(), e);
+            }
+        }
+        Document options = new Document(index.getIndexOptions()).append("name", name + REPLACEMENT_SUFFIX);
+        IndexDefinition replacement = new IndexDefinition() {
+            @Override
+            public Document getIndexKeys() {
+                return index.getIndexKeys();
+            }
+
+            @Override
+            public Document getIndexOptions() {
+                return options;
+            }
+        };
+        try {
+            indexOps.ensureIndex(replacement);
+        } catch (DataAccessException | MongoException e) {
+            throw new IllegalStateException("Index " + name + " on " + collection + " differs from its declaration and its replacement "
+                    + "could not be built, so the existing index was kept: " + e.getMessage(), e);
+        }
+        indexOps.dropIndex(name);
+        ensuredIndexes.add(collection + "." + name);
+        System.out.println("Replaced index " + name + " on " + collection + " by " + name + REPLACEMENT_SUFFIX + " with its declared definition");
+    }
+
+    /**
+     * Check whether an existing index has the keys and options of a declared index.
+     *
+     * @param info  The existing index.
+     * @param index The declared index.
+     * @return True if the keys, uniqueness, partial filter and expiry are the same.
+     */
+    private static boolean sameDefinition(IndexInfo info, IndexDefinition index) {
+        Map<String, Integer> keys = new LinkedHashMap<>();
+        for (IndexField field : info.getIndexFields()) {
+            keys.put(field.getKey(), field.getDirection() == Sort.Direction.DESC ? -1 : 1);
+        }
+        Map<String, Integer> declaredKeys = new LinkedHashMap<>();
+        index.getIndexKeys().forEach((key, direction) -> declaredKeys.put(key, ((Number) direction).intValue()));
+        Document options = index.getIndexOptions();
+        Document partialFilter = info.getPartialFilterExpression() == null ? null : Document.parse(info.getPartialFilterExpression());
+        Optional<Long> expireAfter = info.getExpireAfter().map(Duration::getSeconds);
+        Optional<Long> declaredExpireAfter = Optional.ofNullable((Number) options.get("expireAfterSeconds")).map(Number::longValue);
+        return keys.equals(declaredKeys)
+                && info.isUnique() == Boolean.TRUE.equals(options.get("unique"))
+                && Objects.equals(partialFilter, options.get("partialFilterExpression"))
+                && expireAfter.equals(declaredExpireAfter);
+    }
+
+    /**
+     * Get the names of the indexes of a collection that were not used since the server started.
+     *
+     * @param collection The name of the collection.
+     * @return The names of the unused indexes, or an empty list if index statistics are not available.
+     */
+    private List<String> unusedIndexes(String collection) {
+        List<String> unused = new ArrayList<>();
+        try {
+            for (Document stats : mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$indexStats", new Document())))) {
+                Document accesses = stats.get("accesses", Document.class);
+                String name = stats.getString("name");
+                if (!"_id_".equals(name) && accesses != null && ((Number) accesses.get("ops")).longValue() == 0) {
+                    unused.add(name);
+                }
+            }
+        } catch (MongoException e) {
+            System.out.println("Index statistics of " + collection + " are not available: " + e.getMessage());
+        }
+        return unused;
+    }
+
+    /**
+     * Get the mapped classes that are stored as documents of their own.
+     *
+     * @return The persistent entities of the documents.
+     */
+    private List<MongoPersistentEntity<?>> documents() {
+        List<MongoPersistentEntity<?>> documents = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                documents.add(entity);
+            }
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,14 @@
+package ba.edu.ibu.frent.core.index;
+
+/**
+ * A change to existing documents that must be made before the declared indexes can be created, such as removing
+ * the duplicates that a new unique index would reject. Migrations run at startup, before the IndexManager creates
+ * the indexes, and must be safe to run on every start.
+ */
+public interface IndexMigration {
+
+    /**
+     * Bring the existing documents in line with the declared indexes.
+     */
+    void migrate();
+}
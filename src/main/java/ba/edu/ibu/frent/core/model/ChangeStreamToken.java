@@ -0,0 +1,43 @@
+package ba.edu.ibu.frent.core.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Represents the position of one node of this application in the change stream of a collection.
+ * The identifier is made of the node and the collection name, and the token is the resume token of the last processed
+ * change, so a restarted node continues the stream where it stopped instead of missing the changes made meanwhile.
+ */
+@Document(collection = "change_stream_tokens")
+public class ChangeStreamToken {
+    @Id
+    private String id;
+    private org.bson.Document token;
+    private Date updatedAt = new Date();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public org.bson.Document getToken() {
+        return token;
+    }
+
+    public void setToken(org.bson.Document token) {
+        this.token = token;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
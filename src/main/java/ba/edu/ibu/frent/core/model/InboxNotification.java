@@ -0,0 +1,89 @@
+package ba.edu.ibu.frent.core.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Represents a notification in the inbox of a user.
+ * Each notification has a unique identifier, which orders the inbox by time, the username of the recipient, the message,
+ * the creation date and whether it has reached the user over a WebSocket. Notifications expire after 30 days.
+ */
+@Document(collection = "notification_inbox")
+@CompoundIndexes({
+        @CompoundIndex(name = "username_1__id_-1", def = "{'username': 1, '_id': -1}"),
+        @CompoundIndex(name = "username_1__id_1_undelivered", def = "{'username': 1, '_id': 1}",
+                partialFilter = "{'delivered': false}")
+})
+public class InboxNotification {
+    @Id
+    private String id;
+    private String username;
+    private String message;
+    private boolean delivered;
+    @Indexed(name = "createdAt_1", expireAfter = "30d")
+    private Date createdAt = new Date();
+
+    /**
+     * Default constructor for the InboxNotification class.
+     */
+    public InboxNotification() {
+    }
+
+    /**
+     * Parameterized constructor for the InboxNotification class.
+     *
+     * @param username  The username of the recipient.
+     * @param message   The message.
+     * @param delivered Whether the message was already sent to an open session of the user.
+     */
+    public InboxNotification(String username, String message, boolean delivered) {
+        this.username = username;
+        this.message = message;
+        this.delivered = delivered;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public boolean isDelivered() {
+        return delivered;
+    }
+
+    public void setDelivered(boolean delivered) {
+        this.delivered = delivered;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
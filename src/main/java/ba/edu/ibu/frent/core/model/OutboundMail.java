@@ -0,0 +1,132 @@
+package ba.edu.ibu.frent.core.model;
+
+import ba.edu.ibu.frent.core.model.enums.MailStatus;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Represents an email waiting in the outbound mail queue.
+ * Each queued email has a unique identifier, recipients, subject, message, delivery status, number of attempts,
+ * the time of its next attempt, creation date, the date it was sent and the last delivery error.
+ * While an email is being sent, the time of the next attempt is the moment its claim expires.
+ */
+@Document(collection = "outbound_mail")
+@CompoundIndex(name = "status_1_nextAttemptAt_1", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class OutboundMail {
+    @Id
+    private String id;
+    private List<String> recipients;
+    private String subject;
+    private String message;
+    private MailStatus status = MailStatus.PENDING;
+    private int attempts;
+    private Date nextAttemptAt;
+    private Date createdAt = new Date();
+    private Date sentAt;
+    private String lastError;
+
+    /**
+     * Default constructor for the OutboundMail class.
+     */
+    public OutboundMail() {
+    }
+
+    /**
+     * Parameterized constructor for the OutboundMail class.
+     * Initializes a pending email that is due immediately.
+     *
+     * @param recipients The email addresses of the recipients.
+     * @param subject    The subject of the email.
+     * @param message    The content of the email.
+     */
+    public OutboundMail(List<String> recipients, String subject, String message) {
+        this.recipients = recipients;
+        this.subject = subject;
+        this.message = message;
+        this.nextAttemptAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<String> getRecipients() {
+        return recipients;
+    }
+
+    public void setRecipients(List<String> recipients) {
+        this.recipients = recipients;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public MailStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(MailStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Date nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Date sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
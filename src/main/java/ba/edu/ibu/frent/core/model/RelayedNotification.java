@@ -0,0 +1,102 @@
+package ba.edu.ibu.frent.core.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Represents a WebSocket notification passed between the nodes of this application over the notification bus,
+ * a capped collection every node tails. A notification for a user is addressed to one node that user is connected to,
+ * while a broadcast has no target node and is picked up once by every node except the one it originates from.
+ */
+@Document(collection = "notification_bus")
+public class RelayedNotification {
+    @Id
+    private String id;
+    private String originNode;
+    private String targetNode;
+    private String username;
+    private String message;
+    private String notificationId;
+    private Date createdAt = new Date();
+
+    /**
+     * Default constructor for the RelayedNotification class.
+     */
+    public RelayedNotification() {
+    }
+
+    /**
+     * Parameterized constructor for the RelayedNotification class.
+     *
+     * @param originNode     The node the notification was sent from.
+     * @param targetNode     The node the notification is delivered on, or null for a broadcast.
+     * @param username       The username of the recipient, or null for a broadcast.
+     * @param message        The message.
+     * @param notificationId The ID of the notification in the inbox of the recipient, or null for a broadcast.
+     */
+    public RelayedNotification(String originNode, String targetNode, String username, String message, String notificationId) {
+        this.originNode = originNode;
+        this.targetNode = targetNode;
+        this.username = username;
+        this.message = message;
+        this.notificationId = notificationId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOriginNode() {
+        return originNode;
+    }
+
+    public void setOriginNode(String originNode) {
+        this.originNode = originNode;
+    }
+
+    public String getTargetNode() {
+        return targetNode;
+    }
+
+    public void setTargetNode(String targetNode) {
+        this.targetNode = targetNode;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public void setNotificationId(String notificationId) {
+        this.notificationId = notificationId;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,109 @@
+package ba.edu.ibu.frent.core.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Represents the progress of the due date reminders of one day.
+ * The identifier is the date of the run, and the last username is the last user whose reminders were sent,
+ * so an interrupted run continues with the next user instead of starting over.
+ */
+@Document(collection = "reminder_checkpoints")
+public class ReminderCheckpoint {
+    @Id
+    private String id;
+    private String lastUsername;
+    private long processedRentals;
+    private long remindedUsers;
+    private boolean completed;
+    private Date startedAt = new Date();
+    private Date updatedAt = new Date();
+
+    /**
+     * Default constructor for the ReminderCheckpoint class.
+     */
+    public ReminderCheckpoint() {
+    }
+
+    /**
+     * Parameterized constructor for the ReminderCheckpoint class.
+     * Initializes the progress of a run that has not processed any rentals yet.
+     *
+     * @param id The date of the run.
+     */
+    public ReminderCheckpoint(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Record a processed chunk of rentals.
+     *
+     * @param lastUsername     The last user of the chunk.
+     * @param processedRentals The number of rentals in the chunk.
+     * @param remindedUsers    The number of users that were reminded.
+     */
+    public void advance(String lastUsername, long processedRentals, long remindedUsers) {
+        this.lastUsername = lastUsername;
+        this.processedRentals += processedRentals;
+        this.remindedUsers += remindedUsers;
+        this.updatedAt = new Date();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getLastUsername() {
+        return lastUsername;
+    }
+
+    public void setLastUsername(String lastUsername) {
+        this.lastUsername = lastUsername;
+    }
+
+    public long getProcessedRentals() {
+        return processedRentals;
+    }
+
+    public void setProcessedRentals(long processedRentals) {
+        this.processedRentals = processedRentals;
+    }
+
+    public long getRemindedUsers() {
+        return remindedUsers;
+    }
+
+    public void setRemindedUsers(long remindedUsers) {
+        this.remindedUsers = remindedUsers;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,52 @@
+package ba.edu.ibu.frent.core.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Represents a due date reminder that was sent for a rental on a day.
+ * The identifier is made of the rental and the date, so inserting the marker claims the reminder and a second
+ * attempt to send it on the same day, from any node or path, fails. Markers expire after 7 days.
+ */
+@Document(collection = "reminder_markers")
+public class ReminderMarker {
+    @Id
+    private String id;
+    @Indexed(name = "createdAt_1", expireAfter = "7d")
+    private Date createdAt = new Date();
+
+    /**
+     * Default constructor for the ReminderMarker class.
+     */
+    public ReminderMarker() {
+    }
+
+    /**
+     * Parameterized constructor for the ReminderMarker class.
+     *
+     * @param rentalId The ID of the rental.
+     * @param day      The day of the reminder, as an ISO date.
+     */
+    public ReminderMarker(String rentalId, String day) {
+        this.id = rentalId + ":" + day;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,6 +1,9 @@
 package ba.edu.ibu.frent.core.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -9,14 +12,21 @@ import java.time.LocalDate;
  * Represents a rental transaction in the system.
  * Each rental has a unique identifier, associated username, movie ID, rental date, due date,
  * return date, rental price, return status and video;
+ * Rentals are looked up by user, by user and movie among the active ones, and by due date among the active ones.
+ * A user can have at most one active rental of a movie, which the unique partial index enforces.
  */
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "username_1_dueDate_1", def = "{'username': 1, 'dueDate': 1}"),
+        @CompoundIndex(name = "username_1_movieId_1", def = "{'username': 1, 'movieId': 1}", unique = true, partialFilter = "{'returned': false}")
+})
 public class Rental {
     @Id
     private String id;
     private String username;
     private String movieId;
     private LocalDate rentalDate;
+    @Indexed(name = "dueDate_1", partialFilter = "{'returned': false}")
     private LocalDate dueDate;
     private LocalDate returnDate;
     private double rentalPrice;
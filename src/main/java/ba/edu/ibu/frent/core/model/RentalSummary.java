@@ -0,0 +1,77 @@
+package ba.edu.ibu.frent.core.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the materialized rental totals of one user.
+ * The identifier is the username, and the totals are kept up to date with atomic increments whenever
+ * a rental of the user is created, updated, returned or deleted, so they can be read as a single document.
+ */
+@Document(collection = "rental_summaries")
+public class RentalSummary {
+    @Id
+    private String id;
+    private double totalSpent;
+    private long rentalCount;
+    private long activeRentals;
+    private LocalDate lastRentalDate;
+
+    /**
+     * Default constructor for the RentalSummary class.
+     */
+    public RentalSummary() {
+    }
+
+    /**
+     * Parameterized constructor for the RentalSummary class.
+     * Initializes the summary of a user without any rentals.
+     *
+     * @param id The username of the user.
+     */
+    public RentalSummary(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public double getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(double totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public long getRentalCount() {
+        return rentalCount;
+    }
+
+    public void setRentalCount(long rentalCount) {
+        this.rentalCount = rentalCount;
+    }
+
+    public long getActiveRentals() {
+        return activeRentals;
+    }
+
+    public void setActiveRentals(long activeRentals) {
+        this.activeRentals = activeRentals;
+    }
+
+    public LocalDate getLastRentalDate() {
+        return lastRentalDate;
+    }
+
+    public void setLastRentalDate(LocalDate lastRentalDate) {
+        this.lastRentalDate = lastRentalDate;
+    }
+}
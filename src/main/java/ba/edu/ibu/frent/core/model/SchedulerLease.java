@@ -0,0 +1,43 @@
+package ba.edu.ibu.frent.core.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Represents a lease on a scheduled task that must only run on one node at a time.
+ * The identifier is the name of the task, the owner is the node that currently runs it, and the lease is free
+ * to be taken over by another node once it expires without being renewed.
+ */
+@Document(collection = "scheduler_leases")
+public class SchedulerLease {
+    @Id
+    private String id;
+    private String owner;
+    private Date expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -2,6 +2,7 @@ package ba.edu.ibu.frent.core.model;
 
 import ba.edu.ibu.frent.core.model.enums.UserType;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -21,10 +22,13 @@ public class User implements UserDetails {
     private UserType userType;
     private String firstName;
     private String lastName;
+    @Indexed(name = "email_1", unique = true)
     private String email;
+    @Indexed(name = "username_1", unique = true)
     private String username;
     private String password;
     private Set<String> cart = new HashSet<>();
+    @Indexed(name = "wishlist_1")
     private Set<String> wishlist = new HashSet<>();
     private Date creationDate = new Date();
     private boolean isSuspended;
@@ -0,0 +1,55 @@
+package ba.edu.ibu.frent.core.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Represents an entry of the WebSocket routing table: a user with at least one open session on a node.
+ * The identifier is made of the node and the username. Every node refreshes the entries of its users periodically,
+ * so the entries of a node that stopped without removing them expire.
+ */
+@Document(collection = "websocket_routes")
+public class WebSocketRoute {
+    @Id
+    private String id;
+    @Indexed(name = "username_1")
+    private String username;
+    private String nodeId;
+    @Indexed(name = "lastSeenAt_1", expireAfter = "120s")
+    private Date lastSeenAt = new Date();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public Date getLastSeenAt() {
+        return lastSeenAt;
+    }
+
+    public void setLastSeenAt(Date lastSeenAt) {
+        this.lastSeenAt = lastSeenAt;
+    }
+}
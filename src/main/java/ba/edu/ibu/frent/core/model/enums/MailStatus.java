@@ -0,0 +1,27 @@
+package ba.edu.ibu.frent.core.model.enums;
+
+/**
+ * Enumeration representing the delivery status of a queued email.
+ */
+public enum MailStatus {
+
+    /**
+     * Waiting to be sent, either for the first time or for a retry.
+     */
+    PENDING,
+
+    /**
+     * Claimed by a sender and currently being delivered.
+     */
+    SENDING,
+
+    /**
+     * Accepted by the mail provider.
+     */
+    SENT,
+
+    /**
+     * Given up on after a permanent error or too many attempts.
+     */
+    FAILED
+}
@@ -0,0 +1,12 @@
+package ba.edu.ibu.frent.core.repository;
+
+import ba.edu.ibu.frent.core.model.ReminderCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for accessing and managing the progress of due date reminder runs in the MongoDB database.
+ */
+@Repository
+public interface ReminderCheckpointRepository extends MongoRepository<ReminderCheckpoint, String> {
+}
@@ -15,11 +15,11 @@ public interface RentalRepository extends MongoRepository<Rental, String> {
     /**
      * Check if there is an active rental for a specific movie and user.
      *
-     * @param movieId The ID of the movie.
      * @param username The username of the user.
+     * @param movieId The ID of the movie.
      * @return True if there is an active rental, false otherwise.
      */
-    boolean existsByMovieIdAndUsernameAndReturnDateIsNull(String movieId, String username);
+    boolean existsByUsernameAndMovieIdAndReturnedFalse(String username, String movieId);
 
     List<Rental> findAllByUsername(String username);
 }
@@ -5,8 +5,6 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
-import java.util.List;
 import java.util.Optional;
 
 /**
@@ -55,31 +53,4 @@ public interface UserRepository extends MongoRepository<User, String> {
      * @return True if a user with the username exists, false otherwise.
      */
     boolean existsByUsername(String username);
-
-    /**
-     * Find users with a movie in their wishlist.
-     *
-     * @param id The ID of the movie.
-     * @return A list of users with the movie in their wishlist.
-     */
-    List<User> findByWishlistContaining(String id);
-
-    /**
-     * Find emails of users with a movie in their wishlist.
-     *
-     * @param id The ID of the movie.
-     * @return A list of emails of users with the movie in their wishlist.
-     */
-    @Query(value = "{'wishlist': ?0}", fields = "{'email': 1, '_id': 0}")
-    List<String> findEmailsByWishlistContaining(String id);
-
-    /**
-     * Find emails of users with overdue or upcoming due rentals.
-     *
-     * @param today The current date.
-     * @param upcomingDueDate The number of days to check for upcoming due rentals.
-     * @return A list of emails of users with overdue or upcoming due rentals.
-     */
-    @Query(value = "{ 'rentals': { $elemMatch: { $or: [ { 'dueDate': { $lt: ?0 }, 'returnDate': null }, { 'dueDate': { $gte: ?0, $lte: ?1 }, 'returnDate': null } ] } } }", fields = "{'email': 1, '_id': 0}")
-    List<String> findEmailsByOverdueOrUpcomingDueRentals(LocalDate today, LocalDate upcomingDueDate);
 }
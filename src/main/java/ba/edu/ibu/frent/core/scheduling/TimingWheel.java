@@ -0,0 +1,166 @@
+package ba.edu.ibu.frent.core.scheduling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A hierarchical timing wheel: a set of keyed deadlines with constant time scheduling and cancellation.
+ * Time advances in ticks. The lowest level has one bucket per tick of the next {@value #SLOTS} ticks, and every
+ * further level covers {@value #SLOTS} times the range of the level below it with buckets just as much coarser.
+ * A deadline is kept in the level that covers it, and is moved down a level whenever the wheel below completes a
+ * rotation, until it reaches the lowest level and expires on its exact tick. Deadlines expire at most one tick late
+ * and never early. Every key has at most one deadline; scheduling a key again replaces its deadline.
+ *
+ * @param <K> The type of the keys.
+ */
+public class TimingWheel<K> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final long MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+
+    private final long tickMillis;
+    private final List<List<Set<Timeout<K>>>> levels = new ArrayList<>(LEVELS);
+    private final Map<K, Timeout<K>> timeouts = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * Constructs a TimingWheel.
+     *
+     * @param tickMillis  The length of a tick in milliseconds.
+     * @param startMillis The current time in milliseconds.
+     * @throws IllegalArgumentException If the tick is not positive.
+     */
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        for (int level = 0; level < LEVELS; level++) {
+            List<Set<Timeout<K>>> buckets = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                buckets.add(new LinkedHashSet<>());
+            }
+            levels.add(buckets);
+        }
+    }
+
+    /**
+     * Schedule a deadline for a key, replacing the previous deadline of the key. A deadline in the past
+     * expires on the next tick.
+     *
+     * @param key            The key.
+     * @param deadlineMillis The time in milliseconds at which the key expires.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        Timeout<K> timeout = new Timeout<>(key, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        timeouts.put(key, timeout);
+        place(timeout, currentTick + 1);
+    }
+
+    /**
+     * Cancel the deadline of a key.
+     *
+     * @param key The key.
+     * @return True if the key had a deadline, false otherwise.
+     */
+    public synchronized boolean cancel(K key) {
+        Timeout<K> timeout = timeouts.remove(key);
+        if (timeout == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        return true;
+    }
+
+    /**
+     * Advance the wheel to the given time and remove the keys whose deadline has passed.
+     *
+     * @param nowMillis The current time in milliseconds.
+     * @return The expired keys, in the order of their deadlines.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        List<K> expired = new ArrayList<>();
+        while (currentTick < nowTick) {
+            currentTick++;
+            for (int level = 1; level < LEVELS; level++) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level);
+            }
+            Set<Timeout<K>> bucket = levels.get(0).get((int) (currentTick & MASK));
+            for (Timeout<K> timeout : bucket) {
+                timeouts.remove(timeout.key);
+                expired.add(timeout.key);
+            }
+            bucket.clear();
+        }
+        return expired;
+    }
+
+    /**
+     * Get the number of scheduled deadlines.
+     *
+     * @return The number of deadlines.
+     */
+    public synchronized int size() {
+        return timeouts.size();
+    }
+
+    /**
+     * Move the deadlines of the current bucket of a level to the levels below it.
+     *
+     * @param level The level to cascade.
+     */
+    private void cascade(int level) {
+        Set<Timeout<K>> bucket = levels.get(level).get((int) ((currentTick >>> (BITS * level)) & MASK));
+        List<Timeout<K>> cascaded = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Timeout<K> timeout : cascaded) {
+            place(timeout, currentTick);
+        }
+    }
+
+    /**
+     * Put a deadline into the bucket of the lowest level that covers it.
+     *
+     * @param timeout     The deadline.
+     * @param earliestTick The earliest tick the deadline may be put on.
+     */
+    private void place(Timeout<K> timeout, long earliestTick) {
+        long tick = Math.max(timeout.deadlineTick, earliestTick);
+        long delta = tick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (BITS * LEVELS)) {
+            tick = currentTick + (1L << (BITS * LEVELS)) - 1;
+        }
+        Set<Timeout<K>> bucket = levels.get(level).get((int) ((tick >>> (BITS * level)) & MASK));
+        bucket.add(timeout);
+        timeout.bucket = bucket;
+    }
+
+    /**
+     * A key together with the tick it expires on and the bucket it is kept in.
+     */
+    private static final class Timeout<K> {
+        private final K key;
+        private final long deadlineTick;
+        private Set<Timeout<K>> bucket;
+
+        private Timeout(K key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
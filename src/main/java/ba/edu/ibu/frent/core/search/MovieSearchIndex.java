@@ -0,0 +1,218 @@
+package ba.edu.ibu.frent.core.search;
+
+import ba.edu.ibu.frent.core.cache.CacheInvalidationBus;
+import ba.edu.ibu.frent.core.cache.CacheInvalidationEvent;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.model.enums.Genre;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the movie catalog used for full-text search.
+ * Titles, directors, genres and descriptions are split into lowercase tokens, and every token maps to the
+ * movies that contain it together with a field weight. Query terms match tokens by prefix, so "god" finds
+ * "The Godfather", and results are ranked by the summed weight of the matching fields.
+ */
+@Component
+public class MovieSearchIndex {
+    private static final int TITLE_WEIGHT = 8;
+    private static final int DIRECTOR_WEIGHT = 4;
+    private static final int GENRE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /**
+     * Multiplier applied when a query term matches a whole token rather than only its prefix.
+     */
+    private static final int EXACT_MATCH_BOOST = 2;
+
+    private final MovieRepository movieRepository;
+    private final NavigableMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> tokensByMovie = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructs a MovieSearchIndex.
+     *
+     * @param movieRepository The repository the index is built from at startup.
+     */
+    public MovieSearchIndex(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    /**
+     * Rebuild the whole index from the database. Runs once when the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Movie> movies = movieRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            tokensByMovie.clear();
+            movies.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a movie to the index, replacing any previously indexed version of it.
+     *
+     * @param movie The movie to index.
+     */
+    public void index(Movie movie) {
+        lock.writeLock().lock();
+        try {
+            delete(movie.getId());
+            add(movie);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a movie from the index.
+     *
+     * @param movieId The ID of the movie to remove.
+     */
+    public void remove(String movieId) {
+        lock.writeLock().lock();
+        try {
+            delete(movieId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply the movies written on other nodes, as reported by the {@link CacheInvalidationBus}. A written movie is
+     * reloaded and replaced, a deleted one is removed, and everything is rebuilt if changes may have been missed.
+     *
+     * @param event The invalidation event.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.concerns(Movie.class)) {
+            return;
+        }
+        if (event.isAll()) {
+            rebuild();
+        } else if (event.isDeleted()) {
+            remove(event.getDocumentId());
+        } else {
+            movieRepository.findById(event.getDocumentId())
+                    .ifPresentOrElse(this::index, () -> remove(event.getDocumentId()));
+        }
+    }
+
+    /**
+     * Search the index. Every term of the query has to match the prefix of at least one token of a movie.
+     * Movies are ordered by relevance, and movies with equal relevance are ordered newest first.
+     *
+     * @param query  The search query.
+     * @param offset The number of ranked results to skip.
+     * @param limit  The maximum number of results to return.
+     * @return The IDs of the matching movies in ranked order.
+     */
+    public List<String> search(String query, int offset, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Integer> scores;
+        lock.readLock().lock();
+        try {
+            scores = score(terms.get(0));
+            for (int i = 1; i < terms.size() && !scores.isEmpty(); i++) {
+                Map<String, Integer> termScores = score(terms.get(i));
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((movieId, score) -> score + termScores.get(movieId));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<String, Integer>comparingByKey(Comparator.reverseOrder())))
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Split text into lowercase tokens on everything that is not a letter or a digit.
+     *
+     * @param text The text to split.
+     * @return The tokens of the text, in order.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Collect the scores of all movies with a token that starts with the given term.
+     * Must be called while holding the read lock.
+     */
+    private Map<String, Integer> score(String term) {
+        Map<String, Integer> scores = new HashMap<>();
+        postings.subMap(term, true, term + Character.MAX_VALUE, false).forEach((token, movies) -> {
+            int boost = token.equals(term) ? EXACT_MATCH_BOOST : 1;
+            movies.forEach((movieId, weight) -> scores.merge(movieId, weight * boost, Integer::sum));
+        });
+        return scores;
+    }
+
+    /**
+     * Add the tokens of a movie to the postings. Must be called while holding the write lock.
+     */
+    private void add(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(movie.getTitle()).forEach(token -> weights.merge(token, TITLE_WEIGHT, Integer::sum));
+        tokenize(movie.getDirector()).forEach(token -> weights.merge(token, DIRECTOR_WEIGHT, Integer::sum));
+        if (movie.getGenre() != null) {
+            for (Genre genre : movie.getGenre()) {
+                tokenize(genre.name()).forEach(token -> weights.merge(token, GENRE_WEIGHT, Integer::sum));
+            }
+        }
+        tokenize(movie.getDescription()).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum));
+
+        weights.forEach((token, weight) -> postings.computeIfAbsent(token, key -> new HashMap<>()).put(movie.getId(), weight));
+        tokensByMovie.put(movie.getId(), weights.keySet());
+    }
+
+    /**
+     * Remove the tokens of a movie from the postings. Must be called while holding the write lock.
+     */
+    private void delete(String movieId) {
+        Set<String> tokens = tokensByMovie.remove(movieId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<String, Integer> movies = postings.get(token);
+            movies.remove(movieId);
+            if (movies.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+}
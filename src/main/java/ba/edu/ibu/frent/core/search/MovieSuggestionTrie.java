@@ -0,0 +1,239 @@
+package ba.edu.ibu.frent.core.search;
+
+import ba.edu.ibu.frent.core.cache.CacheInvalidationBus;
+import ba.edu.ibu.frent.core.cache.CacheInvalidationEvent;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory prefix trie over movie titles and directors used for search-as-you-type suggestions.
+ * Every phrase is inserted once for each of its words, so "god" completes to "The Godfather" as well as
+ * "the god" does. Lookups walk the prefix and then collect completions in alphabetical order until the
+ * limit is reached, so their cost depends on the prefix and the limit rather than on the catalog size.
+ */
+@Component
+public class MovieSuggestionTrie {
+    private final MovieRepository movieRepository;
+    private final Node root = new Node();
+    private final Map<String, List<String>> phrasesByMovie = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructs a MovieSuggestionTrie.
+     *
+     * @param movieRepository The repository the trie is built from at startup.
+     */
+    public MovieSuggestionTrie(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    /**
+     * Rebuild the whole trie from the database. Runs once when the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Movie> movies = movieRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.phrases.clear();
+            phrasesByMovie.clear();
+            movies.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add the title and director of a movie, replacing the ones of any previously added version of it.
+     *
+     * @param movie The movie to add.
+     */
+    public void index(Movie movie) {
+        lock.writeLock().lock();
+        try {
+            delete(movie.getId());
+            add(movie);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the title and director of a movie.
+     *
+     * @param movieId The ID of the movie to remove.
+     */
+    public void remove(String movieId) {
+        lock.writeLock().lock();
+        try {
+            delete(movieId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply the movies written on other nodes, as reported by the {@link CacheInvalidationBus}. A written movie is
+     * reloaded and replaced, a deleted one is removed, and everything is rebuilt if changes may have been missed.
+     *
+     * @param event The invalidation event.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.concerns(Movie.class)) {
+            return;
+        }
+        if (event.isAll()) {
+            rebuild();
+        } else if (event.isDeleted()) {
+            remove(event.getDocumentId());
+        } else {
+            movieRepository.findById(event.getDocumentId())
+                    .ifPresentOrElse(this::index, () -> remove(event.getDocumentId()));
+        }
+    }
+
+    /**
+     * Get titles and directors that contain a word starting with the given prefix.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  The maximum number of suggestions to return.
+     * @return Distinct suggestions in alphabetical order of the matched text.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        Set<String> suggestions = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node != null) {
+                collect(node, suggestions, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    /**
+     * Lowercase a phrase and collapse runs of whitespace into single spaces.
+     */
+    private static String normalize(String text) {
+        return text == null ? "" : text.strip().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Depth-first collection of phrases in alphabetical order. Must be called while holding the read lock.
+     */
+    private static void collect(Node node, Set<String> suggestions, int limit) {
+        for (String phrase : node.phrases.keySet()) {
+            if (suggestions.size() >= limit) {
+                return;
+            }
+            suggestions.add(phrase);
+        }
+        for (Node child : node.children.values()) {
+            if (suggestions.size() >= limit) {
+                return;
+            }
+            collect(child, suggestions, limit);
+        }
+    }
+
+    /**
+     * Add the phrases of a movie. Must be called while holding the write lock.
+     */
+    private void add(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        List<String> phrases = new ArrayList<>();
+        for (String phrase : new String[]{movie.getTitle(), movie.getDirector()}) {
+            if (phrase != null && !phrase.isBlank()) {
+                phrases.add(phrase.strip());
+                forEachWordSuffix(phrase, suffix -> insert(suffix, phrase.strip()));
+            }
+        }
+        phrasesByMovie.put(movie.getId(), phrases);
+    }
+
+    /**
+     * Remove the phrases of a movie. Must be called while holding the write lock.
+     */
+    private void delete(String movieId) {
+        List<String> phrases = phrasesByMovie.remove(movieId);
+        if (phrases == null) {
+            return;
+        }
+        for (String phrase : phrases) {
+            forEachWordSuffix(phrase, suffix -> erase(suffix, phrase));
+        }
+    }
+
+    /**
+     * Call the action with the normalized phrase starting at each of its words.
+     */
+    private static void forEachWordSuffix(String phrase, Consumer<String> action) {
+        String key = normalize(phrase);
+        for (int i = 0; i < key.length(); i++) {
+            if (i == 0 || key.charAt(i - 1) == ' ') {
+                action.accept(key.substring(i));
+            }
+        }
+    }
+
+    private void insert(String key, String phrase) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        node.phrases.merge(phrase, 1, Integer::sum);
+    }
+
+    private void erase(String key, String phrase) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            path.push(node);
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return;
+        }
+        node.phrases.computeIfPresent(phrase, (p, count) -> count > 1 ? count - 1 : null);
+        // Prune the nodes that no longer lead to any phrase
+        for (int i = key.length() - 1; i >= 0 && node.isEmpty(); i--) {
+            Node parent = path.pop();
+            parent.children.remove(key.charAt(i));
+            node = parent;
+        }
+    }
+
+    /**
+     * A trie node. Children are kept sorted so completions come out in alphabetical order, and the
+     * phrases ending at a node are counted so a phrase shared by several movies survives until the last one is removed.
+     */
+    private static final class Node {
+        private final NavigableMap<Character, Node> children = new TreeMap<>();
+        private final NavigableMap<String, Integer> phrases = new TreeMap<>();
+
+        private boolean isEmpty() {
+            return children.isEmpty() && phrases.isEmpty();
+        }
+    }
+}
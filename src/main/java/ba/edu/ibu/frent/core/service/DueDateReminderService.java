@@ -0,0 +1,316 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.model.ReminderCheckpoint;
+import ba.edu.ibu.frent.core.model.ReminderMarker;
+import ba.edu.ibu.frent.core.model.User;
+import ba.edu.ibu.frent.core.repository.ReminderCheckpointRepository;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Service that reminds users of rentals that are overdue or due within the next {@value #REMINDER_DAYS} days.
+ * Reminders are normally sent for the rentals whose events expire in the {@link RentalDeadlineScheduler}.
+ * A full run over all due rentals can still be started on demand: it reads the due rentals with one range query,
+ * one chunk of users at a time, so the memory it needs does not grow with the number of active rentals.
+ * The movie titles of a chunk are resolved with a single lookup, and the WebSocket messages and emails are handed
+ * over to the notification workers and the mail queue instead of being sent by the run itself. The progress of a run
+ * is stored after every chunk, so a run that was interrupted resumes with the next user.
+ * <p>
+ * Every reminder is claimed with a marker per rental and day before it is sent, in one unordered bulk insert per
+ * chunk, so a rental is reminded at most once a day, whether by the timing wheel, by a run, or by several nodes.
+ */
+@Service
+public class DueDateReminderService {
+    /**
+     * Number of days before the due date on which users are reminded.
+     */
+    private static final int REMINDER_DAYS = 3;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final MovieCache movieCache;
+    private final ReminderCheckpointRepository checkpointRepository;
+    private final NotificationService notificationService;
+    private final MailSender mailSender;
+    private final TaskExecutor taskScheduler;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Constructs a DueDateReminderService.
+     *
+     * @param mongoTemplate        The MongoTemplate instance.
+     * @param movieCache           The cache the titles of the movies are resolved from.
+     * @param checkpointRepository The repository the progress of the runs is stored in.
+     * @param notificationService  The service for WebSocket messages.
+     * @param mailSender           The service for sending emails.
+     * @param taskScheduler        The executor runs triggered on demand are started on.
+     * @param chunkSize            The number of rentals read per chunk.
+     */
+    public DueDateReminderService(MongoTemplate mongoTemplate, MovieCache movieCache,
+                                  ReminderCheckpointRepository checkpointRepository,
+                                  NotificationService notificationService, MailSender mailSender,
+                                  @Qualifier("taskScheduler") TaskExecutor taskScheduler,
+                                  @Value("${rentals.reminders.chunk-size:500}") int chunkSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.movieCache = movieCache;
+        this.checkpointRepository = checkpointRepository;
+        this.notificationService = notificationService;
+        this.mailSender = mailSender;
+        this.taskScheduler = taskScheduler;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Resume the run of today if the application stopped before it completed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        checkpointRepository.findById(LocalDate.now().toString())
+                .filter(checkpoint -> !checkpoint.isCompleted())
+                .ifPresent(checkpoint -> trigger());
+    }
+
+    /**
+     * Remind the users of the given rentals, skipping the rentals that have been returned or are no longer due
+     * in the meantime.
+     *
+     * @param rentalIds The IDs of the rentals.
+     */
+    public void remindRentals(List<String> rentalIds) {
+        LocalDate today = LocalDate.now();
+        for (int from = 0; from < rentalIds.size(); from += chunkSize) {
+            List<String> ids = rentalIds.subList(from, Math.min(from + chunkSize, rentalIds.size()));
+            List<Rental> rentals = findDueRentals(new Query(dueRentals(today).and("_id").in(ids)));
+            if (!rentals.isEmpty()) {
+                remind(rentals, today);
+            }
+        }
+    }
+
+    /**
+     * Start the reminders of today in the background. Reminders that were already sent today are not sent again.
+     */
+    public void trigger() {
+        try {
+            taskScheduler.execute(() -> run(LocalDate.now()));
+        } catch (TaskRejectedException e) {
+            System.out.println("Due date reminders could not be started with reason ### " + e.getMessage());
+        }
+    }
+
+    /**
+     * Send the reminders of a day, continuing after the last user that was already reminded.
+     * Only one run is active at a time.
+     *
+     * @param today The day to send the reminders of.
+     */
+    void run(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ReminderCheckpoint checkpoint = checkpointRepository.findById(today.toString())
+                    .orElseGet(() -> new ReminderCheckpoint(today.toString()));
+            if (checkpoint.isCompleted()) {
+                return;
+            }
+            List<Rental> chunk = nextChunk(today, checkpoint.getLastUsername());
+            while (!chunk.isEmpty()) {
+                int remindedUsers = remind(chunk, today);
+                checkpoint.advance(chunk.get(chunk.size() - 1).getUsername(), chunk.size(), remindedUsers);
+                checkpointRepository.save(checkpoint);
+                chunk = nextChunk(today, checkpoint.getLastUsername());
+            }
+            checkpoint.setCompleted(true);
+            checkpointRepository.save(checkpoint);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Read the next chunk of due rentals, ordered by username. A chunk always holds all due rentals of its users,
+     * so every user is reminded exactly once: when the chunk is full, the rentals of its last user are left for the
+     * next chunk, unless that user is the only one in it.
+     *
+     * @param today         The day of the run.
+     * @param afterUsername The last user that was already reminded, or null at the start of the run.
+     * @return The rentals of the next users, with only their username, movie and due date loaded.
+     */
+    private List<Rental> nextChunk(LocalDate today, String afterUsername) {
+        Criteria criteria = dueRentals(today);
+        if (afterUsername != null) {
+            criteria = criteria.and("username").gt(afterUsername);
+        }
+        List<Rental> rentals = findDueRentals(new Query(criteria).with(Sort.by(Sort.Direction.ASC, "username")).limit(chunkSize));
+        if (rentals.size() < chunkSize) {
+            return rentals;
+        }
+        String lastUsername = rentals.get(rentals.size() - 1).getUsername();
+        List<Rental> completeUsers = rentals.stream()
+                .filter(rental -> !rental.getUsername().equals(lastUsername))
+                .toList();
+        if (!completeUsers.isEmpty()) {
+            return completeUsers;
+        }
+        return findDueRentals(new Query(dueRentals(today).and("username").is(lastUsername)));
+    }
+
+    /**
+     * Get the criteria of the rentals that are not returned and due within the reminder period or overdue.
+     *
+     * @param today The day of the run.
+     * @return The criteria of the due rentals.
+     */
+    private Criteria dueRentals(LocalDate today) {
+        return Criteria.where("returned").is(false)
+                .and("returnDate").is(null)
+                .and("dueDate").lt(today.plusDays(REMINDER_DAYS + 1));
+    }
+
+    /**
+     * Find rentals, loading only the fields the reminders are built from.
+     *
+     * @param query The query selecting the rentals.
+     * @return The rentals.
+     */
+    private List<Rental> findDueRentals(Query query) {
+        query.fields().include("_id", "username", "movieId", "dueDate");
+        return mongoTemplate.find(query, Rental.class);
+    }
+
+    /**
+     * Remind the users of a chunk: one WebSocket message per rental that is overdue or due in the next days,
+     * and one email to all reminded users of the chunk. Rentals that were already reminded today are skipped.
+     *
+     * @param rentals The rentals of the chunk.
+     * @param today   The day of the run.
+     * @return The number of reminded users.
+     */
+    private int remind(List<Rental> rentals, LocalDate today) {
+        Set<String> movieIds = rentals.stream().map(Rental::getMovieId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<String, String> titles = movieCache.getAll(movieIds).stream()
+                .collect(Collectors.toMap(Movie::getId, Movie::getTitle, (first, second) -> first));
+        List<Rental> warned = new ArrayList<>(rentals.size());
+        List<String> warnings = new ArrayList<>(rentals.size());
+        for (Rental rental : rentals) {
+            String warning = warningMessage(rental, titles.getOrDefault(rental.getMovieId(), "Unknown Title"), today);
+            if (warning != null) {
+                warned.add(rental);
+                warnings.add(warning);
+            }
+        }
+        Set<Integer> claimed = claim(warned, today);
+        Set<String> remindedUsernames = new LinkedHashSet<>();
+        for (int i = 0; i < warned.size(); i++) {
+            if (claimed.contains(i)) {
+                notificationService.sendMessage(warned.get(i).getUsername(), warnings.get(i));
+                remindedUsernames.add(warned.get(i).getUsername());
+            }
+        }
+        if (!remindedUsernames.isEmpty()) {
+            sendReminderEmail(remindedUsernames);
+        }
+        return remindedUsernames.size();
+    }
+
+    /**
+     * Claim the reminders of today for rentals by inserting their markers. Markers that already exist fail with a
+     * duplicate key error and their rentals are left out.
+     *
+     * @param rentals The rentals to remind.
+     * @param today   The day of the reminders.
+     * @return The positions of the rentals whose reminders were claimed.
+     */
+    private Set<Integer> claim(List<Rental> rentals, LocalDate today) {
+        Set<Integer> claimed = new HashSet<>();
+        if (rentals.isEmpty()) {
+            return claimed;
+        }
+        BulkOperations markers = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReminderMarker.class);
+        for (int i = 0; i < rentals.size(); i++) {
+            markers.insert(new ReminderMarker(rentals.get(i).getId(), today.toString()));
+            claimed.add(i);
+        }
+        try {
+            markers.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                claimed.remove(error.getIndex());
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Build the WebSocket warning of a rental.
+     *
+     * @param rental     The rental.
+     * @param movieTitle The title of the rented movie.
+     * @param today      The day of the run.
+     * @return The warning, or null if the rental is due today and needs no warning.
+     */
+    private String warningMessage(Rental rental, String movieTitle, LocalDate today) {
+        String username = rental.getUsername();
+        int daysUntilDue = (int) ChronoUnit.DAYS.between(today, rental.getDueDate());
+        if (daysUntilDue < 0) {
+            return "Hello, " + username + "! Your rental for " + movieTitle + " is overdue. Please return it as soon as possible. Thank you!";
+        }
+        if (daysUntilDue == 0) {
+            return null;
+        }
+        String dayOrDays = (daysUntilDue == 1) ? "day" : "days";
+        return "Hello, " + username + "! Your rental for " + movieTitle + " will expire in " + daysUntilDue + " " + dayOrDays + ". Please return it soon. Thank you!";
+    }
+
+    /**
+     * Queue the reminder email for a chunk of users, resolving their addresses with one projected query.
+     *
+     * @param usernames The usernames of the users to remind.
+     */
+    private void sendReminderEmail(Set<String> usernames) {
+        Query query = new Query(Criteria.where("username").in(usernames));
+        query.fields().include("email");
+        List<String> emails = mongoTemplate.find(query, User.class).stream()
+                .map(User::getEmail)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!emails.isEmpty()) {
+            String message = "Hello! This is a reminder to return your rentals on time. Thank you!";
+            String subject = "Frent Rental Reminder";
+            mailSender.send(emails, message, subject);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package ba.edu.ibu.frent.core.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.impl.lang.Function;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,30 +16,43 @@ import java.util.Map;
 
 /**
  * JwtService provides JSON Web Token (JWT) generation and validation functionality.
+ * The signing key and the parser are built once and shared; both are immutable and safe to use from any thread.
  */
 @Service
 public class JwtService {
-    @Value("${security.jwt.secret}")
-    private String jwtSigningKey;
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
 
     /**
-     * Extracts the username from the JWT token.
+     * Constructs a JwtService for the given secret.
+     *
+     * @param jwtSigningKey The Base64-encoded secret used to sign and verify tokens.
+     */
+    public JwtService(@Value("${security.jwt.secret}") String jwtSigningKey) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSigningKey));
+        this.jwtParser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
+    /**
+     * Verifies the signature and expiration of a JWT token and extracts its principal, parsing the token only once.
      *
      * @param token The JWT token.
-     * @return The username extracted from the token.
+     * @return The verified token with its subject, issuer and expiration.
+     * @throws io.jsonwebtoken.JwtException If the token is malformed, has an invalid signature or has expired.
      */
-    public String extractUserName(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public VerifiedToken verify(String token) {
+        Claims claims = extractAllClaims(token);
+        return new VerifiedToken(claims.getSubject(), claims.getIssuer(), claims.getExpiration());
     }
 
     /**
-     * Retrieves the signing key used for JWT.
+     * Extracts the username from the JWT token.
      *
-     * @return The signing key.
+     * @param token The JWT token.
+     * @return The username extracted from the token.
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSigningKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public String extractUserName(String token) {
+        return verify(token).getSubject();
     }
 
     /**
@@ -70,7 +83,7 @@ public class JwtService {
                 .issuer(userDetails.getAuthorities().toString().toLowerCase().replaceAll("[\\[\\]]", "").trim())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24 * 7))
-                .signWith(getSigningKey()).compact();
+                .signWith(signingKey).compact();
     }
 
     /**
@@ -81,18 +94,8 @@ public class JwtService {
      * @return True if the token is valid, false otherwise.
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String userName = extractUserName(token);
-        return userName.equals(userDetails.getUsername()) && !isTokenExpired(token);
-    }
-
-    /**
-     * Checks if the provided JWT token has expired.
-     *
-     * @param token The JWT token.
-     * @return True if the token has expired, false otherwise.
-     */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        VerifiedToken verifiedToken = verify(token);
+        return verifiedToken.getSubject().equals(userDetails.getUsername()) && !verifiedToken.isExpired();
     }
 
     /**
@@ -101,21 +104,8 @@ public class JwtService {
      * @param token The JWT token.
      * @return The expiration date extracted from the token.
      */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    /**
-     * Extracts a specific claim from the JWT token.
-     *
-     * @param token             The JWT token.
-     * @param claimsResolvers   Function to resolve the desired claim from the token's claims.
-     * @param <T>               Type of the claim.
-     * @return The extracted claim.
-     */
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolvers) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolvers.apply(claims);
+    public Date extractExpiration(String token) {
+        return verify(token).getExpiration();
     }
 
     /**
@@ -125,11 +115,49 @@ public class JwtService {
      * @return All claims extracted from the token.
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
-}
 
+    /**
+     * The principal of a token whose signature and expiration have been verified.
+     */
+    public static final class VerifiedToken {
+        private final String subject;
+        private final String issuer;
+        private final Date expiration;
+
+        /**
+         * Constructs a VerifiedToken.
+         *
+         * @param subject    The username the token was issued to.
+         * @param issuer     The role of the user the token was issued to.
+         * @param expiration The expiration date of the token.
+         */
+        public VerifiedToken(String subject, String issuer, Date expiration) {
+            this.subject = subject;
+            this.issuer = issuer;
+            this.expiration = expiration;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getIssuer() {
+            return issuer;
+        }
+
+        public Date getExpiration() {
+            return expiration;
+        }
+
+        /**
+         * Checks if the token has expired.
+         *
+         * @return True if the expiration date is in the past, false otherwise.
+         */
+        public boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+    }
+}
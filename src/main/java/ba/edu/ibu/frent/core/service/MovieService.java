@@ -1,82 +1,133 @@
 package ba.edu.ibu.frent.core.service;
 
-import ba.edu.ibu.frent.api.impl.mailsender.MailgunSender;
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.exceptions.general.BadRequestException;
 import ba.edu.ibu.frent.core.exceptions.repository.ResourceAlreadyExistsException;
 import ba.edu.ibu.frent.core.exceptions.repository.ResourceNotFoundException;
 import ba.edu.ibu.frent.core.model.Movie;
-import ba.edu.ibu.frent.core.model.User;
 import ba.edu.ibu.frent.core.repository.MovieRepository;
-import ba.edu.ibu.frent.core.repository.UserRepository;
+import ba.edu.ibu.frent.core.search.MovieSearchIndex;
+import ba.edu.ibu.frent.core.search.MovieSuggestionTrie;
+import ba.edu.ibu.frent.rest.dto.MovieCacheStatsDTO;
 import ba.edu.ibu.frent.rest.dto.MovieDTO;
+import ba.edu.ibu.frent.rest.dto.MoviePageDTO;
 import ba.edu.ibu.frent.rest.dto.MovieRequestDTO;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing movie-related operations.
  */
 @Service
 public class MovieService {
+    /**
+     * Newest movies first; ObjectIds grow with insertion time, so this matches the creation order.
+     */
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "_id");
+
+    /**
+     * Number of movies fetched from the database per cursor round-trip while streaming the catalog.
+     */
+    private static final int STREAM_BATCH_SIZE = 200;
+
+    /**
+     * Upper bound for the number of suggestions returned by a single autocomplete request.
+     */
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final MovieRepository movieRepository;
     private final MongoTemplate mongoTemplate;
-    private final UserRepository userRepository;
-    private final NotificationService notificationService;
-    private final MailgunSender mailgunSender;
+    private final WishlistNotificationService wishlistNotificationService;
+    private final MovieSearchIndex movieSearchIndex;
+    private final MovieSuggestionTrie movieSuggestionTrie;
+    private final MovieCache movieCache;
 
     /**
      * Constructor for MovieService.
      *
      * @param movieRepository      The MovieRepository instance.
      * @param mongoTemplate        The MongoTemplate instance.
-     * @param userRepository       The UserRepository instance.
-     * @param notificationService  The NotificationService instance.
-     * @param mailgunSender        The MailgunSender instance.
+     * @param wishlistNotificationService The WishlistNotificationService instance.
+     * @param movieSearchIndex     The MovieSearchIndex instance.
+     * @param movieSuggestionTrie  The MovieSuggestionTrie instance.
+     * @param movieCache           The MovieCache instance.
      */
-    public MovieService(MovieRepository movieRepository, MongoTemplate mongoTemplate, UserRepository userRepository, NotificationService notificationService, MailgunSender mailgunSender) {
+    public MovieService(MovieRepository movieRepository, MongoTemplate mongoTemplate, WishlistNotificationService wishlistNotificationService, MovieSearchIndex movieSearchIndex, MovieSuggestionTrie movieSuggestionTrie, MovieCache movieCache) {
         this.movieRepository = movieRepository;
         this.mongoTemplate = mongoTemplate;
-        this.userRepository = userRepository;
-        this.notificationService = notificationService;
-        this.mailgunSender = mailgunSender;
+        this.wishlistNotificationService = wishlistNotificationService;
+        this.movieSearchIndex = movieSearchIndex;
+        this.movieSuggestionTrie = movieSuggestionTrie;
+        this.movieCache = movieCache;
     }
 
     /**
-     * Get a list of all movies.
+     * Get a page of movies, newest first. Sorting and slicing are done by the database.
      * @param page The page number
      * @param size Number of results returned
-     * @return List of MovieDTO representing all movies.
+     * @return List of MovieDTO representing the requested page of movies.
+     * @throws BadRequestException If the page or size is not a positive number.
      */
     public List<MovieDTO> getMovies(int page, int size) {
-        int offset = (page - 1) * size;
-        List<Movie> movies = movieRepository.findAll();
-
-        // Reverse the order of movies
-        Collections.reverse(movies);
-
-        List<Movie> paginatedMovies = movies.stream().skip(offset).limit(size).toList();
-
-        return paginatedMovies.stream()
+        if (page < 1 || size < 1) {
+            throw new BadRequestException("Page and size must be positive numbers.");
+        }
+        Query query = new Query().with(PageRequest.of(page - 1, size, NEWEST_FIRST));
+        return mongoTemplate.find(query, Movie.class).stream()
                 .map(MovieDTO::new)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Get a movie by its ID.
+     * Get the movies that come after the given cursor, newest first.
+     * Unlike offset pagination, every slice costs the same no matter how deep into the catalog it is.
+     *
+     * @param cursor The ID of the last movie of the previous slice, or null for the first slice.
+     * @param size   Number of results returned
+     * @return MoviePageDTO with the requested movies and the cursor for the next slice.
+     * @throws BadRequestException If the size is not a positive number or the cursor is not a valid ID.
+     */
+    public MoviePageDTO getMoviesAfter(String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Size must be a positive number.");
+        }
+        Query query = new Query().with(NEWEST_FIRST).limit(size);
+        if (cursor != null && !cursor.isBlank()) {
+            if (!ObjectId.isValid(cursor)) {
+                throw new BadRequestException("The cursor is not a valid movie ID.");
+            }
+            query.addCriteria(Criteria.where("_id").lt(new ObjectId(cursor)));
+        }
+        List<Movie> movies = mongoTemplate.find(query, Movie.class);
+        String nextCursor = movies.size() < size ? null : movies.get(movies.size() - 1).getId();
+        return new MoviePageDTO(movies.stream().map(MovieDTO::new).collect(Collectors.toList()), nextCursor);
+    }
+
+    /**
+     * Get a movie by its ID, from the movie cache.
      *
      * @param id The ID of the movie.
      * @return MovieDTO representing the requested movie.
      * @throws ResourceNotFoundException If the movie with the given ID does not exist.
      */
     public MovieDTO getMovieById(String id) {
-        Optional<Movie> movie = movieRepository.findById(id);
+        Optional<Movie> movie = movieCache.get(id);
         if (movie.isEmpty()) {
             throw new ResourceNotFoundException("The movie with the given ID does not exist.");
         }
@@ -91,6 +142,9 @@ public class MovieService {
      */
     public MovieDTO addMovie(MovieRequestDTO payload) {
         Movie movie = movieRepository.save(payload.toEntity());
+        movieCache.invalidate(movie.getId());
+        movieSearchIndex.index(movie);
+        movieSuggestionTrie.index(movie);
         return new MovieDTO(movie);
     }
 
@@ -110,6 +164,9 @@ public class MovieService {
         Movie updatedMovie = payload.toEntity();
         updatedMovie.setId(movie.get().getId());
         updatedMovie = movieRepository.save(updatedMovie);
+        movieCache.invalidate(id);
+        movieSearchIndex.index(updatedMovie);
+        movieSuggestionTrie.index(updatedMovie);
         return new MovieDTO(updatedMovie);
     }
 
@@ -121,6 +178,9 @@ public class MovieService {
     public void deleteMovie(String id) {
         Optional<Movie> movie = movieRepository.findById(id);
         movie.ifPresent(movieRepository::delete);
+        movieCache.invalidate(id);
+        movieSearchIndex.remove(id);
+        movieSuggestionTrie.remove(id);
     }
 
     /**
@@ -130,33 +190,17 @@ public class MovieService {
      * @return MovieDTO representing the updated movie.
      * @throws ResourceNotFoundException       If the movie with the given ID does not exist.
      * @throws ResourceAlreadyExistsException   If the movie is already available.
-     * @throws ResourceNotFoundException       If unable to retrieve the updated movie after setting it as available.
      */
     public MovieDTO setAvailable(String id) {
-        Optional<Movie> movieOptional = movieRepository.findById(id);
-        if (movieOptional.isEmpty()) {
-            throw new ResourceNotFoundException("The movie with the given ID does not exist.");
-        }
-        Movie movie = movieOptional.get();
-        if (movie.isAvailable()) {
+        Movie movie = updateAvailability(id, true);
+        if (movie == null) {
             throw new ResourceAlreadyExistsException("The movie is already available.");
         }
-        updateAvailability(id, true);
-        if (!movie.isAvailable()) {
-            List<User> usersWithMovieInWishlist = userRepository.findByWishlistContaining(id);
-            for (User user : usersWithMovieInWishlist) {
-                String username = user.getUsername();
-                String notificationMessage = movie.getTitle() + " from your wishlist is now available!";
-                notificationService.sendMessage(username, notificationMessage);
-            }
-            List<String> userEmails = userRepository.findEmailsByWishlistContaining(id);
-            String message = movie.getTitle() + " from your wishlist is now available for rental!";
-            String subject = movie.getTitle() + " is now available for rental!";
-            mailgunSender.send(userEmails, message, subject);
-        }
-        return movieRepository.findById(id)
-                .map(MovieDTO::new)
-                .orElseThrow(() -> new ResourceNotFoundException("Unable to retrieve the updated movie."));
+        wishlistNotificationService.notifyWishlistUsers(id,
+                movie.getTitle() + " from your wishlist is now available!",
+                movie.getTitle() + " is now available for rental!",
+                movie.getTitle() + " from your wishlist is now available for rental!");
+        return new MovieDTO(movie);
     }
 
     /**
@@ -166,36 +210,36 @@ public class MovieService {
      * @return MovieDTO representing the updated movie.
      * @throws ResourceNotFoundException       If the movie with the given ID does not exist.
      * @throws ResourceAlreadyExistsException   If the movie is already unavailable.
-     * @throws ResourceNotFoundException       If unable to retrieve the updated movie after setting it as unavailable.
      */
     public MovieDTO setUnavailable(String id) {
-        Optional<Movie> movie = movieRepository.findById(id);
-        if (movie.isEmpty()) {
-            throw new ResourceNotFoundException("The movie with the given ID does not exist.");
-        }
-        if (!movie.get().isAvailable()) {
+        Movie movie = updateAvailability(id, false);
+        if (movie == null) {
             throw new ResourceAlreadyExistsException("The movie is already unavailable.");
         }
-        updateAvailability(id, false);
-        List<String> userEmails = userRepository.findEmailsByWishlistContaining(id);
-        String message = movie.get().getTitle() + " from your wishlist is now unavailable for rental.";
-        String subject = movie.get().getTitle() + " is now unavailable for rental.";
-        mailgunSender.send(userEmails, message, subject);
-        return movieRepository.findById(id)
-                .map(MovieDTO::new)
-                .orElseThrow(() -> new ResourceNotFoundException("Unable to retrieve the updated movie."));
+        wishlistNotificationService.notifyWishlistUsers(id, null,
+                movie.getTitle() + " is now unavailable for rental.",
+                movie.getTitle() + " from your wishlist is now unavailable for rental.");
+        return new MovieDTO(movie);
     }
 
     /**
-     * Update the availability status of a movie.
+     * Change the availability status of a movie with a single find-and-modify that only matches the movie
+     * while it has the opposite status.
      *
      * @param id               The ID of the movie to be updated.
      * @param newAvailability The new availability status (true for available, false for unavailable).
+     * @return The updated movie, or null if the movie already had the new status.
+     * @throws ResourceNotFoundException If the movie with the given ID does not exist.
      */
-    private void updateAvailability(String id, boolean newAvailability) {
-        Query query = new Query(Criteria.where("_id").is(id));
+    private Movie updateAvailability(String id, boolean newAvailability) {
+        Query query = new Query(Criteria.where("_id").is(id).and("available").is(!newAvailability));
         Update update = new Update().set("available", newAvailability);
-        mongoTemplate.updateFirst(query, update, Movie.class);
+        Movie movie = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Movie.class);
+        if (movie == null && !movieRepository.existsById(id)) {
+            throw new ResourceNotFoundException("The movie with the given ID does not exist.");
+        }
+        movieCache.invalidate(id);
+        return movie;
     }
 
     /**
@@ -220,16 +264,11 @@ public class MovieService {
         }
         movie.setRentalPrice(discountedPrice);
         movieRepository.save(movie);
-        List<String> userEmails = userRepository.findEmailsByWishlistContaining(id);
+        movieCache.invalidate(id);
         String message = movie.getTitle() + " is now on sale! Original price: " +
                 originalPrice + ", Discounted price: " + discountedPrice;
         String subject = movie.getTitle() + " from your wishlist is now on sale!";
-        mailgunSender.send(userEmails, message, subject);
-        List<User> usersWithMovieInWishlist = userRepository.findByWishlistContaining(id);
-        for (User user : usersWithMovieInWishlist) {
-            String username = user.getUsername();
-            notificationService.sendMessage(username, message);
-        }
+        wishlistNotificationService.notifyWishlistUsers(id, message, subject, message);
         return new MovieDTO(movie);
     }
 
@@ -261,41 +300,51 @@ public class MovieService {
         Movie movie = movieOptional.get();
         movie.setRentalPrice(oldPrice);
         movieRepository.save(movie);
+        movieCache.invalidate(movieId);
         return new MovieDTO(movie);
     }
 
     /**
-     * Search for movies by title or director that match the given keyword.
+     * Search for movies whose title, director, genre or description contain words starting with the keyword terms.
+     * Matching and ranking are done by the in-memory search index; only the requested page is loaded from the database.
      *
-     * @param keyword The keyword to search for in movie titles or directors.
+     * @param keyword The keyword to search for.
      * @param page The page number
      * @param size Number of results returned
-     * @return List of MovieDTOs representing the matched movies.
+     * @return List of MovieDTOs representing the matched movies, most relevant first.
+     * @throws BadRequestException If the page or size is not a positive number.
      */
     public List<MovieDTO> searchMovies(String keyword, int page, int size) {
-        int offset = (page - 1) * size;
-        List<Movie> movies = movieRepository.findByTitleIgnoreCaseContainingOrDirectorIgnoreCaseContaining(keyword, keyword);
-        List<Movie> paginatedMovies = movies.stream().skip(offset).limit(size).toList();
-        return paginatedMovies.stream()
+        if (page < 1 || size < 1) {
+            throw new BadRequestException("Page and size must be positive numbers.");
+        }
+        List<String> ids = movieSearchIndex.search(keyword, (page - 1) * size, size);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Movie> movies = movieCache.getAll(ids).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        return ids.stream()
+                .map(movies::get)
+                .filter(Objects::nonNull)
                 .map(MovieDTO::new)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Check if a given substring matches the beginning of any word in the text or is contained in the text.
+     * Suggest movie titles and directors that contain a word starting with the given prefix.
+     * Suggestions come from the in-memory trie and never reach the database.
      *
-     * @param substring The substring to match.
-     * @param text      The text to search within.
-     * @return True if the substring matches the beginning of any word in the text or is contained in the text, otherwise false.
+     * @param prefix The text typed so far.
+     * @param limit  The maximum number of suggestions to return.
+     * @return List of suggested titles and directors.
+     * @throws BadRequestException If the limit is not between 1 and the maximum.
      */
-    private boolean matchesSubstringInWord(String substring, String text) {
-        String[] words = text.split("\\s+");
-        for (String word : words) {
-            if (word.startsWith(substring)) {
-                return true;
-            }
+    public List<String> suggest(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_SUGGESTIONS + ".");
         }
-        return text.toLowerCase().contains(substring.toLowerCase());
+        return movieSuggestionTrie.suggest(prefix, limit);
     }
 
     /**
@@ -303,10 +352,31 @@ public class MovieService {
      * @return List of MovieDTO representing all movies.
      */
     public List<MovieDTO> getAllMovies () {
-        List<Movie> movies = movieRepository.findAll();
-        Collections.reverse(movies);
+        List<Movie> movies = mongoTemplate.find(new Query().with(NEWEST_FIRST), Movie.class);
         return movies.stream()
                 .map(MovieDTO::new)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Get the statistics of the movie cache.
+     *
+     * @return MovieCacheStatsDTO with the current size, catalog version and counters of the cache.
+     */
+    public MovieCacheStatsDTO getCacheStats() {
+        return movieCache.getStats();
+    }
+
+    /**
+     * Stream all movies, newest first, to the given consumer.
+     * Movies are read from a database cursor in batches, so only one batch is held in memory at a time.
+     *
+     * @param consumer The consumer that receives every movie in order.
+     */
+    public void streamAllMovies(Consumer<MovieDTO> consumer) {
+        Query query = new Query().with(NEWEST_FIRST).cursorBatchSize(STREAM_BATCH_SIZE);
+        try (Stream<Movie> movies = mongoTemplate.stream(query, Movie.class)) {
+            movies.map(MovieDTO::new).forEach(consumer);
+        }
+    }
 }
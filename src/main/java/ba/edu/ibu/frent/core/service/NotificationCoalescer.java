@@ -0,0 +1,209 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service that merges the movie notifications of a user that arrive within a short window into one digest, so a
+ * burst of catalog updates results in one WebSocket message and one email per user instead of one per movie.
+ * <p>
+ * The window of a user starts with their first notification. Within the window only the latest notification of every
+ * movie is kept, so a movie whose price is changed twice is reported once, with the final price. When the window has
+ * passed, the user gets a single WebSocket message, and users whose digests have the same content share one email
+ * request. A window with a single notification is delivered unchanged.
+ */
+@Service
+public class NotificationCoalescer {
+    private final NotificationService notificationService;
+    private final MailSender mailSender;
+    private final long windowMillis;
+    private final int maxEvents;
+    private final ConcurrentMap<String, Digest> digests = new ConcurrentHashMap<>();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+
+    /**
+     * Constructs a NotificationCoalescer.
+     *
+     * @param notificationService The NotificationService for WebSocket messages.
+     * @param mailSender          The MailSender for emails.
+     * @param windowMillis        The time in milliseconds notifications of a user are collected for, or 0 to disable.
+     * @param maxEvents           The maximum number of movies reported in a single digest.
+     */
+    public NotificationCoalescer(NotificationService notificationService, MailSender mailSender,
+                                 @Value("${notifications.coalescing.window-ms:5000}") long windowMillis,
+                                 @Value("${notifications.coalescing.max-events:50}") int maxEvents) {
+        this.notificationService = notificationService;
+        this.mailSender = mailSender;
+        this.windowMillis = windowMillis;
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * Check whether notifications are coalesced at all.
+     *
+     * @return True if the window is positive.
+     */
+    public boolean isEnabled() {
+        return windowMillis > 0;
+    }
+
+    /**
+     * Add a movie notification to the digest of a user, replacing an earlier notification of the same movie.
+     *
+     * @param username     The username of the recipient.
+     * @param email        The email address of the recipient, or null to skip the email.
+     * @param movieId      The ID of the movie the notification is about.
+     * @param notification The WebSocket message, or null to send an email only.
+     * @param emailSubject The subject of the email.
+     * @param emailMessage The content of the email.
+     */
+    public void add(String username, String email, String movieId, String notification,
+                    String emailSubject, String emailMessage) {
+        received.incrementAndGet();
+        Event event = new Event(notification, emailSubject, emailMessage);
+        long deadline = System.currentTimeMillis() + windowMillis;
+        digests.compute(username, (user, digest) -> {
+            Digest current = digest != null ? digest : new Digest(deadline);
+            current.email = email != null ? email : current.email;
+            if (current.events.size() < maxEvents || current.events.containsKey(movieId)) {
+                current.events.put(movieId, event);
+            } else {
+                current.dropped++;
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Deliver the digests whose window has passed.
+     */
+    @Scheduled(fixedDelayString = "${notifications.coalescing.tick-ms:1000}")
+    public void flush() {
+        flush(System.currentTimeMillis());
+    }
+
+    /**
+     * Deliver every pending digest, whether its window has passed or not.
+     */
+    @PreDestroy
+    public void flushAll() {
+        flush(Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the number of notifications received so far.
+     *
+     * @return The number of notifications.
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * Get the number of WebSocket messages sent for the received notifications.
+     *
+     * @return The number of messages.
+     */
+    public long getMessagesSent() {
+        return messagesSent.get();
+    }
+
+    /**
+     * Deliver the digests whose window ends before the given time. Digests with the same email content are
+     * sent with one email request.
+     *
+     * @param now The current time in milliseconds.
+     */
+    private void flush(long now) {
+        Map<Event, List<String>> emails = new HashMap<>();
+        Iterator<Map.Entry<String, Digest>> iterator = digests.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Digest> entry = iterator.next();
+            Digest digest = entry.getValue();
+            if (digest.deadline > now || !digests.remove(entry.getKey(), digest)) {
+                continue;
+            }
+            Event merged = digest.merge();
+            if (merged.notification() != null) {
+                notificationService.sendMessage(entry.getKey(), merged.notification());
+                messagesSent.incrementAndGet();
+            }
+            if (digest.email != null) {
+                emails.computeIfAbsent(new Event(null, merged.emailSubject(), merged.emailMessage()),
+                        key -> new ArrayList<>()).add(digest.email);
+            }
+        }
+        emails.forEach((email, recipients) -> {
+            try {
+                mailSender.send(recipients, email.emailMessage(), email.emailSubject());
+            } catch (RuntimeException e) {
+                System.out.println("Sending digest emails failed with reason ### " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * A notification of a movie, as sent over a WebSocket and by email.
+     */
+    private record Event(String notification, String emailSubject, String emailMessage) {
+    }
+
+    /**
+     * The notifications collected for a user within one window, keyed by movie. Only modified under the lock
+     * of the user's entry in the map of digests.
+     */
+    private static final class Digest {
+        private final long deadline;
+        private final LinkedHashMap<String, Event> events = new LinkedHashMap<>(4);
+        private String email;
+        private int dropped;
+
+        private Digest(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Merge the collected notifications into one.
+         *
+         * @return The single notification if there is only one, otherwise the digest of all of them.
+         */
+        private Event merge() {
+            if (events.size() == 1 && dropped == 0) {
+                return events.values().iterator().next();
+            }
+            int count = events.size() + dropped;
+            StringBuilder notification = new StringBuilder();
+            StringBuilder emailMessage = new StringBuilder();
+            for (Event event : events.values()) {
+                if (event.notification() != null) {
+                    notification.append("\n- ").append(event.notification());
+                }
+                emailMessage.append("\n- ").append(event.emailMessage());
+            }
+            if (dropped > 0) {
+                if (!notification.isEmpty()) {
+                    notification.append("\n- and ").append(dropped).append(" more");
+                }
+                emailMessage.append("\n- and ").append(dropped).append(" more");
+            }
+            return new Event(
+                    notification.isEmpty() ? null : "There are " + count + " updates to movies in your wishlist:" + notification,
+                    count + " updates to movies in your wishlist",
+                    "There are " + count + " updates to movies in your wishlist:" + emailMessage);
+        }
+    }
+}
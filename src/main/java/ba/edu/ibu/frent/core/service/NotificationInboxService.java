@@ -0,0 +1,209 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.exceptions.general.BadRequestException;
+import ba.edu.ibu.frent.core.model.InboxNotification;
+import ba.edu.ibu.frent.rest.dto.NotificationDTO;
+import ba.edu.ibu.frent.rest.dto.NotificationPageDTO;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Service that keeps the notifications sent to every user in their inbox, so a user who was offline gets them
+ * when they connect again, and clients can read everything that happened from a single place.
+ * Notifications are buffered and written in batches, either once a batch is full or on the next flush.
+ * Every notification starts out undelivered and is only marked as delivered once a node actually sent it to a session
+ * of the user, so a notification that never reached the user is replayed when they connect again. Deliveries are
+ * buffered as well; a delivery reported by another node before the notification was written is retried on the next
+ * flushes.
+ */
+@Service
+public class NotificationInboxService {
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "_id");
+    private static final int DELIVERY_ATTEMPTS = 10;
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final int replayLimit;
+    private final Queue<InboxNotification> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Queue<Delivery> deliveries = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs a NotificationInboxService.
+     *
+     * @param mongoTemplate The MongoTemplate instance.
+     * @param batchSize     The number of buffered notifications that are written together.
+     * @param replayLimit   The maximum number of undelivered notifications replayed when a user connects.
+     */
+    public NotificationInboxService(MongoTemplate mongoTemplate,
+                                    @Value("${notifications.inbox.batch-size:500}") int batchSize,
+                                    @Value("${notifications.inbox.replay-limit:100}") int replayLimit) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.replayLimit = replayLimit;
+    }
+
+    /**
+     * Put an undelivered notification into the inbox of a user.
+     *
+     * @param username The username of the recipient.
+     * @param message  The message.
+     * @return The ID of the notification, to report its delivery with.
+     */
+    public String record(String username, String message) {
+        InboxNotification notification = new InboxNotification(username, message, false);
+        notification.setId(new ObjectId().toHexString());
+        pending.add(notification);
+        if (pendingCount.incrementAndGet() >= batchSize) {
+            flush();
+        }
+        return notification.getId();
+    }
+
+    /**
+     * Report that a notification was sent to a session of its recipient. It is marked as delivered on the next flush.
+     *
+     * @param notificationId The ID of the notification, or null if it is not kept in an inbox.
+     */
+    public void recordDelivered(String notificationId) {
+        if (notificationId != null) {
+            deliveries.add(new Delivery(notificationId, 1));
+        }
+    }
+
+    /**
+     * Write the buffered notifications, in batches of the configured size, and then mark the reported deliveries.
+     */
+    @Scheduled(fixedDelayString = "${notifications.inbox.flush-ms:500}")
+    @PreDestroy
+    public void flush() {
+        List<InboxNotification> batch = new ArrayList<>(batchSize);
+        InboxNotification notification;
+        while ((notification = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(notification);
+            if (batch.size() == batchSize) {
+                mongoTemplate.insertAll(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insertAll(batch);
+        }
+        flushDeliveries();
+    }
+
+    /**
+     * Mark the reported deliveries with a single update. The deliveries of notifications that are not written yet,
+     * because the node that recorded them did not flush, are kept for the next flushes.
+     */
+    private void flushDeliveries() {
+        List<Delivery> batch = new ArrayList<>();
+        Delivery delivery;
+        while ((delivery = deliveries.poll()) != null) {
+            batch.add(delivery);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<String> ids = batch.stream().map(Delivery::notificationId).toList();
+        UpdateResult result = mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids)),
+                new Update().set("delivered", true), InboxNotification.class);
+        if (result.getMatchedCount() == ids.size()) {
+            return;
+        }
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("_id");
+        Set<String> written = mongoTemplate.find(query, InboxNotification.class).stream()
+                .map(InboxNotification::getId)
+                .collect(Collectors.toSet());
+        for (Delivery missing : batch) {
+            if (!written.contains(missing.notificationId()) && missing.attempts() < DELIVERY_ATTEMPTS) {
+                deliveries.add(new Delivery(missing.notificationId(), missing.attempts() + 1));
+            }
+        }
+    }
+
+    /**
+     * Get the undelivered notifications of a user, oldest first. They stay undelivered until
+     * {@link #markDelivered(List)} is called for them.
+     *
+     * @param username The username of the user.
+     * @return The undelivered notifications, at most the configured replay limit.
+     */
+    public List<NotificationDTO> findUndelivered(String username) {
+        flush();
+        Query query = new Query(Criteria.where("username").is(username).and("delivered").is(false))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(replayLimit);
+        query.fields().include("message", "createdAt");
+        return mongoTemplate.find(query, InboxNotification.class).stream()
+                .map(NotificationDTO::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Mark notifications that were replayed to a session of their recipient as delivered.
+     *
+     * @param notificationIds The IDs of the notifications.
+     */
+    public void markDelivered(List<String> notificationIds) {
+        if (!notificationIds.isEmpty()) {
+            mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(notificationIds)),
+                    new Update().set("delivered", true), InboxNotification.class);
+        }
+    }
+
+    /**
+     * Get the notifications of a user that come after the given cursor, newest first.
+     *
+     * @param username The username of the user.
+     * @param cursor   The ID of the last notification of the previous slice, or null for the first slice.
+     * @param size     The maximum number of notifications in the slice.
+     * @return NotificationPageDTO with the notifications and the cursor for the next slice.
+     * @throws BadRequestException If the size is not positive or the cursor is not a valid notification ID.
+     */
+    public NotificationPageDTO getInbox(String username, String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Size must be a positive number.");
+        }
+        Query query = new Query(Criteria.where("username").is(username)).with(NEWEST_FIRST).limit(size);
+        if (cursor != null && !cursor.isBlank()) {
+            if (!ObjectId.isValid(cursor)) {
+                throw new BadRequestException("The cursor is not a valid notification ID.");
+            }
+            query.addCriteria(Criteria.where("_id").lt(new ObjectId(cursor)));
+        }
+        query.fields().include("message", "createdAt");
+        List<InboxNotification> notifications = mongoTemplate.find(query, InboxNotification.class);
+        String nextCursor = notifications.size() < size ? null : notifications.get(notifications.size() - 1).getId();
+        return new NotificationPageDTO(notifications.stream().map(NotificationDTO::new).collect(Collectors.toList()),
+                nextCursor);
+    }
+
+    /**
+     * A delivery reported for a notification, with the number of flushes that tried to mark it.
+     *
+     * @param notificationId The ID of the notification.
+     * @param attempts       The number of the flush that marks it next.
+     */
+    private record Delivery(String notificationId, int attempts) {
+    }
+}
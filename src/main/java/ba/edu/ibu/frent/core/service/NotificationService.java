@@ -1,44 +1,162 @@
 package ba.edu.ibu.frent.core.service;
 
+import ba.edu.ibu.frent.core.api.notifications.NotificationRelay;
+import ba.edu.ibu.frent.core.api.notifications.RemoteNotificationEvent;
+import ba.edu.ibu.frent.rest.dto.NotificationStatsDTO;
 import ba.edu.ibu.frent.rest.websockets.MainSocketHandler;
+import ba.edu.ibu.frent.rest.websockets.WebSocketDeliveryMetrics;
+import ba.edu.ibu.frent.rest.websockets.WebSocketSessionRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 
-import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for handling notifications and sending messages through WebSocket.
+ * Messages are delivered on the notification executor, so callers never wait for a client: a broadcast only
+ * enqueues one delivery per open session and returns. Deliveries that do not fit into the executor queue are
+ * dropped and counted.
+ * <p>
+ * Sessions may be spread over several nodes: every message is delivered to the sessions of this node and handed to
+ * the {@link NotificationRelay}, which forwards it to the other nodes the recipients are connected to.
  */
 @Service
 public class NotificationService {
     private final MainSocketHandler mainSocketHandler;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final WebSocketDeliveryMetrics deliveryMetrics;
+    private final ThreadPoolTaskExecutor notificationExecutor;
+    private final NotificationRelay notificationRelay;
+    private final NotificationInboxService notificationInboxService;
 
     /**
-     * Constructs a NotificationService with the provided MainSocketHandler.
+     * Constructs a NotificationService.
      *
-     * @param mainSocketHandler The MainSocketHandler for handling WebSocket connections.
+     * @param mainSocketHandler        The MainSocketHandler for handling WebSocket connections.
+     * @param sessionRegistry          The registry of open sessions per user.
+     * @param deliveryMetrics          The counters of outbound message outcomes.
+     * @param notificationExecutor     The executor notifications are delivered on.
+     * @param notificationRelay        The relay that forwards notifications to the other nodes.
+     * @param notificationInboxService The inbox every message sent to a user is kept in.
      */
-    public NotificationService(MainSocketHandler mainSocketHandler) {
+    public NotificationService(MainSocketHandler mainSocketHandler, WebSocketSessionRegistry sessionRegistry,
+                               WebSocketDeliveryMetrics deliveryMetrics,
+                               @Qualifier("notificationExecutor") ThreadPoolTaskExecutor notificationExecutor,
+                               NotificationRelay notificationRelay, NotificationInboxService notificationInboxService) {
         this.mainSocketHandler = mainSocketHandler;
+        this.sessionRegistry = sessionRegistry;
+        this.deliveryMetrics = deliveryMetrics;
+        this.notificationExecutor = notificationExecutor;
+        this.notificationRelay = notificationRelay;
+        this.notificationInboxService = notificationInboxService;
     }
 
     /**
-     * Broadcasts a message to all connected WebSocket sessions.
+     * Broadcasts a message to all connected WebSocket sessions without waiting for the delivery.
+     * Every session gets its own delivery, so a slow client only delays itself.
      *
      * @param message The message to broadcast.
-     * @throws IOException If an I/O error occurs while broadcasting the message.
      */
-    public void broadcastMessage(String message) throws IOException {
-        mainSocketHandler.broadcastMessage(message);
+    public void broadcastMessage(String message) {
+        broadcastLocally(message);
+        notificationRelay.broadcast(message);
     }
 
     /**
-     * Sends a message to a specific user through WebSocket.
+     * Sends a message to a specific user through WebSocket without waiting for the delivery.
+     * Nothing is enqueued for users that are not connected to this node. The message is also put into the inbox of
+     * the user, where it stays undelivered until this node or the node the relay forwards it to has sent it to a
+     * session of the user, so it is replayed when they connect again otherwise.
      *
      * @param userName The username of the recipient.
      * @param message  The message to send.
      */
     public void sendMessage(String userName, String message) {
-        mainSocketHandler.sendMessage(userName, message);
+        String notificationId = notificationInboxService.record(userName, message);
+        sendLocally(userName, message, notificationId);
+        notificationRelay.sendToUser(userName, message, notificationId);
+    }
+
+    /**
+     * Deliver a notification sent from another node to the sessions of this node.
+     *
+     * @param event The notification received by the relay.
+     */
+    @EventListener
+    public void onRemoteNotification(RemoteNotificationEvent event) {
+        if (event.isBroadcast()) {
+            broadcastLocally(event.getMessage());
+        } else {
+            sendLocally(event.getUsername(), event.getMessage(), event.getNotificationId());
+        }
+    }
+
+    /**
+     * Get the current state of notification delivery.
+     *
+     * @return NotificationStatsDTO with the delivery counters and the current backlog.
+     */
+    public NotificationStatsDTO getStats() {
+        AtomicLong bufferedBytes = new AtomicLong();
+        sessionRegistry.forEachSession(session -> {
+            if (session instanceof ConcurrentWebSocketSessionDecorator decorator) {
+                bufferedBytes.addAndGet(decorator.getBufferSize());
+            }
+        });
+        return new NotificationStatsDTO(
+                sessionRegistry.getSessionCount(),
+                bufferedBytes.get(),
+                notificationExecutor.getQueueSize(),
+                deliveryMetrics.getDelivered(),
+                deliveryMetrics.getFailed(),
+                deliveryMetrics.getDisconnected(),
+                deliveryMetrics.getRejected()
+        );
     }
-}
 
+    /**
+     * Enqueue one delivery per session of this node.
+     *
+     * @param message The message to broadcast.
+     */
+    private void broadcastLocally(String message) {
+        TextMessage textMessage = new TextMessage(message);
+        sessionRegistry.forEachSession(session -> dispatch(() -> mainSocketHandler.send(session, textMessage)));
+    }
+
+    /**
+     * Enqueue a delivery to the sessions of a user on this node, if there are any, and report it to the inbox
+     * once a session received the message.
+     *
+     * @param userName       The username of the recipient.
+     * @param message        The message to send.
+     * @param notificationId The ID of the notification in the inbox of the user.
+     */
+    private void sendLocally(String userName, String message, String notificationId) {
+        if (sessionRegistry.isConnected(userName)) {
+            dispatch(() -> {
+                if (mainSocketHandler.sendMessage(userName, message)) {
+                    notificationInboxService.recordDelivered(notificationId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Hand a delivery over to the notification executor.
+     *
+     * @param delivery The delivery to run.
+     */
+    private void dispatch(Runnable delivery) {
+        try {
+            notificationExecutor.execute(delivery);
+        } catch (TaskRejectedException e) {
+            deliveryMetrics.recordRejected();
+        }
+    }
+}
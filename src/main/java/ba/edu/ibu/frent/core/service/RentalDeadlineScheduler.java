@@ -0,0 +1,226 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.cache.CacheInvalidationBus;
+import ba.edu.ibu.frent.core.cache.CacheInvalidationEvent;
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.scheduling.TimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Service that keeps the upcoming due date events of the active rentals in a timing wheel: a reminder
+ * {@value #FIRST_REMINDER_DAYS} days, 2 days and 1 day before the due date at the configured time of day, and an
+ * overdue warning at the start of the day after the due date. Expired events are handed over to the
+ * {@link DueDateReminderService} in one batch per tick.
+ * <p>
+ * The wheel only lives on the node that holds the {@value #LEASE} lease, so every event fires on one node only,
+ * and it only holds the events within the configured horizon, so its size does not grow with the number of active
+ * rentals. The owner fills the wheel when it takes the lease and again on every resync, which also picks up the
+ * rentals created on other nodes. Events of rentals written on the owner itself are registered and cancelled right
+ * away, and so are those of rentals written elsewhere if the cache invalidation bus is enabled. Other nodes keep
+ * no events at all.
+ */
+@Service
+public class RentalDeadlineScheduler {
+    private static final String LEASE = "rental-deadlines";
+    private static final int FIRST_REMINDER_DAYS = 3;
+    private static final int OVERDUE = -1;
+
+    private final MongoTemplate mongoTemplate;
+    private final DueDateReminderService dueDateReminderService;
+    private final SchedulerLeaseService leaseService;
+    private final LocalTime reminderTime;
+    private final long tickMillis;
+    private final long horizonMillis;
+    private volatile TimingWheel<Deadline> wheel;
+
+    /**
+     * Constructs a RentalDeadlineScheduler.
+     *
+     * @param mongoTemplate          The MongoTemplate instance.
+     * @param dueDateReminderService The service that sends the reminders.
+     * @param leaseService           The service that elects the node the wheel lives on.
+     * @param reminderTime           The time of day reminders are sent at.
+     * @param tickMillis             The resolution of the timing wheel in milliseconds.
+     * @param horizonHours           How many hours ahead events are kept in the wheel.
+     */
+    public RentalDeadlineScheduler(MongoTemplate mongoTemplate, DueDateReminderService dueDateReminderService,
+                                   SchedulerLeaseService leaseService,
+                                   @Value("${rentals.reminders.time:09:00}") LocalTime reminderTime,
+                                   @Value("${rentals.deadlines.tick-ms:1000}") long tickMillis,
+                                   @Value("${rentals.deadlines.horizon-hours:24}") long horizonHours) {
+        this.mongoTemplate = mongoTemplate;
+        this.dueDateReminderService = dueDateReminderService;
+        this.leaseService = leaseService;
+        this.reminderTime = reminderTime;
+        this.tickMillis = tickMillis;
+        this.horizonMillis = horizonHours * 3_600_000;
+    }
+
+    /**
+     * Take the lease at startup if it is free, and fill the wheel if it was taken.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        isOwner();
+    }
+
+    /**
+     * Register the events within the horizon of all active rentals, if this node owns the wheel. The rentals are
+     * streamed over the partial index on active rentals by due date, with only the fields the events are computed
+     * from loaded. Registering an event again replaces it, so the resync never duplicates events.
+     */
+    @Scheduled(fixedDelayString = "${rentals.deadlines.resync-ms:900000}", initialDelayString = "${rentals.deadlines.resync-ms:900000}")
+    public void rebuild() {
+        if (wheel == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        long horizonDays = Math.floorDiv(horizonMillis, 86_400_000L) + 1;
+        Query query = new Query(Criteria.where("returned").is(false)
+                .and("dueDate").gte(today.minusDays(1)).lte(today.plusDays(FIRST_REMINDER_DAYS + horizonDays)))
+                .cursorBatchSize(1000);
+        query.fields().include("dueDate", "returned");
+        try (Stream<Rental> rentals = mongoTemplate.stream(query, Rental.class)) {
+            rentals.forEach(this::register);
+        }
+    }
+
+    /**
+     * Register the events of a rental that are still ahead and within the horizon, if this node owns the wheel.
+     * Returned rentals have no events.
+     *
+     * @param rental The rental.
+     */
+    public void register(Rental rental) {
+        TimingWheel<Deadline> current = wheel;
+        if (current == null || rental.getId() == null || rental.getDueDate() == null || rental.isReturned()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        LocalDate dueDate = rental.getDueDate();
+        for (int days = FIRST_REMINDER_DAYS; days > 0; days--) {
+            scheduleIfAhead(current, new Deadline(rental.getId(), days), dueDate.minusDays(days).atTime(reminderTime), now);
+        }
+        scheduleIfAhead(current, new Deadline(rental.getId(), OVERDUE), dueDate.plusDays(1).atStartOfDay(), now);
+    }
+
+    /**
+     * Cancel all events of a rental.
+     *
+     * @param rentalId The ID of the rental.
+     */
+    public void cancel(String rentalId) {
+        TimingWheel<Deadline> current = wheel;
+        if (current == null) {
+            return;
+        }
+        for (int days = FIRST_REMINDER_DAYS; days > 0; days--) {
+            current.cancel(new Deadline(rentalId, days));
+        }
+        current.cancel(new Deadline(rentalId, OVERDUE));
+    }
+
+    /**
+     * Keep the events of the owner in sync with the rentals written on other nodes, when the
+     * {@link CacheInvalidationBus} is enabled. Events of a rental are replaced by the ones of its current version,
+     * and refilled from the database if changes to the rentals may have been missed. Nodes that do not own the wheel
+     * ignore the changes, so rental events are never registered on more than one node.
+     *
+     * @param event The invalidation event published by the {@link CacheInvalidationBus}.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (wheel == null || !event.concerns(Rental.class)) {
+            return;
+        }
+        if (event.isAll()) {
+            rebuild();
+            return;
+        }
+        cancel(event.getDocumentId());
+        if (!event.isDeleted() && event.getFullDocument() != null) {
+            register(mongoTemplate.getConverter().read(Rental.class, event.getFullDocument()));
+        }
+    }
+
+    /**
+     * Advance the timing wheel and send the reminders of the expired events, if this node owns the wheel.
+     */
+    @Scheduled(fixedRateString = "${rentals.deadlines.tick-ms:1000}")
+    public void tick() {
+        TimingWheel<Deadline> current = isOwner() ? wheel : null;
+        if (current == null) {
+            return;
+        }
+        List<String> rentalIds = current.advance(System.currentTimeMillis()).stream()
+                .map(Deadline::rentalId)
+                .distinct()
+                .toList();
+        if (!rentalIds.isEmpty()) {
+            dueDateReminderService.remindRentals(rentalIds);
+        }
+    }
+
+    /**
+     * Get the number of registered events.
+     *
+     * @return The number of events, or 0 if this node does not own the wheel.
+     */
+    public int getScheduledCount() {
+        TimingWheel<Deadline> current = wheel;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * Check whether this node owns the wheel. A node that takes the lease creates and fills the wheel, and a node
+     * that lost it drops its wheel, since the new owner fires the events.
+     *
+     * @return True if this node holds the lease.
+     */
+    private synchronized boolean isOwner() {
+        boolean owner = leaseService.holds(LEASE);
+        if (owner && wheel == null) {
+            wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+            rebuild();
+        } else if (!owner && wheel != null) {
+            wheel = null;
+        }
+        return owner;
+    }
+
+    /**
+     * Schedule an event unless its time has already passed or lies beyond the horizon.
+     *
+     * @param wheel    The wheel to schedule the event in.
+     * @param deadline The event.
+     * @param time     The local time the event is due at.
+     * @param now      The current time in milliseconds.
+     */
+    private void scheduleIfAhead(TimingWheel<Deadline> wheel, Deadline deadline, LocalDateTime time, long now) {
+        long deadlineMillis = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (deadlineMillis > now && deadlineMillis <= now + horizonMillis) {
+            wheel.schedule(deadline, deadlineMillis);
+        }
+    }
+
+    /**
+     * A due date event of a rental, identified by the rental and the number of days until the due date,
+     * which is negative for the overdue warning.
+     */
+    private record Deadline(String rentalId, int daysUntilDue) {
+    }
+}
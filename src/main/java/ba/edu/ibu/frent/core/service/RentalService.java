@@ -1,26 +1,37 @@
 package ba.edu.ibu.frent.core.service;
 
-import ba.edu.ibu.frent.api.impl.mailsender.MailgunSender;
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.exceptions.general.BadRequestException;
 import ba.edu.ibu.frent.core.exceptions.repository.ResourceNotFoundException;
+import ba.edu.ibu.frent.core.index.IndexManager;
 import ba.edu.ibu.frent.core.model.Movie;
 import ba.edu.ibu.frent.core.model.Rental;
 import ba.edu.ibu.frent.core.model.User;
-import ba.edu.ibu.frent.core.repository.MovieRepository;
 import ba.edu.ibu.frent.core.repository.RentalRepository;
 import ba.edu.ibu.frent.core.repository.UserRepository;
 import ba.edu.ibu.frent.rest.dto.RentalDTO;
 import ba.edu.ibu.frent.rest.dto.RentalRequestDTO;
+import ba.edu.ibu.frent.rest.dto.RentalSummaryDTO;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.util.stream.Collectors.toList;
 
@@ -30,29 +41,32 @@ import static java.util.stream.Collectors.toList;
 @Service
 public class RentalService {
     private final RentalRepository rentalRepository;
-    private final MovieRepository movieRepository;
+    private final MovieCache movieCache;
     private final MongoTemplate mongoTemplate;
-    private final NotificationService notificationService;
     private final UserRepository userRepository;
-    private final MailgunSender mailgunSender;
+    private final RentalDeadlineScheduler rentalDeadlineScheduler;
+    private final RentalSummaryService rentalSummaryService;
+    private final IndexManager indexManager;
 
     /**
      * Constructor for RentalService.
      *
      * @param rentalRepository     The repository for managing rentals.
-     * @param movieRepository      The repository for managing movies.
+     * @param movieCache           The cache the movies of new rentals are resolved from.
      * @param mongoTemplate        The MongoDB template for advanced queries.
-     * @param notificationService  The service for handling notifications.
      * @param userRepository       The repository for managing users.
-     * @param mailgunSender        The service for sending emails.
+     * @param rentalDeadlineScheduler The scheduler of the due date events of active rentals.
+     * @param rentalSummaryService The service maintaining the rental totals of users.
+     * @param indexManager         The manager telling whether the unique index on active rentals exists.
      */
-    public RentalService(RentalRepository rentalRepository, MovieRepository movieRepository, MongoTemplate mongoTemplate, NotificationService notificationService, UserRepository userRepository, MailgunSender mailgunSender) {
+    public RentalService(RentalRepository rentalRepository, MovieCache movieCache, MongoTemplate mongoTemplate, UserRepository userRepository, RentalDeadlineScheduler rentalDeadlineScheduler, RentalSummaryService rentalSummaryService, IndexManager indexManager) {
         this.rentalRepository = rentalRepository;
-        this.movieRepository = movieRepository;
+        this.movieCache = movieCache;
         this.mongoTemplate = mongoTemplate;
-        this.notificationService = notificationService;
         this.userRepository = userRepository;
-        this.mailgunSender = mailgunSender;
+        this.rentalDeadlineScheduler = rentalDeadlineScheduler;
+        this.rentalSummaryService = rentalSummaryService;
+        this.indexManager = indexManager;
     }
 
     /**
@@ -89,9 +103,12 @@ public class RentalService {
      *
      * @param payload RentalRequestDTO containing information for the new rental.
      * @return RentalDTO representing the newly created rental.
+     * @throws IllegalStateException If the user already has an active rental for the movie.
      */
     public RentalDTO addRental(RentalRequestDTO payload) {
-        Rental rental = rentalRepository.save(payload.toEntity());
+        Rental rental = saveRental(payload.toEntity());
+        rentalDeadlineScheduler.register(rental);
+        rentalSummaryService.recordRentalCreated(rental);
         return new RentalDTO(rental);
     }
 
@@ -102,6 +119,7 @@ public class RentalService {
      * @param payload RentalRequestDTO containing updated information for the rental.
      * @return RentalDTO representing the updated rental.
      * @throws ResourceNotFoundException If the rental with the given ID does not exist.
+     * @throws IllegalStateException     If the user already has another active rental for the movie.
      */
     public RentalDTO updateRental(String id, RentalRequestDTO payload) {
         Optional<Rental> rental = rentalRepository.findById(id);
@@ -110,7 +128,10 @@ public class RentalService {
         }
         Rental updatedRental = payload.toEntity();
         updatedRental.setId(rental.get().getId());
-        updatedRental = rentalRepository.save(updatedRental);
+        updatedRental = saveRental(updatedRental);
+        rentalDeadlineScheduler.cancel(id);
+        rentalDeadlineScheduler.register(updatedRental);
+        rentalSummaryService.recordRentalUpdated(rental.get(), updatedRental);
         return new RentalDTO(updatedRental);
     }
 
@@ -122,56 +143,100 @@ public class RentalService {
     public void deleteRental(String id) {
         Optional<Rental> rental = rentalRepository.findById(id);
         rental.ifPresent(rentalRepository::delete);
+        rentalDeadlineScheduler.cancel(id);
+        rental.ifPresent(rentalSummaryService::recordRentalDeleted);
     }
 
     /**
-     * Return a rental by marking it as returned with the current date.
+     * Return a rental by marking it as returned with the current date. The rental is updated and read back in a single
+     * find-and-modify; a rental that was already returned keeps its original return date.
      *
      * @param id The ID of the rental to be returned.
      * @return RentalDTO representing the updated rental.
      * @throws ResourceNotFoundException If the rental with the given ID does not exist.
      */
     public RentalDTO returnRental(String id) {
-        Optional<Rental> rental = rentalRepository.findById(id);
-        if (rental.isEmpty()) {
-            throw new ResourceNotFoundException("The rental with the given ID does not exist.");
-        }
-        Query query = new Query(Criteria.where("_id").is(id));
+        Query query = new Query(Criteria.where("_id").is(id).and("returned").is(false));
         Update update = new Update()
                 .set("returnDate", LocalDate.now())
                 .set("returned", true);
-        mongoTemplate.updateFirst(query, update, Rental.class);
-        Optional<Rental> updatedRental = rentalRepository.findById(id);
-        return updatedRental.map(RentalDTO::new).orElseThrow(() ->
-                new ResourceNotFoundException("Unable to retrieve the updated rental.")
-        );
+        Rental rental = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Rental.class);
+        if (rental == null) {
+            return rentalRepository.findById(id).map(RentalDTO::new).orElseThrow(() ->
+                    new ResourceNotFoundException("The rental with the given ID does not exist."));
+        }
+        rentalDeadlineScheduler.cancel(id);
+        rentalSummaryService.recordRentalsReturned(rental.getUsername(), 1);
+        return new RentalDTO(rental);
     }
 
     /**
-     * Get all rentals for a specific user and return overdue rentals.
+     * Get all rentals for a specific user. Reading the rentals never changes them; overdue rentals are returned
+     * by {@link #returnAllOverdueRentals()}, and until then they are reported as overdue.
      *
      * @param username The username of the user.
      * @return List of RentalDTOs representing all rentals for the user.
      */
     public List<RentalDTO> getRentalsForUser(String username) {
         Query query = new Query(Criteria.where("username").is(username));
-        List<Rental> rentals = mongoTemplate.find(query, Rental.class);
+        return mongoTemplate.find(query, Rental.class).stream()
+                .map(RentalDTO::new)
+                .collect(toList());
+    }
 
+    /**
+     * Return every overdue rental in the background. This is the only place overdue rentals are returned,
+     * so reading the rentals of a user stays free of writes. It runs a few minutes past the hour, after the overdue
+     * warnings that are sent at midnight.
+     * <p>
+     * One aggregation groups the overdue rentals by user, one update returns all of them, and one bulk write adjusts
+     * the summaries of their users. If a rental was returned by hand in between, it was already taken off the summary
+     * of its user, so the summaries of the affected users are rebuilt instead.
+     */
+    @Scheduled(cron = "${rentals.auto-return.cron:0 5 * * * *}")
+    public void returnAllOverdueRentals() {
         LocalDate today = LocalDate.now();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(overdueCriteria(today)),
+                Aggregation.group("username").push("_id").as("ids").count().as("count"));
+        List<Object> ids = new ArrayList<>();
+        Map<String, Long> overdueByUser = new HashMap<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, Rental.class, Document.class)) {
+            ids.addAll(group.getList("ids", Object.class));
+            overdueByUser.put(group.getString("_id"), group.get("count", Number.class).longValue());
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        Query query = new Query(Criteria.where("_id").in(ids).andOperator(overdueCriteria(today)));
+        Update update = new Update()
+                .set("returnDate", today)
+                .set("returned", true);
+        UpdateResult result = mongoTemplate.updateMulti(query, update, Rental.class);
+        if (result.getModifiedCount() == ids.size()) {
+            rentalSummaryService.recordRentalsReturned(overdueByUser);
+        } else {
+            overdueByUser.keySet().forEach(rentalSummaryService::rebuild);
+        }
+        System.out.println("Automatically returned " + result.getModifiedCount() + " overdue rentals");
+    }
 
-        rentals.forEach(rental -> {
-            if (rental.getDueDate().isBefore(today) && rental.getReturnDate() == null && !rental.isReturned()) {
-                returnRental(rental.getId());
-            }
-        });
-
-        return rentals.stream()
-                .map(RentalDTO::new)
-                .collect(toList());
+    /**
+     * Build the criteria selecting the active rentals that are past their due date.
+     *
+     * @param today The current date.
+     * @return The criteria.
+     */
+    private Criteria overdueCriteria(LocalDate today) {
+        return Criteria.where("returned").is(false)
+                .and("returnDate").is(null)
+                .and("dueDate").lt(today);
     }
 
     /**
-     * Add a new rental for a specific user.
+     * Add a new rental for a specific user. The movie is resolved from the cache, and the rental is created with
+     * a single insert that the unique index on the active rentals of a user rejects if the movie is already rented,
+     * so concurrent requests cannot create two active rentals of the same movie.
      *
      * @param username The username of the user.
      * @param movieId  The ID of the movie to be rented.
@@ -181,11 +246,7 @@ public class RentalService {
      * @throws ResourceNotFoundException     If the movie with the given ID is not found.
      */
     public RentalDTO addRentalForUser(String username, String movieId, RentalRequestDTO payload) {
-        boolean alreadyRented = rentalRepository.existsByMovieIdAndUsernameAndReturnDateIsNull(movieId, username);
-        if (alreadyRented) {
-            throw new IllegalStateException("You already have an active rental for this movie.");
-        }
-        Movie movie = movieRepository.findById(movieId)
+        Movie movie = movieCache.get(movieId)
                 .orElseThrow(() -> new ResourceNotFoundException("Movie with ID " + movieId + " not found."));
         if (!movie.isAvailable()) {
             throw new IllegalStateException("The movie is not available for rental.");
@@ -196,10 +257,108 @@ public class RentalService {
         payload.setVideo(video);
         payload.setUsername(username);
         payload.setMovieId(movie.getId());
-        Rental rental = rentalRepository.save(payload.toEntity());
+        Rental rental = saveRental(payload.toEntity());
+        rentalDeadlineScheduler.register(rental);
+        rentalSummaryService.recordRentalCreated(rental);
         return new RentalDTO(rental);
     }
 
+    /**
+     * Save a rental, translating a violation of the unique index on active rentals into the already rented error.
+     * Until the unique index is confirmed to exist, an active rental of the movie is looked up before a new rental
+     * is saved, as it was before the index became unique.
+     *
+     * @param rental The rental to save.
+     * @return The saved rental.
+     * @throws IllegalStateException If the user already has an active rental for the movie.
+     */
+    private Rental saveRental(Rental rental) {
+        if (rental.getId() == null && !rental.isReturned() && !hasUniqueActiveRentalIndex()
+                && rentalRepository.existsByUsernameAndMovieIdAndReturnedFalse(rental.getUsername(), rental.getMovieId())) {
+            throw new IllegalStateException("You already have an active rental for this movie.");
+        }
+        try {
+            return rentalRepository.save(rental);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("You already have an active rental for this movie.");
+        }
+    }
+
+    /**
+     * Check whether the unique (username, movieId) index on active rentals was confirmed to exist.
+     *
+     * @return True if the database rejects a second active rental of a movie by itself.
+     */
+    private boolean hasUniqueActiveRentalIndex() {
+        return indexManager.hasIndex(mongoTemplate.getCollectionName(Rental.class), "username_1_movieId_1");
+    }
+
+    /**
+     * Rent every movie in the cart of a user at once. The cart is read, all its movies are validated with one query
+     * and all rentals are inserted with one bulk write, after which the rented movies are pulled from the cart,
+     * so the number of database calls does not grow with the size of the cart. If the user already has an active
+     * rental of one of the movies, none of the rentals are kept.
+     *
+     * @param username The username of the user.
+     * @return List of RentalDTOs representing the newly created rentals.
+     * @throws ResourceNotFoundException If the user or one of the movies in the cart does not exist.
+     * @throws BadRequestException       If the cart is empty.
+     * @throws IllegalStateException     If one of the movies is not available or is already rented by the user.
+     */
+    public List<RentalDTO> checkout(String username) {
+        Query userQuery = new Query(Criteria.where("username").is(username));
+        userQuery.fields().include("cart");
+        User user = mongoTemplate.findOne(userQuery, User.class);
+        if (user == null) {
+            throw new ResourceNotFoundException("The user with the given username does not exist.");
+        }
+        Set<String> cart = user.getCart();
+        if (cart == null || cart.isEmpty()) {
+            throw new BadRequestException("The cart is empty.");
+        }
+
+        Query movieQuery = new Query(Criteria.where("_id").in(cart));
+        movieQuery.fields().include("title", "available", "rentalPrice", "video");
+        List<Movie> movies = mongoTemplate.find(movieQuery, Movie.class);
+        if (movies.size() < cart.size()) {
+            throw new ResourceNotFoundException("A movie in the cart does not exist anymore.");
+        }
+        List<Rental> rentals = new ArrayList<>();
+        for (Movie movie : movies) {
+            if (!movie.isAvailable()) {
+                throw new IllegalStateException(movie.getTitle() + " is not available for rental.");
+            }
+            RentalRequestDTO payload = new RentalRequestDTO();
+            payload.setUsername(username);
+            payload.setMovieId(movie.getId());
+            payload.setRentalPrice(movie.getRentalPrice());
+            payload.setVideo(movie.getVideo());
+            Rental rental = payload.toEntity();
+            rental.setId(new ObjectId().toHexString());
+            rentals.add(rental);
+        }
+
+        if (!hasUniqueActiveRentalIndex() && mongoTemplate.exists(new Query(Criteria.where("username").is(username)
+                .and("movieId").in(cart)
+                .and("returned").is(false)), Rental.class)) {
+            throw new IllegalStateException("You already have an active rental for this movie.");
+        }
+        try {
+            mongoTemplate.insertAll(rentals);
+        } catch (DuplicateKeyException e) {
+            List<String> ids = rentals.stream().map(Rental::getId).toList();
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), Rental.class);
+            throw new IllegalStateException("You already have an active rental for this movie.");
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("username").is(username)),
+                new Update().pullAll("cart", cart.toArray()), User.class);
+        rentals.forEach(rentalDeadlineScheduler::register);
+        rentalSummaryService.recordRentalsCreated(rentals);
+        return rentals.stream()
+                .map(RentalDTO::new)
+                .collect(toList());
+    }
+
     /**
      * Get a rental by its ID for a specific user.
      *
@@ -235,123 +394,35 @@ public class RentalService {
         }
 
         rentalRepository.delete(rental);
+        rentalDeadlineScheduler.cancel(id);
+        rentalSummaryService.recordRentalDeleted(rental);
     }
 
     /**
-     * Check due dates for rentals and send overdue and upcoming due warnings to users.
-     * Overdue warnings are sent for rentals that are past their due date.
-     * Upcoming due warnings are sent for rentals that will expire in the specified days.
-     */
-    public void checkDueDatesAndSendWarnings() {
-        LocalDate today = LocalDate.now();
-        LocalDate upcomingDueDate = today.plusDays(1);
-        List<String> emails = userRepository.findEmailsByOverdueOrUpcomingDueRentals(today, upcomingDueDate);
-        List<Rental> overdueRentals = getOverdueRentals(today);
-        for (Rental rental : overdueRentals) {
-            sendOverdueWarning(rental);
-        }
-        List<Rental> upcomingDueRentals = getUpcomingDueRentals(today, 3, 2, 1);
-        for (Rental rental : upcomingDueRentals) {
-            sendUpcomingDueWarning(rental);
-        }
-        if (!emails.isEmpty()) {
-            String message = "Hello! This is a reminder to return your rentals on time. Thank you!";
-            String subject = "Frent Rental Reminder";
-            mailgunSender.send(emails, subject, message);
-        }
-    }
-
-    /**
-     * Send an overdue warning to the user for a specific rental.
-     *
-     * @param rental The overdue rental.
-     */
-    private void sendOverdueWarning(Rental rental) {
-        String username = rental.getUsername();
-        String movieTitle = getMovieTitle(rental.getMovieId());
-        String warningMessage = "Hello, " + username + "! Your rental for " + movieTitle + " is overdue. Please return it as soon as possible. Thank you!";
-        notificationService.sendMessage(username, warningMessage);
-    }
-
-    /**
-     * Send an upcoming due warning to the user for a specific rental.
-     *
-     * @param rental The upcoming due rental.
-     */
-    private void sendUpcomingDueWarning(Rental rental) {
-        String username = rental.getUsername();
-        String movieTitle = getMovieTitle(rental.getMovieId());
-        int daysUntilDue = calculateDaysUntilDue(rental.getDueDate());
-        String dayOrDays = (daysUntilDue == 1) ? "day" : "days";
-        String warningMessage = "Hello, " + username + "! Your rental for " + movieTitle + " will expire in " + daysUntilDue + " " + dayOrDays + ". Please return it soon. Thank you!";
-        notificationService.sendMessage(username, warningMessage);
-    }
-
-    /**
-     * Get overdue rentals based on the current date.
-     *
-     * @param today The current date.
-     * @return List of overdue rentals.
-     */
-    private List<Rental> getOverdueRentals(LocalDate today) {
-        Query query = new Query(Criteria.where("returnDate").is(null).and("dueDate").lt(today));
-        return mongoTemplate.find(query, Rental.class);
-    }
-
-    /**
-     * Get upcoming due rentals within specified days based on the current date.
-     *
-     * @param today The current date.
-     * @param days  The number of days for upcoming due rentals.
-     * @return List of upcoming due rentals.
-     */
-    private List<Rental> getUpcomingDueRentals(LocalDate today, int... days) {
-        List<Rental> upcomingDueRentals = new ArrayList<>();
-        for (int day : days) {
-            LocalDate dueDateThreshold = today.plusDays(day);
-            Query query = new Query(Criteria.where("returnDate").is(null).and("dueDate").is(dueDateThreshold));
-            upcomingDueRentals.addAll(mongoTemplate.find(query, Rental.class));
-        }
-        return upcomingDueRentals;
-    }
-
-    /**
-     * Get the title of a movie by its ID.
+     * Get the total amount spent on rentals by a specific user.
      *
-     * @param movieId The ID of the movie.
-     * @return The title of the movie or "Unknown Title" if not found.
+     * @param username The username of the user.
+     * @return The total amount spent on rentals.
      */
-    private String getMovieTitle(String movieId) {
-        Query query = new Query(Criteria.where("_id").is(movieId));
-        Movie movie = mongoTemplate.findOne(query, Movie.class);
-        return (movie != null) ? movie.getTitle() : "Unknown Title";
+    public double getTotalSpentOnRentals(String username) {
+        return rentalSummaryService.getSummary(username).getTotalSpent();
     }
 
     /**
-     * Calculate the number of days until the specified due date.
+     * Get the rental totals of a specific user.
      *
-     * @param dueDate The due date of the rental.
-     * @return The number of days until the due date.
+     * @param username The username of the user.
+     * @return RentalSummaryDTO representing the totals of the user.
      */
-    private int calculateDaysUntilDue(LocalDate dueDate) {
-        LocalDate today = LocalDate.now();
-        return (int) ChronoUnit.DAYS.between(today, dueDate);
+    public RentalSummaryDTO getRentalSummary(String username) {
+        return new RentalSummaryDTO(rentalSummaryService.getSummary(username));
     }
 
     /**
-     * Get the total amount spent on rentals by a specific user.
-     *
-     * @param username The username of the user.
-     * @return The total amount spent on rentals.
+     * Recompute the rental totals of all users from their rentals.
      */
-    public double getTotalSpentOnRentals(String username) {
-        List<RentalDTO> rentals = getRentalsForUser(username);
-        double totalSpent = 0;
-        for (RentalDTO rental : rentals) {
-            totalSpent += rental.getRentalPrice();
-        }
-
-        return totalSpent;
+    public void rebuildRentalSummaries() {
+        rentalSummaryService.rebuildAll();
     }
 
     /**
@@ -365,13 +436,7 @@ public class RentalService {
         if (userOptional.isEmpty()) {
             throw new ResourceNotFoundException("User with ID " + id + " not found.");
         }
-        List<RentalDTO> rentals = getRentalsForUser(userOptional.get().getUsername());
-        double totalSpent = 0;
-        for (RentalDTO rental : rentals) {
-            totalSpent += rental.getRentalPrice();
-        }
-
-        return totalSpent;
+        return getTotalSpentOnRentals(userOptional.get().getUsername());
     }
 
     /**
@@ -386,9 +451,6 @@ public class RentalService {
         if (userOptional.isEmpty()) {
             throw new ResourceNotFoundException("User with ID " + userId + " not found.");
         }
-        List<Rental> rentals = rentalRepository.findAllByUsername(userOptional.get().getUsername());
-        return rentals.stream()
-                .map(RentalDTO::new)
-                .collect(toList());
+        return getRentalsForUser(userOptional.get().getUsername());
     }
 }
@@ -0,0 +1,243 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.model.RentalSummary;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for maintaining the materialized rental totals of users.
+ * Every change to a rental is applied to the summary of its user with a single atomic upsert, so reading the totals
+ * of a user is a single-document lookup. An aggregation pipeline that recomputes the summaries from the rentals
+ * is used to build them the first time and to repair them whenever an increment cannot express the change.
+ */
+@Service
+public class RentalSummaryService {
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructor for RentalSummaryService.
+     *
+     * @param mongoTemplate The MongoDB template for advanced queries.
+     */
+    public RentalSummaryService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Build the summaries from the rentals if they have never been built, for example right after upgrading.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildMissingSummaries() {
+        if (!mongoTemplate.exists(new Query(), RentalSummary.class) && mongoTemplate.exists(new Query(), Rental.class)) {
+            rebuildAll();
+            System.out.println("Built the rental summaries from the existing rentals");
+        }
+    }
+
+    /**
+     * Get the rental totals of a user.
+     *
+     * @param username The username of the user.
+     * @return The summary of the user, with all totals set to zero if the user has no rentals.
+     */
+    public RentalSummary getSummary(String username) {
+        RentalSummary summary = mongoTemplate.findById(username, RentalSummary.class);
+        return summary != null ? summary : new RentalSummary(username);
+    }
+
+    /**
+     * Add a newly created rental to the summary of its user.
+     *
+     * @param rental The created rental.
+     */
+    public void recordRentalCreated(Rental rental) {
+        if (rental.getUsername() == null) {
+            return;
+        }
+        Update update = new Update()
+                .inc("totalSpent", rental.getRentalPrice())
+                .inc("rentalCount", 1)
+                .inc("activeRentals", rental.isReturned() ? 0 : 1);
+        if (rental.getRentalDate() != null) {
+            update.max("lastRentalDate", rental.getRentalDate());
+        }
+        mongoTemplate.upsert(byUsername(rental.getUsername()), update, RentalSummary.class);
+    }
+
+    /**
+     * Add rentals created together to the summaries of their users, with one upsert per user.
+     *
+     * @param rentals The created rentals.
+     */
+    public void recordRentalsCreated(List<Rental> rentals) {
+        Map<String, List<Rental>> rentalsByUser = rentals.stream()
+                .filter(rental -> rental.getUsername() != null)
+                .collect(Collectors.groupingBy(Rental::getUsername));
+        rentalsByUser.forEach((username, userRentals) -> {
+            Update update = new Update()
+                    .inc("totalSpent", userRentals.stream().mapToDouble(Rental::getRentalPrice).sum())
+                    .inc("rentalCount", userRentals.size())
+                    .inc("activeRentals", userRentals.stream().filter(rental -> !rental.isReturned()).count());
+            userRentals.stream()
+                    .map(Rental::getRentalDate)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.naturalOrder())
+                    .ifPresent(lastRentalDate -> update.max("lastRentalDate", lastRentalDate));
+            mongoTemplate.upsert(byUsername(username), update, RentalSummary.class);
+        });
+    }
+
+    /**
+     * Remove a deleted rental from the summary of its user. If the rental may have been the latest one of the user,
+     * the summary is rebuilt, since the previous rental date cannot be derived from the summary alone.
+     *
+     * @param rental The deleted rental.
+     */
+    public void recordRentalDeleted(Rental rental) {
+        if (rental.getUsername() == null) {
+            return;
+        }
+        Update update = new Update()
+                .inc("totalSpent", -rental.getRentalPrice())
+                .inc("rentalCount", -1)
+                .inc("activeRentals", rental.isReturned() ? 0 : -1);
+        RentalSummary summary = mongoTemplate.findAndModify(byUsername(rental.getUsername()), update,
+                FindAndModifyOptions.options().returnNew(true), RentalSummary.class);
+        if (summary == null || summary.getRentalCount() <= 0
+                || Objects.equals(summary.getLastRentalDate(), rental.getRentalDate())) {
+            rebuild(rental.getUsername());
+        }
+    }
+
+    /**
+     * Apply an update of a rental to the summaries. A change of the price, the return status or a later rental date
+     * is applied as an increment, anything else rebuilds the summaries of the affected users.
+     *
+     * @param previous The rental before the update.
+     * @param updated  The rental after the update.
+     */
+    public void recordRentalUpdated(Rental previous, Rental updated) {
+        boolean sameUser = Objects.equals(previous.getUsername(), updated.getUsername());
+        boolean sameOrLaterDate = previous.getRentalDate() == null || (updated.getRentalDate() != null
+                && !updated.getRentalDate().isBefore(previous.getRentalDate()));
+        if (sameUser && sameOrLaterDate) {
+            if (updated.getUsername() == null) {
+                return;
+            }
+            Update update = new Update()
+                    .inc("totalSpent", updated.getRentalPrice() - previous.getRentalPrice())
+                    .inc("activeRentals", (updated.isReturned() ? 0 : 1) - (previous.isReturned() ? 0 : 1));
+            if (updated.getRentalDate() != null) {
+                update.max("lastRentalDate", updated.getRentalDate());
+            }
+            mongoTemplate.upsert(byUsername(updated.getUsername()), update, RentalSummary.class);
+            return;
+        }
+        rebuild(previous.getUsername());
+        if (!sameUser) {
+            rebuild(updated.getUsername());
+        }
+    }
+
+    /**
+     * Record that active rentals of a user were returned.
+     *
+     * @param username The username of the user.
+     * @param count    The number of returned rentals.
+     */
+    public void recordRentalsReturned(String username, long count) {
+        if (username == null || count <= 0) {
+            return;
+        }
+        mongoTemplate.updateFirst(byUsername(username), new Update().inc("activeRentals", -count), RentalSummary.class);
+    }
+
+    /**
+     * Record that active rentals of several users were returned, with one bulk write.
+     *
+     * @param returnedByUser The number of returned rentals by username.
+     */
+    public void recordRentalsReturned(Map<String, Long> returnedByUser) {
+        BulkOperations summaries = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RentalSummary.class);
+        int updates = 0;
+        for (Map.Entry<String, Long> returned : returnedByUser.entrySet()) {
+            if (returned.getKey() != null && returned.getValue() > 0) {
+                summaries.updateOne(byUsername(returned.getKey()), new Update().inc("activeRentals", -returned.getValue()));
+                updates++;
+            }
+        }
+        if (updates > 0) {
+            summaries.execute();
+        }
+    }
+
+    /**
+     * Recompute the summary of a single user from their rentals, merging the result into the summaries.
+     *
+     * @param username The username of the user.
+     */
+    public void rebuild(String username) {
+        if (username == null) {
+            return;
+        }
+        MergeOperation merge = Aggregation.merge()
+                .intoCollection(mongoTemplate.getCollectionName(RentalSummary.class))
+                .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+                .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+        mongoTemplate.aggregate(summaryPipeline(Criteria.where("username").is(username), merge), Rental.class, Document.class);
+        if (!mongoTemplate.exists(new Query(Criteria.where("username").is(username)), Rental.class)) {
+            mongoTemplate.remove(byUsername(username), RentalSummary.class);
+        }
+    }
+
+    /**
+     * Recompute the summaries of all users from the rentals, replacing the summaries collection as a whole.
+     * Increments applied while the rebuild runs are lost, so it is meant for repairs and the initial build only.
+     */
+    public void rebuildAll() {
+        AggregationOperation out = Aggregation.out(mongoTemplate.getCollectionName(RentalSummary.class));
+        mongoTemplate.aggregate(summaryPipeline(Criteria.where("username").ne(null), out), Rental.class, Document.class);
+    }
+
+    /**
+     * Build the aggregation that groups the matching rentals by user into summaries.
+     *
+     * @param criteria The criteria selecting the rentals.
+     * @param output   The stage that writes the summaries.
+     * @return The aggregation.
+     */
+    private Aggregation summaryPipeline(Criteria criteria, AggregationOperation output) {
+        return Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group("username")
+                        .sum("rentalPrice").as("totalSpent")
+                        .count().as("rentalCount")
+                        .sum(ConditionalOperators.when(Criteria.where("returned").is(true)).then(0).otherwise(1)).as("activeRentals")
+                        .max("rentalDate").as("lastRentalDate"),
+                output);
+    }
+
+    private Query byUsername(String username) {
+        return new Query(Criteria.where("_id").is(username));
+    }
+}
@@ -0,0 +1,99 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.model.SchedulerLease;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service that elects a single node to run a scheduled task, with a lease stored in the database.
+ * A node takes the lease when it is free or expired and keeps it by renewing it well before it expires, so a node that
+ * stops is replaced after one lease duration at the latest. The outcome is cached between renewals, which makes
+ * checking the lease on every run of a frequent task cheap. Locally, a lease counts as held for only half of its
+ * duration after the last renewal, leaving a margin for clock differences between the nodes.
+ */
+@Service
+public class SchedulerLeaseService {
+    private final MongoTemplate mongoTemplate;
+    private final String owner;
+    private final long durationMillis;
+    private final Map<String, Long> heldUntil = new ConcurrentHashMap<>();
+    private final Map<String, Long> checkedAt = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a SchedulerLeaseService.
+     *
+     * @param mongoTemplate  The MongoTemplate instance.
+     * @param nodeId         The identifier of this node, made unique per process.
+     * @param durationMillis The time in milliseconds a lease lasts without being renewed.
+     */
+    public SchedulerLeaseService(MongoTemplate mongoTemplate,
+                                 @Value("${scheduling.node-id:${HOSTNAME:local}}") String nodeId,
+                                 @Value("${scheduling.lease.duration-ms:30000}") long durationMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.owner = nodeId + ":" + UUID.randomUUID();
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Check whether this node holds a lease, taking or renewing it if a third of its duration has passed since the
+     * last check.
+     *
+     * @param name The name of the lease.
+     * @return True if this node holds the lease.
+     */
+    public boolean holds(String name) {
+        long now = System.currentTimeMillis();
+        Long lastCheck = checkedAt.get(name);
+        if (lastCheck == null || now - lastCheck >= durationMillis / 3) {
+            checkedAt.put(name, now);
+            if (acquire(name, now)) {
+                heldUntil.put(name, now + durationMillis / 2);
+            } else {
+                heldUntil.remove(name);
+            }
+        }
+        Long until = heldUntil.get(name);
+        return until != null && until > now;
+    }
+
+    /**
+     * Give up the leases of this node, so other nodes take them over right away.
+     */
+    @PreDestroy
+    public void release() {
+        mongoTemplate.remove(new Query(Criteria.where("owner").is(owner)), SchedulerLease.class);
+        heldUntil.clear();
+    }
+
+    /**
+     * Take or renew a lease. The upsert only matches a lease that is held by this node or expired, so for a lease
+     * held by another node it tries to insert a second one with the same name and fails.
+     *
+     * @param name The name of the lease.
+     * @param now  The current time in milliseconds.
+     * @return True if this node holds the lease now.
+     */
+    private boolean acquire(String name, long now) {
+        Query query = new Query(Criteria.where("_id").is(name).orOperator(
+                Criteria.where("owner").is(owner),
+                Criteria.where("expiresAt").lt(new Date(now))));
+        Update update = new Update().set("owner", owner).set("expiresAt", new Date(now + durationMillis));
+        try {
+            mongoTemplate.upsert(query, update, SchedulerLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package ba.edu.ibu.frent.core.service;
 
 import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import ba.edu.ibu.frent.core.cache.JwtPrincipalCache;
+import ba.edu.ibu.frent.core.cache.MovieCache;
 import ba.edu.ibu.frent.core.exceptions.auth.UserAlreadyExistsException;
 import ba.edu.ibu.frent.core.exceptions.repository.ResourceNotFoundException;
 import ba.edu.ibu.frent.core.model.Movie;
 import ba.edu.ibu.frent.core.model.User;
-import ba.edu.ibu.frent.core.repository.MovieRepository;
 import ba.edu.ibu.frent.core.repository.UserRepository;
+import ba.edu.ibu.frent.rest.dto.MovieCollectionDTO;
+import ba.edu.ibu.frent.rest.dto.MovieDTO;
 import ba.edu.ibu.frent.rest.dto.UserDTO;
 import ba.edu.ibu.frent.rest.dto.UserRequestDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -24,8 +32,13 @@ import static java.util.stream.Collectors.toList;
  */
 @Service
 public class UserService {
+    private static final String CART = "cart";
+    private static final String WISHLIST = "wishlist";
+
     private final UserRepository userRepository;
-    private final MovieRepository movieRepository;
+    private final JwtPrincipalCache jwtPrincipalCache;
+    private final MongoTemplate mongoTemplate;
+    private final MovieCache movieCache;
 
     @Autowired
     private MailSender mailgunSender;
@@ -34,11 +47,15 @@ public class UserService {
      * Constructs a UserService with the provided repositories.
      *
      * @param userRepository  The repository for user entities.
-     * @param movieRepository The repository for movie entities.
+     * @param jwtPrincipalCache The cache of validated JWT principals, invalidated when a user changes.
+     * @param mongoTemplate   The MongoDB template for atomic updates.
+     * @param movieCache      The cache the movies of carts and wishlists are resolved from.
      */
-    public UserService(UserRepository userRepository, MovieRepository movieRepository) {
+    public UserService(UserRepository userRepository, JwtPrincipalCache jwtPrincipalCache, MongoTemplate mongoTemplate, MovieCache movieCache) {
         this.userRepository = userRepository;
-        this.movieRepository = movieRepository;
+        this.jwtPrincipalCache = jwtPrincipalCache;
+        this.mongoTemplate = mongoTemplate;
+        this.movieCache = movieCache;
     }
 
     /**
@@ -105,6 +122,8 @@ public class UserService {
         User updatedUser = payload.toEntity();
         updatedUser.setId(user.get().getId());
         updatedUser = userRepository.save(updatedUser);
+        jwtPrincipalCache.invalidateUser(user.get().getUsername());
+        jwtPrincipalCache.invalidateUser(updatedUser.getUsername());
         return new UserDTO(updatedUser);
     }
 
@@ -115,7 +134,10 @@ public class UserService {
      */
     public void deleteUser(String id) {
         Optional<User> user = userRepository.findById(id);
-        user.ifPresent(userRepository::delete);
+        user.ifPresent(existingUser -> {
+            userRepository.delete(existingUser);
+            jwtPrincipalCache.invalidateUser(existingUser.getUsername());
+        });
     }
 
     /**
@@ -154,24 +176,8 @@ public class UserService {
      * @throws IllegalStateException     If the movie is not available.
      */
     public UserDTO addToCart(String movieId, String username) {
-        Optional<User> userOptional = userRepository.findByUsernameOrEmail(username);
-        if (userOptional.isEmpty()) {
-            throw new ResourceNotFoundException("The user with the given username does not exist.");
-        }
-        Optional<Movie> movieOptional = movieRepository.findById(movieId);
-        if (movieOptional.isEmpty()) {
-            throw new ResourceNotFoundException("The movie with the given ID does not exist.");
-        }
-        Movie movie = movieOptional.get();
-        if (!movie.isAvailable()) {
-            throw new IllegalStateException("The movie is not available.");
-        }
-        User user = userOptional.get();
-        Set<String> cart = user.getCart();
-        cart.add(movieId);
-        user.setCart(cart);
-        User updatedUser = userRepository.save(user);
-        return new UserDTO(updatedUser);
+        requireAvailableMovies(List.of(movieId));
+        return new UserDTO(applyUserUpdate(username, new Update().addToSet(CART, movieId)));
     }
 
     /**
@@ -183,16 +189,7 @@ public class UserService {
      * @throws ResourceNotFoundException If the user with the given username does not exist.
      */
     public UserDTO addToWishlist(String movieId, String username) {
-        Optional<User> userOptional = userRepository.findByUsernameOrEmail(username);
-        if (userOptional.isEmpty()) {
-            throw new ResourceNotFoundException("The user with the given username does not exist.");
-        }
-        User user = userOptional.get();
-        Set<String> wishlist = user.getWishlist();
-        wishlist.add(movieId);
-        user.setWishlist(wishlist);
-        User updatedUser = userRepository.save(user);
-        return new UserDTO(updatedUser);
+        return new UserDTO(applyUserUpdate(username, new Update().addToSet(WISHLIST, movieId)));
     }
 
     /**
@@ -204,16 +201,7 @@ public class UserService {
      * @throws ResourceNotFoundException If the user with the given username does not exist.
      */
     public UserDTO removeFromCart(String movieId, String username) {
-        Optional<User> userOptional = userRepository.findByUsernameOrEmail(username);
-        if (userOptional.isEmpty()) {
-            throw new ResourceNotFoundException("The user with the given username does not exist.");
-        }
-        User user = userOptional.get();
-        Set<String> cart = user.getCart();
-        cart.remove(movieId);
-        user.setCart(cart);
-        User updatedUser = userRepository.save(user);
-        return new UserDTO(updatedUser);
+        return new UserDTO(applyUserUpdate(username, new Update().pull(CART, movieId)));
     }
 
     /**
@@ -225,16 +213,57 @@ public class UserService {
      * @throws ResourceNotFoundException If the user with the given username does not exist.
      */
     public UserDTO removeFromWishlist(String movieId, String username) {
-        Optional<User> userOptional = userRepository.findByUsernameOrEmail(username);
-        if (userOptional.isEmpty()) {
-            throw new ResourceNotFoundException("The user with the given username does not exist.");
-        }
-        User user = userOptional.get();
-        Set<String> wishlist = user.getWishlist();
-        wishlist.remove(movieId);
-        user.setWishlist(wishlist);
-        User updatedUser = userRepository.save(user);
-        return new UserDTO(updatedUser);
+        return new UserDTO(applyUserUpdate(username, new Update().pull(WISHLIST, movieId)));
+    }
+
+    /**
+     * Add several movies to the user's cart at once.
+     *
+     * @param movieIds The IDs of the movies to be added to the cart.
+     * @param username The username of the user.
+     * @return A set of movie IDs representing the movies in the user's cart after the update.
+     * @throws ResourceNotFoundException If the user or one of the movies does not exist.
+     * @throws IllegalStateException     If one of the movies is not available.
+     */
+    public Set<String> addAllToCart(List<String> movieIds, String username) {
+        requireAvailableMovies(movieIds);
+        return applyUserUpdate(username, new Update().addToSet(CART).each(movieIds.toArray()), CART).getCart();
+    }
+
+    /**
+     * Remove several movies from the user's cart at once.
+     *
+     * @param movieIds The IDs of the movies to be removed from the cart.
+     * @param username The username of the user.
+     * @return A set of movie IDs representing the movies in the user's cart after the update.
+     * @throws ResourceNotFoundException If the user with the given username does not exist.
+     */
+    public Set<String> removeAllFromCart(List<String> movieIds, String username) {
+        return applyUserUpdate(username, new Update().pullAll(CART, movieIds.toArray()), CART).getCart();
+    }
+
+    /**
+     * Add several movies to the user's wishlist at once.
+     *
+     * @param movieIds The IDs of the movies to be added to the wishlist.
+     * @param username The username of the user.
+     * @return A set of movie IDs representing the movies in the user's wishlist after the update.
+     * @throws ResourceNotFoundException If the user with the given username does not exist.
+     */
+    public Set<String> addAllToWishlist(List<String> movieIds, String username) {
+        return applyUserUpdate(username, new Update().addToSet(WISHLIST).each(movieIds.toArray()), WISHLIST).getWishlist();
+    }
+
+    /**
+     * Remove several movies from the user's wishlist at once.
+     *
+     * @param movieIds The IDs of the movies to be removed from the wishlist.
+     * @param username The username of the user.
+     * @return A set of movie IDs representing the movies in the user's wishlist after the update.
+     * @throws ResourceNotFoundException If the user with the given username does not exist.
+     */
+    public Set<String> removeAllFromWishlist(List<String> movieIds, String username) {
+        return applyUserUpdate(username, new Update().pullAll(WISHLIST, movieIds.toArray()), WISHLIST).getWishlist();
     }
 
     /**
@@ -245,12 +274,8 @@ public class UserService {
      * @throws ResourceNotFoundException If the user with the given username does not exist.
      */
     public Set<String> getCart(String username) {
-        Optional<User> userOptional = userRepository.findByUsernameOrEmail(username);
-        if (userOptional.isEmpty()) {
-            throw new ResourceNotFoundException("The user with the given username does not exist.");
-        }
-        User user = userOptional.get();
-        return user.getCart() != null ? new HashSet<>(user.getCart()) : new HashSet<>();
+        Set<String> cart = findUser(username, CART).getCart();
+        return cart != null ? new HashSet<>(cart) : new HashSet<>();
     }
 
     /**
@@ -261,12 +286,79 @@ public class UserService {
      * @throws ResourceNotFoundException If the user with the given username does not exist.
      */
     public Set<String> getWishlist(String username) {
-        Optional<User> userOptional = userRepository.findByUsernameOrEmail(username);
-        if (userOptional.isEmpty()) {
+        Set<String> wishlist = findUser(username, WISHLIST).getWishlist();
+        return wishlist != null ? new HashSet<>(wishlist) : new HashSet<>();
+    }
+
+    /**
+     * Apply an update to a user with a single find-and-modify that returns the updated user.
+     *
+     * @param username The username or email of the user.
+     * @param update   The update to apply.
+     * @param fields   The fields of the user to return, or none to return every field except the password.
+     * @return The updated user, with only the requested fields loaded.
+     * @throws ResourceNotFoundException If the user with the given username does not exist.
+     */
+    private User applyUserUpdate(String username, Update update, String... fields) {
+        User user = mongoTemplate.findAndModify(userQuery(username, fields), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (user == null) {
+            throw new ResourceNotFoundException("The user with the given username does not exist.");
+        }
+        return user;
+    }
+
+    /**
+     * Find a user, loading only the given fields.
+     *
+     * @param username The username or email of the user.
+     * @param fields   The fields of the user to load.
+     * @return The user, with only the requested fields loaded.
+     * @throws ResourceNotFoundException If the user with the given username does not exist.
+     */
+    private User findUser(String username, String... fields) {
+        User user = mongoTemplate.findOne(userQuery(username, fields), User.class);
+        if (user == null) {
             throw new ResourceNotFoundException("The user with the given username does not exist.");
         }
-        User user = userOptional.get();
-        return user.getWishlist() != null ? new HashSet<>(user.getWishlist()) : new HashSet<>();
+        return user;
+    }
+
+    /**
+     * Build the query of a user by username or email, with the given fields or every field except the password.
+     *
+     * @param username The username or email of the user.
+     * @param fields   The fields of the user to load.
+     * @return The query.
+     */
+    private Query userQuery(String username, String... fields) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("email").is(username),
+                Criteria.where("username").is(username)));
+        if (fields.length > 0) {
+            query.fields().include(fields);
+        } else {
+            query.fields().exclude("password");
+        }
+        return query;
+    }
+
+    /**
+     * Make sure that all given movies exist and are available, resolving them from the movie cache in one lookup.
+     *
+     * @param movieIds The IDs of the movies.
+     * @throws ResourceNotFoundException If one of the movies does not exist.
+     * @throws IllegalStateException     If one of the movies is not available.
+     */
+    private void requireAvailableMovies(List<String> movieIds) {
+        Set<String> ids = new HashSet<>(movieIds);
+        List<Movie> movies = movieCache.getAll(ids);
+        if (movies.size() < ids.size()) {
+            throw new ResourceNotFoundException("The movie with the given ID does not exist.");
+        }
+        if (movies.stream().anyMatch(movie -> !movie.isAvailable())) {
+            throw new IllegalStateException("The movie is not available.");
+        }
     }
 
     /**
@@ -277,19 +369,48 @@ public class UserService {
      * @throws ResourceNotFoundException If the user with the given username does not exist.
      */
     public double getCartTotal(String username) {
-        Optional<User> userOptional = userRepository.findByUsernameOrEmail(username);
-        if (userOptional.isEmpty()) {
-            throw new ResourceNotFoundException("The user with the given username does not exist.");
-        }
-        User user = userOptional.get();
-        Set<String> cart = user.getCart();
-        if (cart == null || cart.isEmpty()) {
-            return 0.0;
+        return getCartMovies(username).getTotal();
+    }
+
+    /**
+     * Get the movies in the user's cart with their total price, loaded with one query for the user's cart
+     * and one for its movies. Movies that no longer exist are left out.
+     *
+     * @param username The username of the user.
+     * @return MovieCollectionDTO with the movies in the user's cart and their total price.
+     * @throws ResourceNotFoundException If the user with the given username does not exist.
+     */
+    public MovieCollectionDTO getCartMovies(String username) {
+        return hydrate(findUser(username, CART).getCart());
+    }
+
+    /**
+     * Get the movies in the user's wishlist with their total price, loaded with one query for the user's wishlist
+     * and one for its movies. Movies that no longer exist are left out.
+     *
+     * @param username The username of the user.
+     * @return MovieCollectionDTO with the movies in the user's wishlist and their total price.
+     * @throws ResourceNotFoundException If the user with the given username does not exist.
+     */
+    public MovieCollectionDTO getWishlistMovies(String username) {
+        return hydrate(findUser(username, WISHLIST).getWishlist());
+    }
+
+    /**
+     * Load the movies with the given IDs and sum their rental prices.
+     *
+     * @param movieIds The IDs of the movies.
+     * @return MovieCollectionDTO with the movies and their total price.
+     */
+    private MovieCollectionDTO hydrate(Set<String> movieIds) {
+        if (movieIds == null || movieIds.isEmpty()) {
+            return new MovieCollectionDTO(new ArrayList<>(), 0.0);
         }
-        List<Movie> moviesInCart = movieRepository.findAllById(cart);
-        return moviesInCart.stream()
+        List<Movie> movies = movieCache.getAll(movieIds);
+        double total = movies.stream()
                 .mapToDouble(Movie::getRentalPrice)
                 .sum();
+        return new MovieCollectionDTO(movies.stream().map(MovieDTO::new).collect(toList()), total);
     }
 
     /**
@@ -300,14 +421,7 @@ public class UserService {
      * @throws ResourceNotFoundException If the user with the given username does not exist.
      */
     public UserDTO suspendUser (String id) {
-        Optional<User> userOptional = userRepository.findById(id);
-        if (userOptional.isEmpty()) {
-            throw new ResourceNotFoundException("The user with the given username does not exist.");
-        }
-        User user = userOptional.get();
-        user.setIsSuspended(true);
-        User updatedUser = userRepository.save(user);
-        return new UserDTO(updatedUser);
+        return updateSuspension(id, true);
     }
 
     /**
@@ -318,13 +432,25 @@ public class UserService {
      * @throws ResourceNotFoundException If the user with the given username does not exist.
      */
     public UserDTO unsuspendUser (String id) {
-        Optional<User> userOptional = userRepository.findById(id);
-        if (userOptional.isEmpty()) {
+        return updateSuspension(id, false);
+    }
+
+    /**
+     * Set the suspended status of a user with a single find-and-modify that returns the updated user.
+     *
+     * @param id        The ID of the user.
+     * @param suspended The new suspended status.
+     * @return UserDTO representing the updated user.
+     * @throws ResourceNotFoundException If the user with the given ID does not exist.
+     */
+    private UserDTO updateSuspension(String id, boolean suspended) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        Update update = new Update().set("isSuspended", suspended);
+        User user = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), User.class);
+        if (user == null) {
             throw new ResourceNotFoundException("The user with the given username does not exist.");
         }
-        User user = userOptional.get();
-        user.setIsSuspended(false);
-        User updatedUser = userRepository.save(user);
-        return new UserDTO(updatedUser);
+        jwtPrincipalCache.invalidateUser(user.getUsername());
+        return new UserDTO(user);
     }
 }
@@ -0,0 +1,136 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import ba.edu.ibu.frent.core.model.User;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Service for notifying the users that have a movie in their wishlist.
+ * A notification is enqueued as a single event and returns immediately. The event is processed on the
+ * notification executor: the affected users are streamed from one projected query over the wishlist index,
+ * and every batch of them gets its WebSocket messages and one email request. Unless coalescing is disabled,
+ * the notifications are handed to the {@link NotificationCoalescer} instead, which merges the notifications of
+ * a user that arrive close together.
+ */
+@Service
+public class WishlistNotificationService {
+    /**
+     * Number of users fetched per cursor round-trip and addressed by a single email request.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationService notificationService;
+    private final MailSender mailgunSender;
+    private final ThreadPoolTaskExecutor notificationExecutor;
+    private final NotificationCoalescer notificationCoalescer;
+
+    /**
+     * Constructs a WishlistNotificationService.
+     *
+     * @param mongoTemplate         The MongoTemplate instance.
+     * @param notificationService   The NotificationService for WebSocket messages.
+     * @param mailgunSender         The MailSender for emails.
+     * @param notificationExecutor  The executor notifications are processed on.
+     * @param notificationCoalescer The stage that merges the notifications of a user into digests.
+     */
+    public WishlistNotificationService(MongoTemplate mongoTemplate, NotificationService notificationService,
+                                       MailSender mailgunSender,
+                                       @Qualifier("notificationExecutor") ThreadPoolTaskExecutor notificationExecutor,
+                                       NotificationCoalescer notificationCoalescer) {
+        this.mongoTemplate = mongoTemplate;
+        this.notificationService = notificationService;
+        this.mailgunSender = mailgunSender;
+        this.notificationExecutor = notificationExecutor;
+        this.notificationCoalescer = notificationCoalescer;
+    }
+
+    /**
+     * Notify every user that has a movie in their wishlist, without waiting for the delivery.
+     *
+     * @param movieId      The ID of the movie.
+     * @param notification The WebSocket message, or null to send emails only.
+     * @param emailSubject The subject of the email.
+     * @param emailMessage The content of the email.
+     */
+    public void notifyWishlistUsers(String movieId, String notification, String emailSubject, String emailMessage) {
+        try {
+            notificationExecutor.execute(() -> deliver(movieId, notification, emailSubject, emailMessage));
+        } catch (TaskRejectedException e) {
+            System.out.println("Wishlist notification for movie " + movieId + " was dropped with reason ### " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deliver a wishlist notification batch by batch.
+     *
+     * @param movieId      The ID of the movie.
+     * @param notification The WebSocket message, or null to send emails only.
+     * @param emailSubject The subject of the email.
+     * @param emailMessage The content of the email.
+     */
+    void deliver(String movieId, String notification, String emailSubject, String emailMessage) {
+        Query query = new Query(Criteria.where("wishlist").is(movieId)).cursorBatchSize(BATCH_SIZE);
+        query.fields().include("username", "email");
+        List<User> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            users.forEach(user -> {
+                batch.add(user);
+                if (batch.size() == BATCH_SIZE) {
+                    deliverBatch(batch, movieId, notification, emailSubject, emailMessage);
+                    batch.clear();
+                }
+            });
+        }
+        if (!batch.isEmpty()) {
+            deliverBatch(batch, movieId, notification, emailSubject, emailMessage);
+        }
+    }
+
+    /**
+     * Deliver a wishlist notification to one batch of users, or add it to their digests if coalescing is enabled.
+     * A failed email request does not stop the other batches.
+     *
+     * @param users        The users of the batch, with only their username and email loaded.
+     * @param movieId      The ID of the movie.
+     * @param notification The WebSocket message, or null to send emails only.
+     * @param emailSubject The subject of the email.
+     * @param emailMessage The content of the email.
+     */
+    private void deliverBatch(List<User> users, String movieId, String notification, String emailSubject,
+                              String emailMessage) {
+        if (notificationCoalescer.isEnabled()) {
+            for (User user : users) {
+                notificationCoalescer.add(user.getUsername(), user.getEmail(), movieId, notification, emailSubject, emailMessage);
+            }
+            return;
+        }
+        List<String> emails = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (notification != null) {
+                notificationService.sendMessage(user.getUsername(), notification);
+            }
+            if (user.getEmail() != null) {
+                emails.add(user.getEmail());
+            }
+        }
+        if (emails.isEmpty()) {
+            return;
+        }
+        try {
+            mailgunSender.send(emails, emailMessage, emailSubject);
+        } catch (RuntimeException e) {
+            System.out.println("Sending wishlist emails failed with reason ### " + e.getMessage());
+        }
+    }
+}
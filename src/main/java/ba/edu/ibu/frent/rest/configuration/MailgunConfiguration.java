@@ -1,11 +1,19 @@
 package ba.edu.ibu.frent.rest.configuration;
 
 import ba.edu.ibu.frent.api.impl.mailsender.MailgunSender;
-import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
@@ -39,6 +47,12 @@ public class MailgunConfiguration {
     @Value("${email.mailgun.domain}")
     private String domain;
 
+    /**
+     * Maximum number of concurrent requests to Mailgun.
+     */
+    @Value("${mail.queue.concurrency:4}")
+    private int concurrency;
+
     /**
      * Bean definition for the 'from' email address.
      *
@@ -50,28 +64,59 @@ public class MailgunConfiguration {
     }
 
     /**
-     * Bean definition for creating a MailSender instance with Mailgun configuration.
+     * Bean definition for creating the MailgunSender that delivers the queued emails.
+     * Application code sends emails through the outbound mail queue, the primary MailSender.
      *
      * @param restTemplate The RestTemplate for HTTP communication.
      * @param fromEmail    The 'from' email address for sending emails.
-     * @return MailSender instance configured for Mailgun.
+     * @param objectMapper The ObjectMapper for reading and writing JSON.
+     * @return MailgunSender instance configured for Mailgun.
      */
     @Bean
-    public MailSender mailgunMailSender(RestTemplate restTemplate, String fromEmail) {
-        return new MailgunSender(restTemplate, fromEmail);
+    public MailgunSender mailgunSender(RestTemplate restTemplate, String fromEmail, ObjectMapper objectMapper) {
+        return new MailgunSender(restTemplate, fromEmail, objectMapper);
     }
 
     /**
      * Bean definition for creating a RestTemplate with Mailgun authentication.
+     * Requests go through a connection pool sized to the number of concurrent deliveries, so connections to Mailgun
+     * are reused instead of being opened for every email.
      *
      * @param builder The RestTemplateBuilder for building the RestTemplate.
      * @return RestTemplate configured for Mailgun authentication.
      */
     @Bean
     public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.uriTemplateHandler(new DefaultUriBuilderFactory(domain))
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(concurrency)
+                .setMaxConnPerRoute(concurrency)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofSeconds(5))
+                        .setSocketTimeout(Timeout.ofSeconds(30))
+                        .build())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .build();
+        return builder.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .uriTemplateHandler(new DefaultUriBuilderFactory(domain))
                 .basicAuthentication(username, password)
                 .build();
     }
+
+    /**
+     * Bean definition for the executor queued emails are delivered on.
+     *
+     * @return ThreadPoolTaskExecutor with one thread per concurrent delivery.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(concurrency);
+        executor.setThreadNamePrefix("mail-");
+        return executor;
+    }
 }
 
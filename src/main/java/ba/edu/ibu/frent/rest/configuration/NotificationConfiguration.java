@@ -0,0 +1,43 @@
+package ba.edu.ibu.frent.rest.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration class for the workers that deliver notifications.
+ */
+@Configuration
+public class NotificationConfiguration {
+
+    /**
+     * Number of threads delivering notifications.
+     */
+    @Value("${notifications.executor.pool-size:8}")
+    private int poolSize;
+
+    /**
+     * Number of pending deliveries kept before new ones are rejected.
+     */
+    @Value("${notifications.executor.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * Bean definition for the executor notifications are delivered on, so that the caller never waits for a client.
+     * The queue is bounded, and deliveries submitted while it is full are rejected instead of piling up in memory.
+     *
+     * @return ThreadPoolTaskExecutor for notification delivery.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor notificationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
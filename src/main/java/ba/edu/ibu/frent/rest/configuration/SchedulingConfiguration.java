@@ -0,0 +1,35 @@
+package ba.edu.ibu.frent.rest.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Configuration class enabling scheduled background tasks.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+    /**
+     * Number of threads scheduled tasks run on.
+     */
+    @Value("${scheduling.pool-size:4}")
+    private int poolSize;
+
+    /**
+     * Bean definition for the scheduler of the scheduled tasks. It has several threads, so a long running task,
+     * such as the due date reminders, does not hold up frequent ones, such as the mail queue dispatcher.
+     *
+     * @return ThreadPoolTaskScheduler for scheduled tasks.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+}
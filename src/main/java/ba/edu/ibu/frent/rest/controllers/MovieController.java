@@ -1,14 +1,22 @@
 package ba.edu.ibu.frent.rest.controllers;
 
 import ba.edu.ibu.frent.core.service.MovieService;
+import ba.edu.ibu.frent.rest.dto.MovieCacheStatsDTO;
 import ba.edu.ibu.frent.rest.dto.MovieDTO;
+import ba.edu.ibu.frent.rest.dto.MoviePageDTO;
 import ba.edu.ibu.frent.rest.dto.MovieRequestDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -19,14 +27,17 @@ import java.util.List;
 @SecurityRequirement(name = "JWT Security")
 public class MovieController {
     private final MovieService movieService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructs a MovieController with the provided MovieService.
      *
      * @param movieService The MovieService for handling movie-related operations.
+     * @param objectMapper The ObjectMapper used to serialize streamed movies.
      */
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService, ObjectMapper objectMapper) {
         this.movieService = movieService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -40,6 +51,17 @@ public class MovieController {
         return ResponseEntity.ok(movieService.getMovies(page, size));
     }
 
+    /**
+     * Retrieves the movies that come after the given cursor, newest first.
+     * @param cursor The ID of the last movie of the previous slice; omit it for the first slice.
+     * @param size   Number of results returned
+     * @return ResponseEntity with the movies and the cursor for the next slice.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/after")
+    public ResponseEntity<MoviePageDTO> getMoviesAfter(@RequestParam(required = false) String cursor, @RequestParam int size) {
+        return ResponseEntity.ok(movieService.getMoviesAfter(cursor, size));
+    }
+
     /**
      * Adds a new movie.
      *
@@ -52,6 +74,17 @@ public class MovieController {
         return ResponseEntity.ok(movieService.addMovie(movie));
     }
 
+    /**
+     * Get the statistics of the movie cache.
+     *
+     * @return ResponseEntity containing the size, catalog version and counters of the movie cache.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/cacheStats")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<MovieCacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(movieService.getCacheStats());
+    }
+
     /**
      * Retrieves details of a specific movie by ID.
      *
@@ -102,6 +135,18 @@ public class MovieController {
         return ResponseEntity.ok(movieService.searchMovies(keyword, page, size));
     }
 
+    /**
+     * Suggests movie titles and directors for search-as-you-type.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  The maximum number of suggestions to return.
+     * @return ResponseEntity with a list of suggested titles and directors.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/suggest/{prefix}")
+    public ResponseEntity<List<String>> suggest(@PathVariable String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(movieService.suggest(prefix, limit));
+    }
+
     /**
      * Sets a movie as available for rent.
      *
@@ -163,5 +208,32 @@ public class MovieController {
     public ResponseEntity<List<MovieDTO>> getAllMovies() {
         return ResponseEntity.ok(movieService.getAllMovies());
     }
-}
 
+    /**
+     * Streams all movies as newline-delimited JSON, one movie per line.
+     * Movies are written while the database cursor is being read, so memory use does not grow with the catalog.
+     *
+     * @param response The HTTP response the movies are written to.
+     * @throws IOException If an I/O error occurs while writing the response.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/allMovies/stream")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public void streamAllMovies(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream outputStream = response.getOutputStream();
+        try {
+            movieService.streamAllMovies(movie -> {
+                try {
+                    outputStream.write(objectMapper.writeValueAsBytes(movie));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        outputStream.flush();
+    }
+}
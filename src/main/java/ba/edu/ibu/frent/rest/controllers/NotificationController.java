@@ -1,14 +1,19 @@
 package ba.edu.ibu.frent.rest.controllers;
 
+import ba.edu.ibu.frent.api.impl.mailsender.QueuedMailSender;
+import ba.edu.ibu.frent.core.service.NotificationInboxService;
 import ba.edu.ibu.frent.core.service.NotificationService;
+import ba.edu.ibu.frent.rest.dto.MailQueueStatsDTO;
 import ba.edu.ibu.frent.rest.dto.MessageDTO;
+import ba.edu.ibu.frent.rest.dto.NotificationPageDTO;
+import ba.edu.ibu.frent.rest.dto.NotificationStatsDTO;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.io.IOException;
+import java.security.Principal;
 
 /**
  * Controller for handling notifications.
@@ -18,26 +23,32 @@ import java.io.IOException;
 @SecurityRequirement(name = "JWT Security")
 public class NotificationController {
     private final NotificationService notificationService;
+    private final QueuedMailSender queuedMailSender;
+    private final NotificationInboxService notificationInboxService;
 
     /**
-     * Constructs a NotificationController with the provided NotificationService.
+     * Constructs a NotificationController with the provided services.
      *
-     * @param notificationService The NotificationService for handling notifications.
+     * @param notificationService      The NotificationService for handling notifications.
+     * @param queuedMailSender         The outbound mail queue.
+     * @param notificationInboxService The NotificationInboxService for reading the inbox of a user.
      */
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService, QueuedMailSender queuedMailSender,
+                                  NotificationInboxService notificationInboxService) {
         this.notificationService = notificationService;
+        this.queuedMailSender = queuedMailSender;
+        this.notificationInboxService = notificationInboxService;
     }
 
     /**
-     * Sends a broadcast message to all connected users.
+     * Sends a broadcast message to all connected users. The message is delivered in the background.
      *
      * @param message The message to broadcast.
      * @return ResponseEntity with NO_CONTENT status.
-     * @throws IOException If an I/O error occurs while broadcasting the message.
      */
     @RequestMapping(method = RequestMethod.POST, path = "/broadcast")
     @PreAuthorize("hasAnyAuthority('EMPLOYEE', 'ADMIN')")
-    public ResponseEntity<Void> sendBroadcastMessage(@RequestBody MessageDTO message) throws IOException {
+    public ResponseEntity<Void> sendBroadcastMessage(@RequestBody MessageDTO message) {
         System.out.println("The message is: " + message.getMessage());
         notificationService.broadcastMessage(message.getMessage());
         return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
@@ -49,14 +60,49 @@ public class NotificationController {
      * @param userName The username of the recipient.
      * @param message  The message to send.
      * @return ResponseEntity with NO_CONTENT status.
-     * @throws IOException If an I/O error occurs while sending the message.
      */
     @RequestMapping(method = RequestMethod.POST, path = "/send-to/{userName}")
     @PreAuthorize("hasAnyAuthority('EMPLOYEE', 'ADMIN')")
-    public ResponseEntity<Void> sendChatMessage(@PathVariable String userName, @RequestBody MessageDTO message) throws IOException {
+    public ResponseEntity<Void> sendChatMessage(@PathVariable String userName, @RequestBody MessageDTO message) {
         System.out.println("The message is: " + message.getMessage());
         notificationService.sendMessage(userName, message.getMessage());
         return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
     }
-}
 
+    /**
+     * Retrieves the notifications of the currently authenticated user that come after the given cursor, newest first.
+     *
+     * @param principal The authenticated user's Principal object.
+     * @param cursor    The ID of the last notification of the previous slice; omit it for the first slice.
+     * @param size      Number of results returned.
+     * @return ResponseEntity with the notifications and the cursor for the next slice.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/inbox")
+    @PreAuthorize("hasAnyAuthority('MEMBER', 'EMPLOYEE', 'ADMIN')")
+    public ResponseEntity<NotificationPageDTO> getInbox(Principal principal, @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(notificationInboxService.getInbox(principal.getName(), cursor, size));
+    }
+
+    /**
+     * Retrieves the current state of notification delivery.
+     *
+     * @return ResponseEntity containing the delivery counters and the current backlog.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/stats")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<NotificationStatsDTO> getStats() {
+        return ResponseEntity.ok(notificationService.getStats());
+    }
+
+    /**
+     * Retrieves the current state of the outbound mail queue.
+     *
+     * @return ResponseEntity containing the queue depth, the delivery counters and the delivery latency.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/mail-queue")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<MailQueueStatsDTO> getMailQueueStats() {
+        return ResponseEntity.ok(queuedMailSender.getStats());
+    }
+}
@@ -1,8 +1,10 @@
 package ba.edu.ibu.frent.rest.controllers;
 
+import ba.edu.ibu.frent.core.service.DueDateReminderService;
 import ba.edu.ibu.frent.core.service.RentalService;
 import ba.edu.ibu.frent.rest.dto.RentalDTO;
 import ba.edu.ibu.frent.rest.dto.RentalRequestDTO;
+import ba.edu.ibu.frent.rest.dto.RentalSummaryDTO;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,14 +23,17 @@ import java.util.List;
 public class RentalController {
 
     private final RentalService rentalService;
+    private final DueDateReminderService dueDateReminderService;
 
     /**
-     * Constructs a new RentalController with the specified RentalService.
+     * Constructs a new RentalController with the specified services.
      *
-     * @param rentalService The service responsible for rental-related operations.
+     * @param rentalService          The service responsible for rental-related operations.
+     * @param dueDateReminderService The service responsible for due date reminders.
      */
-    public RentalController(RentalService rentalService) {
+    public RentalController(RentalService rentalService, DueDateReminderService dueDateReminderService) {
         this.rentalService = rentalService;
+        this.dueDateReminderService = dueDateReminderService;
     }
 
     /**
@@ -134,6 +139,18 @@ public class RentalController {
         return ResponseEntity.ok(rentalService.addRentalForUser(username, movieId, rental));
     }
 
+    /**
+     * Rents every movie in the cart of the currently authenticated user and empties the cart.
+     *
+     * @param principal The authenticated user's Principal object.
+     * @return ResponseEntity containing a list of the created RentalDTOs.
+     */
+    @RequestMapping(method = RequestMethod.POST, path = "/checkout")
+    @PreAuthorize("hasAnyAuthority('MEMBER', 'EMPLOYEE', 'ADMIN')")
+    public ResponseEntity<List<RentalDTO>> checkout(Principal principal) {
+        return ResponseEntity.ok(rentalService.checkout(principal.getName()));
+    }
+
     /**
      * Retrieves a rental for the currently authenticated user by ID.
      *
@@ -164,15 +181,16 @@ public class RentalController {
     }
 
     /**
-     * Sends due date warnings for rentals with approaching due dates.
+     * Starts sending today's due date warnings in the background, in addition to the scheduled run.
+     * Users that were already warned today are not warned again.
      *
-     * @return ResponseEntity indicating the success of the operation.
+     * @return ResponseEntity with ACCEPTED status.
      */
     @RequestMapping(method = RequestMethod.POST, path = "/sendDueDateWarnings")
     @PreAuthorize("hasAnyAuthority('EMPLOYEE', 'ADMIN')")
     public ResponseEntity<Void> sendDueDateWarnings() {
-        rentalService.checkDueDatesAndSendWarnings();
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        dueDateReminderService.trigger();
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
     }
 
     /**
@@ -202,6 +220,30 @@ public class RentalController {
         return ResponseEntity.ok(totalSpent);
     }
 
+    /**
+     * Retrieves the rental totals of the currently authenticated user.
+     *
+     * @param principal The authenticated user's Principal object.
+     * @return ResponseEntity containing the RentalSummaryDTO of the user.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/getSummary")
+    @PreAuthorize("hasAnyAuthority('MEMBER', 'EMPLOYEE', 'ADMIN')")
+    public ResponseEntity<RentalSummaryDTO> getSummary(Principal principal) {
+        return ResponseEntity.ok(rentalService.getRentalSummary(principal.getName()));
+    }
+
+    /**
+     * Recomputes the rental totals of all users from their rentals.
+     *
+     * @return ResponseEntity with NO_CONTENT status.
+     */
+    @RequestMapping(method = RequestMethod.POST, path = "/rebuildSummaries")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<Void> rebuildSummaries() {
+        rentalService.rebuildRentalSummaries();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
     /**
      * Retrieves rentals associated with a user with the specified ID.
      *
@@ -1,6 +1,7 @@
 package ba.edu.ibu.frent.rest.controllers;
 
 import ba.edu.ibu.frent.core.service.UserService;
+import ba.edu.ibu.frent.rest.dto.MovieCollectionDTO;
 import ba.edu.ibu.frent.rest.dto.UserDTO;
 import ba.edu.ibu.frent.rest.dto.UserRequestDTO;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -164,6 +165,82 @@ public class UserController {
         return ResponseEntity.ok(updatedUser);
     }
 
+    /**
+     * Add several movies to the user's cart at once.
+     *
+     * @param movieIds  The IDs of the movies to be added to the cart.
+     * @param principal The Principal representing the current user.
+     * @return ResponseEntity containing the set of movie IDs in the user's cart after the update.
+     */
+    @RequestMapping(method = RequestMethod.PUT, path = "/addAllToCart")
+    @PreAuthorize("hasAnyAuthority('MEMBER', 'ADMIN')")
+    public ResponseEntity<Set<String>> addAllToCart(@RequestBody List<String> movieIds, Principal principal) {
+        return ResponseEntity.ok(userService.addAllToCart(movieIds, principal.getName()));
+    }
+
+    /**
+     * Remove several movies from the user's cart at once.
+     *
+     * @param movieIds  The IDs of the movies to be removed from the cart.
+     * @param principal The Principal representing the current user.
+     * @return ResponseEntity containing the set of movie IDs in the user's cart after the update.
+     */
+    @RequestMapping(method = RequestMethod.PUT, path = "/removeAllFromCart")
+    @PreAuthorize("hasAnyAuthority('MEMBER', 'ADMIN')")
+    public ResponseEntity<Set<String>> removeAllFromCart(@RequestBody List<String> movieIds, Principal principal) {
+        return ResponseEntity.ok(userService.removeAllFromCart(movieIds, principal.getName()));
+    }
+
+    /**
+     * Add several movies to the user's wishlist at once.
+     *
+     * @param movieIds  The IDs of the movies to be added to the wishlist.
+     * @param principal The Principal representing the current user.
+     * @return ResponseEntity containing the set of movie IDs in the user's wishlist after the update.
+     */
+    @RequestMapping(method = RequestMethod.PUT, path = "/addAllToWishlist")
+    @PreAuthorize("hasAnyAuthority('MEMBER', 'ADMIN')")
+    public ResponseEntity<Set<String>> addAllToWishlist(@RequestBody List<String> movieIds, Principal principal) {
+        return ResponseEntity.ok(userService.addAllToWishlist(movieIds, principal.getName()));
+    }
+
+    /**
+     * Remove several movies from the user's wishlist at once.
+     *
+     * @param movieIds  The IDs of the movies to be removed from the wishlist.
+     * @param principal The Principal representing the current user.
+     * @return ResponseEntity containing the set of movie IDs in the user's wishlist after the update.
+     */
+    @RequestMapping(method = RequestMethod.PUT, path = "/removeAllFromWishlist")
+    @PreAuthorize("hasAnyAuthority('MEMBER', 'ADMIN')")
+    public ResponseEntity<Set<String>> removeAllFromWishlist(@RequestBody List<String> movieIds, Principal principal) {
+        return ResponseEntity.ok(userService.removeAllFromWishlist(movieIds, principal.getName()));
+    }
+
+    /**
+     * Get the movies in the user's cart with their total price.
+     *
+     * @param principal The Principal representing the current user.
+     * @return ResponseEntity containing the movies in the user's cart and their total price.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/cart/movies")
+    @PreAuthorize("hasAnyAuthority('MEMBER', 'ADMIN')")
+    public ResponseEntity<MovieCollectionDTO> getCartMovies(Principal principal) {
+        return ResponseEntity.ok(userService.getCartMovies(principal.getName()));
+    }
+
+    /**
+     * Get the movies in the user's wishlist with their total price.
+     *
+     * @param principal The Principal representing the current user.
+     * @return ResponseEntity containing the movies in the user's wishlist and their total price.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/wishlist/movies")
+    @PreAuthorize("hasAnyAuthority('MEMBER', 'ADMIN')")
+    public ResponseEntity<MovieCollectionDTO> getWishlistMovies(Principal principal) {
+        return ResponseEntity.ok(userService.getWishlistMovies(principal.getName()));
+    }
+
     /**
      * Get the user's cart.
      *
@@ -0,0 +1,109 @@
+package ba.edu.ibu.frent.rest.dto;
+
+/**
+ * MailQueueStatsDTO represents a snapshot of the outbound mail queue.
+ */
+public class MailQueueStatsDTO {
+    private long pending;
+    private long failed;
+    private long oldestPendingAgeMillis;
+    private long sentSinceStartup;
+    private long retriedSinceStartup;
+    private long failedSinceStartup;
+    private long averageLatencyMillis;
+    private long maxLatencyMillis;
+
+    /**
+     * Constructs an empty MailQueueStatsDTO.
+     */
+    public MailQueueStatsDTO() {
+    }
+
+    /**
+     * Constructs a MailQueueStatsDTO with the provided values.
+     *
+     * @param pending                The number of messages waiting to be sent, including the ones being sent.
+     * @param failed                 The number of messages that were given up on.
+     * @param oldestPendingAgeMillis The age in milliseconds of the oldest message waiting to be sent.
+     * @param sentSinceStartup       The number of messages sent since the application started.
+     * @param retriedSinceStartup    The number of failed attempts that were scheduled for a retry since the application started.
+     * @param failedSinceStartup     The number of messages given up on since the application started.
+     * @param averageLatencyMillis   The average time in milliseconds from queueing to sending of the messages sent since the application started.
+     * @param maxLatencyMillis       The longest time in milliseconds from queueing to sending of the messages sent since the application started.
+     */
+    public MailQueueStatsDTO(long pending, long failed, long oldestPendingAgeMillis, long sentSinceStartup,
+                             long retriedSinceStartup, long failedSinceStartup, long averageLatencyMillis, long maxLatencyMillis) {
+        this.pending = pending;
+        this.failed = failed;
+        this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+        this.sentSinceStartup = sentSinceStartup;
+        this.retriedSinceStartup = retriedSinceStartup;
+        this.failedSinceStartup = failedSinceStartup;
+        this.averageLatencyMillis = averageLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public void setPending(long pending) {
+        this.pending = pending;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getOldestPendingAgeMillis() {
+        return oldestPendingAgeMillis;
+    }
+
+    public void setOldestPendingAgeMillis(long oldestPendingAgeMillis) {
+        this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+    }
+
+    public long getSentSinceStartup() {
+        return sentSinceStartup;
+    }
+
+    public void setSentSinceStartup(long sentSinceStartup) {
+        this.sentSinceStartup = sentSinceStartup;
+    }
+
+    public long getRetriedSinceStartup() {
+        return retriedSinceStartup;
+    }
+
+    public void setRetriedSinceStartup(long retriedSinceStartup) {
+        this.retriedSinceStartup = retriedSinceStartup;
+    }
+
+    public long getFailedSinceStartup() {
+        return failedSinceStartup;
+    }
+
+    public void setFailedSinceStartup(long failedSinceStartup) {
+        this.failedSinceStartup = failedSinceStartup;
+    }
+
+    public long getAverageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+
+    public void setAverageLatencyMillis(long averageLatencyMillis) {
+        this.averageLatencyMillis = averageLatencyMillis;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    public void setMaxLatencyMillis(long maxLatencyMillis) {
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+}
@@ -0,0 +1,75 @@
+package ba.edu.ibu.frent.rest.dto;
+
+/**
+ * MovieCacheStatsDTO represents a snapshot of the in-process movie cache.
+ */
+public class MovieCacheStatsDTO {
+    private int size;
+    private long catalogVersion;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructs an empty MovieCacheStatsDTO.
+     */
+    public MovieCacheStatsDTO() {
+    }
+
+    /**
+     * Constructs a MovieCacheStatsDTO with the provided values.
+     *
+     * @param size           The number of cached movies.
+     * @param catalogVersion The catalog version, which changes with every write to the catalog.
+     * @param hits           The number of lookups answered from the cache.
+     * @param misses         The number of lookups that had to load the movie from the database.
+     * @param evictions      The number of movies evicted because the cache was full.
+     */
+    public MovieCacheStatsDTO(int size, long catalogVersion, long hits, long misses, long evictions) {
+        this.size = size;
+        this.catalogVersion = catalogVersion;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+}
@@ -0,0 +1,44 @@
+package ba.edu.ibu.frent.rest.dto;
+
+import java.util.List;
+
+/**
+ * MovieCollectionDTO represents the movies of a user's cart or wishlist together with their total rental price.
+ */
+public class MovieCollectionDTO {
+    private List<MovieDTO> movies;
+    private double total;
+
+    /**
+     * Constructs an empty MovieCollectionDTO.
+     */
+    public MovieCollectionDTO() {
+    }
+
+    /**
+     * Constructs a MovieCollectionDTO with the provided movies and total.
+     *
+     * @param movies The movies in the collection.
+     * @param total  The sum of the rental prices of the movies.
+     */
+    public MovieCollectionDTO(List<MovieDTO> movies, double total) {
+        this.movies = movies;
+        this.total = total;
+    }
+
+    public List<MovieDTO> getMovies() {
+        return movies;
+    }
+
+    public void setMovies(List<MovieDTO> movies) {
+        this.movies = movies;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public void setTotal(double total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,45 @@
+package ba.edu.ibu.frent.rest.dto;
+
+import java.util.List;
+
+/**
+ * MoviePageDTO represents one keyset-paginated slice of the movie catalog.
+ * The next cursor is the ID of the last movie in the slice, or null when there are no more movies.
+ */
+public class MoviePageDTO {
+    private List<MovieDTO> movies;
+    private String nextCursor;
+
+    /**
+     * Constructs an empty MoviePageDTO.
+     */
+    public MoviePageDTO() {
+    }
+
+    /**
+     * Constructs a MoviePageDTO with the provided movies and cursor.
+     *
+     * @param movies     The movies in this slice.
+     * @param nextCursor The cursor to request the following slice with, or null if this is the last one.
+     */
+    public MoviePageDTO(List<MovieDTO> movies, String nextCursor) {
+        this.movies = movies;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<MovieDTO> getMovies() {
+        return movies;
+    }
+
+    public void setMovies(List<MovieDTO> movies) {
+        this.movies = movies;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
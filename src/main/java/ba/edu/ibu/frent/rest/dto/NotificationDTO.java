@@ -0,0 +1,55 @@
+package ba.edu.ibu.frent.rest.dto;
+
+import ba.edu.ibu.frent.core.model.InboxNotification;
+
+import java.util.Date;
+
+/**
+ * NotificationDTO represents a notification of the inbox of a user.
+ */
+public class NotificationDTO {
+    private String id;
+    private String message;
+    private Date createdAt;
+
+    /**
+     * Constructs an empty NotificationDTO.
+     */
+    public NotificationDTO() {
+    }
+
+    /**
+     * Constructs a NotificationDTO from an InboxNotification.
+     *
+     * @param notification The notification of the inbox.
+     */
+    public NotificationDTO(InboxNotification notification) {
+        this.id = notification.getId();
+        this.message = notification.getMessage();
+        this.createdAt = notification.getCreatedAt();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
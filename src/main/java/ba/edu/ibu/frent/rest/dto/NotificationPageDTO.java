@@ -0,0 +1,45 @@
+package ba.edu.ibu.frent.rest.dto;
+
+import java.util.List;
+
+/**
+ * NotificationPageDTO represents one keyset-paginated slice of the inbox of a user, newest first.
+ * The next cursor is the ID of the last notification in the slice, or null when there are no more notifications.
+ */
+public class NotificationPageDTO {
+    private List<NotificationDTO> notifications;
+    private String nextCursor;
+
+    /**
+     * Constructs an empty NotificationPageDTO.
+     */
+    public NotificationPageDTO() {
+    }
+
+    /**
+     * Constructs a NotificationPageDTO with the provided notifications and cursor.
+     *
+     * @param notifications The notifications in this slice.
+     * @param nextCursor    The cursor to request the following slice with, or null if this is the last one.
+     */
+    public NotificationPageDTO(List<NotificationDTO> notifications, String nextCursor) {
+        this.notifications = notifications;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<NotificationDTO> getNotifications() {
+        return notifications;
+    }
+
+    public void setNotifications(List<NotificationDTO> notifications) {
+        this.notifications = notifications;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,99 @@
+package ba.edu.ibu.frent.rest.dto;
+
+/**
+ * NotificationStatsDTO represents a snapshot of WebSocket notification delivery.
+ * The counters are cumulative since the application started.
+ */
+public class NotificationStatsDTO {
+    private int openSessions;
+    private long bufferedBytes;
+    private int pendingDeliveries;
+    private long delivered;
+    private long failed;
+    private long disconnected;
+    private long rejected;
+
+    /**
+     * Constructs an empty NotificationStatsDTO.
+     */
+    public NotificationStatsDTO() {
+    }
+
+    /**
+     * Constructs a NotificationStatsDTO with the provided values.
+     *
+     * @param openSessions      The number of open sessions.
+     * @param bufferedBytes     The number of bytes waiting in the outbound buffers of all sessions.
+     * @param pendingDeliveries The number of deliveries waiting for a notification worker.
+     * @param delivered         The number of messages handed to a session.
+     * @param failed            The number of messages that could not be written.
+     * @param disconnected      The number of sessions closed because their client could not keep up.
+     * @param rejected          The number of messages dropped because the notification workers were saturated.
+     */
+    public NotificationStatsDTO(int openSessions, long bufferedBytes, int pendingDeliveries, long delivered,
+                                long failed, long disconnected, long rejected) {
+        this.openSessions = openSessions;
+        this.bufferedBytes = bufferedBytes;
+        this.pendingDeliveries = pendingDeliveries;
+        this.delivered = delivered;
+        this.failed = failed;
+        this.disconnected = disconnected;
+        this.rejected = rejected;
+    }
+
+    public int getOpenSessions() {
+        return openSessions;
+    }
+
+    public void setOpenSessions(int openSessions) {
+        this.openSessions = openSessions;
+    }
+
+    public long getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    public void setBufferedBytes(long bufferedBytes) {
+        this.bufferedBytes = bufferedBytes;
+    }
+
+    public int getPendingDeliveries() {
+        return pendingDeliveries;
+    }
+
+    public void setPendingDeliveries(int pendingDeliveries) {
+        this.pendingDeliveries = pendingDeliveries;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    public void setDelivered(long delivered) {
+        this.delivered = delivered;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getDisconnected() {
+        return disconnected;
+    }
+
+    public void setDisconnected(long disconnected) {
+        this.disconnected = disconnected;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+}
@@ -16,6 +16,7 @@ public class RentalDTO {
     private LocalDate returnDate;
     private double rentalPrice;
     private boolean returned;
+    private boolean overdue;
     private String video;
 
     /**
@@ -38,6 +39,8 @@ public class RentalDTO {
         this.returnDate = rental.getReturnDate();
         this.rentalPrice = rental.getRentalPrice();
         this.returned = rental.isReturned();
+        // Overdue rentals stay active until the next automatic return, but are reported as overdue right away
+        this.overdue = !rental.isReturned() && rental.getDueDate() != null && rental.getDueDate().isBefore(LocalDate.now());
         this.video = rental.getVideo();
     }
 
@@ -105,6 +108,14 @@ public class RentalDTO {
         this.returned = returned;
     }
 
+    public boolean isOverdue() {
+        return overdue;
+    }
+
+    public void setOverdue(boolean overdue) {
+        this.overdue = overdue;
+    }
+
     public String getVideo() {
         return video;
     }
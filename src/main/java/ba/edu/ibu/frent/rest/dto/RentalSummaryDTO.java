@@ -0,0 +1,75 @@
+package ba.edu.ibu.frent.rest.dto;
+
+import ba.edu.ibu.frent.core.model.RentalSummary;
+
+import java.time.LocalDate;
+
+/**
+ * RentalSummaryDTO represents the data transfer object for displaying the rental totals of a user.
+ */
+public class RentalSummaryDTO {
+    private String username;
+    private double totalSpent;
+    private long rentalCount;
+    private long activeRentals;
+    private LocalDate lastRentalDate;
+
+    /**
+     * Constructs an empty RentalSummaryDTO.
+     */
+    public RentalSummaryDTO() {
+    }
+
+    /**
+     * Constructs a RentalSummaryDTO based on the provided RentalSummary entity.
+     *
+     * @param summary The RentalSummary entity from which to construct the DTO.
+     */
+    public RentalSummaryDTO(RentalSummary summary) {
+        this.username = summary.getId();
+        this.totalSpent = summary.getTotalSpent();
+        this.rentalCount = summary.getRentalCount();
+        this.activeRentals = summary.getActiveRentals();
+        this.lastRentalDate = summary.getLastRentalDate();
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public double getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(double totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public long getRentalCount() {
+        return rentalCount;
+    }
+
+    public void setRentalCount(long rentalCount) {
+        this.rentalCount = rentalCount;
+    }
+
+    public long getActiveRentals() {
+        return activeRentals;
+    }
+
+    public void setActiveRentals(long activeRentals) {
+        this.activeRentals = activeRentals;
+    }
+
+    public LocalDate getLastRentalDate() {
+        return lastRentalDate;
+    }
+
+    public void setLastRentalDate(LocalDate lastRentalDate) {
+        this.lastRentalDate = lastRentalDate;
+    }
+}
@@ -1,5 +1,6 @@
 package ba.edu.ibu.frent.rest.filters;
 
+import ba.edu.ibu.frent.core.cache.JwtPrincipalCache;
 import ba.edu.ibu.frent.core.service.JwtService;
 import ba.edu.ibu.frent.core.service.UserService;
 import com.mongodb.lang.NonNull;
@@ -30,6 +31,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtService jwtService;
     @Autowired
     private UserService userService;
+    @Autowired
+    private JwtPrincipalCache jwtPrincipalCache;
 
     /**
      * Performs the actual filter logic to extract, validate, and process JWT authentication.
@@ -57,16 +60,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         // Extract JWT token from the Authorization header
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUserName(jwt);
 
-        // Check if the user email is not empty and authentication context is null
-        if (StringUtils.isNotEmpty(userEmail)
-                && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.userDetailsService()
-                    .loadUserByUsername(userEmail);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // A token that was already validated skips verification and the user lookup
+            UserDetails userDetails = jwtPrincipalCache.get(jwt);
+            if (userDetails == null) {
+                // Verify the token once and take the username and expiration from the same parse
+                JwtService.VerifiedToken verifiedToken = jwtService.verify(jwt);
+                userEmail = verifiedToken.getSubject();
+
+                // Check if the user email is not empty
+                if (StringUtils.isNotEmpty(userEmail)) {
+                    // Take the generation before the lookup, so a write to the user during the lookup is noticed
+                    long generation = jwtPrincipalCache.generation(userEmail);
+                    UserDetails loadedUser = userService.userDetailsService()
+                            .loadUserByUsername(userEmail);
+
+                    // Remember the principal if the token belongs to the loaded user
+                    if (userEmail.equals(loadedUser.getUsername()) && !verifiedToken.isExpired()) {
+                        jwtPrincipalCache.put(jwt, loadedUser, verifiedToken.getExpiration(), generation);
+                        userDetails = loadedUser;
+                    }
+                }
+            }
 
-            // Validate the token and set the authentication context if valid
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            // Set the authentication context if the token is valid
+            if (userDetails != null) {
                 SecurityContext context = SecurityContextHolder.createEmptyContext();
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
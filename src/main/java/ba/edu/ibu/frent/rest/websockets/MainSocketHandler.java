@@ -1,17 +1,24 @@
 package ba.edu.ibu.frent.rest.websockets;
 
-import ba.edu.ibu.frent.core.exceptions.GeneralException;
+import ba.edu.ibu.frent.core.api.notifications.NotificationRelay;
 import ba.edu.ibu.frent.core.model.User;
 import ba.edu.ibu.frent.core.service.JwtService;
+import ba.edu.ibu.frent.core.service.NotificationInboxService;
 import ba.edu.ibu.frent.core.service.UserService;
+import ba.edu.ibu.frent.rest.dto.NotificationDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.List;
+import java.util.Map;
 
 /**
  * MainSocketHandler is a WebSocket handler responsible for managing WebSocket sessions and handling
@@ -21,21 +28,53 @@ import java.util.List;
 public class MainSocketHandler implements WebSocketHandler {
     private final JwtService jwtService;
     private final UserService userService;
-    public Map<String, WebSocketSession> sessions = new HashMap<>();
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final WebSocketDeliveryMetrics deliveryMetrics;
+    private final NotificationRelay notificationRelay;
+    private final NotificationInboxService notificationInboxService;
+    private final ObjectMapper objectMapper;
+    private final int sendTimeLimitMillis;
+    private final int bufferSizeLimitBytes;
+    private final OverflowPolicy overflowPolicy;
 
     /**
      * Constructs a MainSocketHandler with the required dependencies.
      *
-     * @param jwtService The JWT service for token extraction.
-     * @param userService The user service for user-related operations.
+     * @param jwtService               The JWT service for token extraction.
+     * @param userService              The user service for user-related operations.
+     * @param sessionRegistry          The registry of open sessions per user.
+     * @param deliveryMetrics          The counters of outbound message outcomes.
+     * @param notificationRelay        The relay that learns which users are connected to this node.
+     * @param notificationInboxService The inbox undelivered notifications are replayed from.
+     * @param objectMapper             The ObjectMapper used to serialize replayed notifications.
+     * @param sendTimeLimitMillis      The longest a single send to a client may take before the session is closed.
+     * @param bufferSizeLimitBytes     The size of the outbound buffer of a session.
+     * @param overflowPolicy           What to do when the outbound buffer of a session is full.
      */
-    public MainSocketHandler(JwtService jwtService, UserService userService) {
+    public MainSocketHandler(JwtService jwtService, UserService userService, WebSocketSessionRegistry sessionRegistry,
+                             WebSocketDeliveryMetrics deliveryMetrics, NotificationRelay notificationRelay,
+                             NotificationInboxService notificationInboxService, ObjectMapper objectMapper,
+                             @Value("${notifications.websocket.send-time-limit-ms:10000}") int sendTimeLimitMillis,
+                             @Value("${notifications.websocket.buffer-size-limit-bytes:524288}") int bufferSizeLimitBytes,
+                             @Value("${notifications.websocket.overflow-policy:drop-oldest}") OverflowPolicy overflowPolicy) {
         this.jwtService = jwtService;
         this.userService = userService;
+        this.sessionRegistry = sessionRegistry;
+        this.deliveryMetrics = deliveryMetrics;
+        this.notificationRelay = notificationRelay;
+        this.notificationInboxService = notificationInboxService;
+        this.objectMapper = objectMapper;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimitBytes = bufferSizeLimitBytes;
+        this.overflowPolicy = overflowPolicy;
     }
 
     /**
      * Invoked after a new WebSocket connection is established.
+     * The session is registered behind a decorator that buffers outbound messages up to the configured limit,
+     * so concurrent senders never block each other and a slow client only ever holds up the thread flushing it.
+     * The relay is told that the user is connected to this node, so notifications sent from other nodes reach them,
+     * and the notifications the user missed while offline are replayed to the new session.
      *
      * @param session The WebSocket session.
      * @throws Exception If an error occurs during connection establishment.
@@ -46,7 +85,11 @@ public class MainSocketHandler implements WebSocketHandler {
         if (user == null) {
             return;
         }
-        sessions.put(user.getUsername(), session);
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(
+                session, sendTimeLimitMillis, bufferSizeLimitBytes, overflowPolicy.getStrategy());
+        sessionRegistry.register(user.getUsername(), decorated);
+        notificationRelay.userConnected(user.getUsername());
+        replayInbox(user.getUsername(), decorated);
         System.out.println("Session created for the user " + user.getUsername() +
                 " where the session id is " + session.getId());
     }
@@ -75,6 +118,7 @@ public class MainSocketHandler implements WebSocketHandler {
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
         System.out.println("Error happened " + session.getId() +
                 " with reason ### " + exception.getMessage());
+        unregister(session);
     }
 
     /**
@@ -88,6 +132,7 @@ public class MainSocketHandler implements WebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
         System.out.println("Connection closed for session " + session.getId() +
                 " with status ### " + closeStatus.getReason());
+        unregister(session);
     }
 
     /**
@@ -123,38 +168,103 @@ public class MainSocketHandler implements WebSocketHandler {
 
     /**
      * Broadcasts a message to all connected WebSocket sessions.
+     * A session that fails to receive the message does not stop the broadcast to the others.
      *
      * @param message The message to broadcast.
-     * @throws IOException If an I/O error occurs while sending the message.
      */
-    public void broadcastMessage(String message) throws IOException {
-        sessions.forEach((key, session) -> {
-            try {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(message));
-                }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        });
+    public void broadcastMessage(String message) {
+        TextMessage textMessage = new TextMessage(message);
+        sessionRegistry.forEachSession(session -> send(session, textMessage));
     }
 
     /**
-     * Sends a message to a specific user's WebSocket session.
+     * Sends a message to every WebSocket session of a specific user.
      *
      * @param userName The username of the user to whom the message should be sent.
      * @param message  The message to send.
+     * @return True if at least one session received the message.
      */
-    public void sendMessage(String userName, String message) {
-        WebSocketSession session = sessions.get(userName);
-        if (session == null) {
-            return;
+    public boolean sendMessage(String userName, String message) {
+        TextMessage textMessage = new TextMessage(message);
+        boolean sent = false;
+        for (WebSocketSession session : sessionRegistry.getSessions(userName)) {
+            sent |= send(session, textMessage);
+        }
+        return sent;
+    }
+
+    /**
+     * Sends a message to a single session. The message is appended to the outbound buffer of the session and written
+     * by whichever thread is currently flushing it. A session whose client cannot keep up is closed.
+     *
+     * @param session The WebSocket session.
+     * @param message The message to send.
+     * @return True if the session received the message.
+     */
+    public boolean send(WebSocketSession session, TextMessage message) {
+        if (!session.isOpen()) {
+            unregister(session);
+            return false;
         }
         try {
-            session.sendMessage(new TextMessage(message));
+            session.sendMessage(message);
+            deliveryMetrics.recordDelivered();
+            return true;
+        } catch (SessionLimitExceededException e) {
+            System.out.println("Closing slow session " + session.getId() + " with reason ### " + e.getMessage());
+            deliveryMetrics.recordDisconnected();
+            unregister(session);
+            close(session, e.getStatus());
         } catch (IOException e) {
-            throw new GeneralException(e);
+            System.out.println("Sending to session " + session.getId() + " failed with reason ### " + e.getMessage());
+            deliveryMetrics.recordFailed();
         }
+        return false;
     }
-}
 
+    /**
+     * Sends the undelivered notifications of a user to a session as a single frame of the form
+     * {@code {"type": "inbox", "notifications": [...]}}. The notifications are only marked as delivered once the frame
+     * was sent; a failing replay does not close the session, and the notifications stay undelivered.
+     *
+     * @param username The username of the user.
+     * @param session  The WebSocket session.
+     */
+    private void replayInbox(String username, WebSocketSession session) {
+        try {
+            List<NotificationDTO> notifications = notificationInboxService.findUndelivered(username);
+            if (!notifications.isEmpty() && send(session, new TextMessage(objectMapper.writeValueAsString(
+                    Map.of("type", "inbox", "notifications", notifications))))) {
+                notificationInboxService.markDelivered(notifications.stream().map(NotificationDTO::getId).toList());
+            }
+        } catch (DataAccessException | JsonProcessingException e) {
+            System.out.println("Replaying the inbox of " + username + " failed with reason ### " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes a session from the registry, and tells the relay when it was the last session of its user on this node.
+     *
+     * @param session The WebSocket session.
+     */
+    private void unregister(WebSocketSession session) {
+        String username = sessionRegistry.unregister(session);
+        if (username != null && !sessionRegistry.isConnected(username)) {
+            notificationRelay.userDisconnected(username);
+        }
+    }
+
+    /**
+     * Closes a session, ignoring failures of a connection that is already broken.
+     *
+     * @param session The WebSocket session.
+     * @param status  The close status sent to the client.
+     */
+    private void close(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            System.out.println("Closing session " + session.getId() + " failed with reason ### " + e.getMessage());
+        }
+    }
+}
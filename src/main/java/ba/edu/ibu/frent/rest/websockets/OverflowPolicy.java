@@ -0,0 +1,28 @@
+package ba.edu.ibu.frent.rest.websockets;
+
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+/**
+ * What to do when a client reads its messages slower than they are produced and its outbound buffer is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Drop the oldest buffered messages until the buffer fits its limit again.
+     */
+    DROP_OLDEST(OverflowStrategy.DROP),
+
+    /**
+     * Close the session of the slow client.
+     */
+    DISCONNECT(OverflowStrategy.TERMINATE);
+
+    private final OverflowStrategy strategy;
+
+    OverflowPolicy(OverflowStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public OverflowStrategy getStrategy() {
+        return strategy;
+    }
+}
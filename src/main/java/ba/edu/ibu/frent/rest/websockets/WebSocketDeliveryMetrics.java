@@ -0,0 +1,60 @@
+package ba.edu.ibu.frent.rest.websockets;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the outcome of outbound WebSocket messages, updated concurrently by the notification workers.
+ */
+@Component
+public class WebSocketDeliveryMetrics {
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Record a message accepted by the outbound buffer of a session.
+     */
+    public void recordDelivered() {
+        delivered.increment();
+    }
+
+    /**
+     * Record a message that could not be written to its session.
+     */
+    public void recordFailed() {
+        failed.increment();
+    }
+
+    /**
+     * Record a session closed because its client could not keep up.
+     */
+    public void recordDisconnected() {
+        disconnected.increment();
+    }
+
+    /**
+     * Record a message dropped because the notification workers were saturated.
+     */
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getDisconnected() {
+        return disconnected.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,106 @@
+package ba.edu.ibu.frent.rest.websockets;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe registry of the open WebSocket sessions, grouped by username.
+ * A user may have any number of sessions, for example one per browser tab. Registration and removal for a user
+ * happen under the lock of that user's hash bin only, so connection churn for different users does not contend,
+ * and readers iterate over concurrent maps that never throw {@code ConcurrentModificationException}.
+ */
+@Component
+public class WebSocketSessionRegistry {
+    private final ConcurrentMap<String, Map<String, WebSocketSession>> sessionsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> usernamesBySessionId = new ConcurrentHashMap<>();
+
+    /**
+     * Register an open session for a user.
+     *
+     * @param username The username of the user the session belongs to.
+     * @param session  The WebSocket session.
+     */
+    public void register(String username, WebSocketSession session) {
+        usernamesBySessionId.put(session.getId(), username);
+        sessionsByUser.compute(username, (user, sessions) -> {
+            Map<String, WebSocketSession> userSessions = sessions != null ? sessions : new ConcurrentHashMap<>();
+            userSessions.put(session.getId(), session);
+            return userSessions;
+        });
+    }
+
+    /**
+     * Remove a session. Removing a session that is not registered has no effect, and the entry of a user
+     * is dropped together with their last session.
+     *
+     * @param session The WebSocket session.
+     * @return The username the session belonged to, or null if it was not registered.
+     */
+    public String unregister(WebSocketSession session) {
+        String username = usernamesBySessionId.remove(session.getId());
+        if (username == null) {
+            return null;
+        }
+        sessionsByUser.computeIfPresent(username, (user, sessions) -> {
+            sessions.remove(session.getId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+        return username;
+    }
+
+    /**
+     * Get the open sessions of a user.
+     *
+     * @param username The username of the user.
+     * @return The sessions of the user, or an empty collection if the user is not connected.
+     */
+    public Collection<WebSocketSession> getSessions(String username) {
+        Map<String, WebSocketSession> sessions = sessionsByUser.get(username);
+        return sessions != null ? List.copyOf(sessions.values()) : List.of();
+    }
+
+    /**
+     * Check whether a user has at least one open session.
+     *
+     * @param username The username of the user.
+     * @return True if the user is connected, false otherwise.
+     */
+    public boolean isConnected(String username) {
+        return sessionsByUser.containsKey(username);
+    }
+
+    /**
+     * Get the usernames of the users with at least one open session.
+     *
+     * @return A snapshot of the connected usernames.
+     */
+    public Set<String> getUsernames() {
+        return Set.copyOf(sessionsByUser.keySet());
+    }
+
+    /**
+     * Perform an action for every registered session.
+     *
+     * @param action The action to perform.
+     */
+    public void forEachSession(Consumer<WebSocketSession> action) {
+        sessionsByUser.values().forEach(sessions -> sessions.values().forEach(action));
+    }
+
+    /**
+     * Get the number of registered sessions.
+     *
+     * @return The number of sessions.
+     */
+    public int getSessionCount() {
+        return usernamesBySessionId.size();
+    }
+}
@@ -0,0 +1,69 @@
+package ba.edu.ibu.frent.api.impl.mailsender;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class MailgunSenderTest {
+
+    private MockRestServiceServer server;
+    private MailgunSender mailgunSender;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setUriTemplateHandler(new DefaultUriBuilderFactory("https://mailgun.test/v3/frent"));
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        mailgunSender = new MailgunSender(restTemplate, "frent@mail.com", new ObjectMapper());
+    }
+
+    @Test
+    void shouldSendOneBatchMessageToEveryRecipient() {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("from", "frent@mail.com");
+        form.add("to", "first@mail.com");
+        form.add("to", "second@mail.com");
+        form.add("subject", "subject");
+        form.add("text", "message");
+        form.add("recipient-variables", "{\"first@mail.com\":{},\"second@mail.com\":{}}");
+        server.expect(requestTo("https://mailgun.test/v3/frent/messages"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().formData(form))
+                .andRespond(withSuccess("{\"message\":\"Queued. Thank you.\"}", MediaType.APPLICATION_JSON));
+
+        String response = mailgunSender.send(List.of("first@mail.com", "{\"email\":\"second@mail.com\"}", "first@mail.com"), "message", "subject");
+
+        assertTrue(response.contains("Queued"));
+        server.verify();
+    }
+
+    @Test
+    void shouldPropagateProviderErrors() {
+        server.expect(requestTo("https://mailgun.test/v3/frent/messages"))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThrows(HttpServerErrorException.class, () -> mailgunSender.send(List.of("first@mail.com"), "message", "subject"));
+    }
+
+    @Test
+    void shouldExtractAddressesFromPlainAndJsonRecipients() {
+        assertEquals(List.of("first@mail.com", "second@mail.com"),
+                mailgunSender.extractEmailAddresses(List.of("first@mail.com", "{\"email\":\"second@mail.com\"}", "{broken", "first@mail.com")));
+    }
+}
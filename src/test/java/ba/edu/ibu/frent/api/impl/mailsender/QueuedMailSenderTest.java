@@ -0,0 +1,135 @@
+package ba.edu.ibu.frent.api.impl.mailsender;
+
+import ba.edu.ibu.frent.core.model.OutboundMail;
+import ba.edu.ibu.frent.core.model.enums.MailStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueuedMailSenderTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final MailgunSender mailgunSender = Mockito.spy(new MailgunSender(null, "frent@mail.com", new ObjectMapper()));
+    private QueuedMailSender queuedMailSender;
+
+    private static OutboundMail claimed(int attempts) {
+        OutboundMail mail = new OutboundMail(List.of("first@mail.com"), "subject", "message");
+        mail.setId("id");
+        mail.setStatus(MailStatus.SENDING);
+        mail.setAttempts(attempts);
+        return mail;
+    }
+
+    private Object recordedStatus() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(mongoTemplate).updateFirst(ArgumentMatchers.any(Query.class), update.capture(), ArgumentMatchers.eq(OutboundMail.class));
+        return update.getValue().getUpdateObject().get("$set", Document.class).get("status");
+    }
+
+    @BeforeEach
+    void setUp() {
+        queuedMailSender = new QueuedMailSender(mongoTemplate, mailgunSender, Mockito.mock(ThreadPoolTaskExecutor.class),
+                2, 2, 3, 1000, 5000, 60000, 7);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldQueueRecipientsInChunks() {
+        List<String> recipients = IntStream.range(0, 5).mapToObj(i -> "user" + i + "@mail.com").toList();
+
+        queuedMailSender.send(recipients, "message", "subject");
+
+        ArgumentCaptor<Collection<OutboundMail>> mails = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(mongoTemplate).insertAll(mails.capture());
+        assertEquals(List.of(2, 2, 1), mails.getValue().stream().map(mail -> mail.getRecipients().size()).toList());
+        Mockito.verify(mailgunSender, Mockito.never()).send(ArgumentMatchers.anyList(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+    }
+
+    @Test
+    void shouldBackOffExponentiallyUpToTheLimit() {
+        assertEquals(1000, QueuedMailSender.backoffMillis(1, 1000, 5000));
+        assertEquals(2000, QueuedMailSender.backoffMillis(2, 1000, 5000));
+        assertEquals(4000, QueuedMailSender.backoffMillis(3, 1000, 5000));
+        assertEquals(5000, QueuedMailSender.backoffMillis(4, 1000, 5000));
+        assertEquals(5000, QueuedMailSender.backoffMillis(100, 1000, 5000));
+    }
+
+    @Test
+    void shouldMarkDeliveredMailsAsSent() {
+        Mockito.doReturn("ok").when(mailgunSender).send(ArgumentMatchers.anyList(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+
+        queuedMailSender.deliver(claimed(1));
+
+        assertEquals(MailStatus.SENT, recordedStatus());
+    }
+
+    @Test
+    void shouldRetryTransientFailures() {
+        Mockito.doThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .when(mailgunSender).send(ArgumentMatchers.anyList(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+
+        queuedMailSender.deliver(claimed(1));
+
+        assertEquals(MailStatus.PENDING, recordedStatus());
+    }
+
+    @Test
+    void shouldGiveUpOnRejectedRequestsAndExhaustedAttempts() {
+        Mockito.doThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST))
+                .when(mailgunSender).send(ArgumentMatchers.anyList(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+
+        queuedMailSender.deliver(claimed(1));
+
+        assertEquals(MailStatus.FAILED, recordedStatus());
+        assertEquals(1, queuedMailSender.getStats().getFailedSinceStartup());
+    }
+
+    @Test
+    void shouldGiveUpOnServerErrorsOnceTheAttemptsAreExhausted() {
+        Mockito.doThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .when(mailgunSender).send(ArgumentMatchers.anyList(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+
+        queuedMailSender.deliver(claimed(3));
+
+        assertGivenUp();
+    }
+
+    @Test
+    void shouldGiveUpOnConnectionFailuresOnceTheAttemptsAreExhausted() {
+        Mockito.doThrow(new ResourceAccessException("I/O error", new IOException("Connection reset")))
+                .when(mailgunSender).send(ArgumentMatchers.anyList(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+
+        queuedMailSender.deliver(claimed(3));
+
+        assertGivenUp();
+    }
+
+    private void assertGivenUp() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(mongoTemplate).updateFirst(ArgumentMatchers.any(Query.class), update.capture(), ArgumentMatchers.eq(OutboundMail.class));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(MailStatus.FAILED, set.get("status"));
+        assertFalse(set.containsKey("nextAttemptAt"));
+        assertEquals(1, queuedMailSender.getStats().getFailedSinceStartup());
+        assertEquals(0, queuedMailSender.getStats().getRetriedSinceStartup());
+    }
+}
@@ -0,0 +1,173 @@
+package ba.edu.ibu.frent.api.impl.notifications;
+
+import ba.edu.ibu.frent.core.api.notifications.RemoteNotificationEvent;
+import ba.edu.ibu.frent.core.model.RelayedNotification;
+import ba.edu.ibu.frent.core.model.WebSocketRoute;
+import ba.edu.ibu.frent.rest.websockets.WebSocketSessionRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoNotificationRelayTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final WebSocketSessionRegistry sessionRegistry = new WebSocketSessionRegistry();
+    private final ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+    private final ThreadPoolTaskExecutor notificationExecutor = Mockito.mock(ThreadPoolTaskExecutor.class);
+    private final BulkOperations bulkOperations = Mockito.mock(BulkOperations.class);
+    private final List<Runnable> pendingWrites = new ArrayList<>();
+    private MongoNotificationRelay relay;
+
+    private static WebSocketRoute route(String username, String nodeId) {
+        WebSocketRoute route = new WebSocketRoute();
+        route.setUsername(username);
+        route.setNodeId(nodeId);
+        return route;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Mockito.doAnswer(invocation -> pendingWrites.add(invocation.getArgument(0)))
+                .when(notificationExecutor).execute(ArgumentMatchers.any(Runnable.class));
+        Mockito.when(mongoTemplate.bulkOps(ArgumentMatchers.any(BulkOperations.BulkMode.class), ArgumentMatchers.<Class<?>>any()))
+                .thenReturn(bulkOperations);
+        relay = new MongoNotificationRelay(mongoTemplate, sessionRegistry, eventPublisher, notificationExecutor,
+                Mockito.mock(TaskScheduler.class), "node1", 1024, 1000);
+    }
+
+    private void runPendingWrites() {
+        while (!pendingWrites.isEmpty()) {
+            pendingWrites.remove(0).run();
+        }
+    }
+
+    @Test
+    void shouldWriteOneNotificationPerOtherNodeOfTheUser() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(WebSocketRoute.class)))
+                .thenReturn(List.of(route("user", "node2"), route("user", "node3")));
+
+        relay.sendToUser("user", "message", "n1");
+        runPendingWrites();
+
+        ArgumentCaptor<Update> notifications = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(bulkOperations, Mockito.times(2)).upsert(ArgumentMatchers.any(Query.class), notifications.capture());
+        assertEquals(List.of("node2", "node3"), notifications.getAllValues().stream()
+                .map(update -> update.getUpdateObject().get("$set", Document.class).getString("targetNode"))
+                .toList());
+        assertEquals("n1", notifications.getValue().getUpdateObject().get("$set", Document.class).getString("notificationId"));
+        assertTrue(notifications.getValue().getUpdateObject().containsKey("$currentDate"));
+        Mockito.verify(bulkOperations).execute();
+    }
+
+    @Test
+    void shouldNotWriteAnythingForUsersConnectedNowhereElse() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(WebSocketRoute.class)))
+                .thenReturn(List.of());
+
+        relay.sendToUser("user", "message", "n1");
+        runPendingWrites();
+
+        Mockito.verifyNoInteractions(bulkOperations);
+    }
+
+    @Test
+    void shouldLookUpTheNodesOfAllCollectedNotificationsAtOnce() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(WebSocketRoute.class)))
+                .thenReturn(List.of(route("first", "node2"), route("second", "node2")));
+
+        relay.sendToUser("first", "message", "n1");
+        relay.sendToUser("second", "message", "n2");
+        relay.sendToUser("third", "message", "n3");
+        assertEquals(1, pendingWrites.size());
+        runPendingWrites();
+
+        Mockito.verify(mongoTemplate).find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(WebSocketRoute.class));
+        Mockito.verify(bulkOperations, Mockito.times(2)).upsert(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class));
+    }
+
+    @Test
+    void shouldRewriteTheRoutesOfAllConnectedUsersOnEveryHeartbeat() {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn("1");
+        sessionRegistry.register("user", session);
+
+        relay.heartbeat();
+
+        ArgumentCaptor<Query> route = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(bulkOperations).upsert(route.capture(), ArgumentMatchers.any(Update.class));
+        assertEquals("node1:user", route.getValue().getQueryObject().get("_id"));
+        Mockito.verify(bulkOperations).execute();
+        Mockito.verify(mongoTemplate).remove(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(WebSocketRoute.class));
+    }
+
+    @Test
+    void shouldWriteRoutesOffTheSessionThread() {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn("1");
+        sessionRegistry.register("user", session);
+
+        relay.userConnected("user");
+
+        Mockito.verifyNoInteractions(mongoTemplate);
+        assertEquals(1, pendingWrites.size());
+        runPendingWrites();
+
+        ArgumentCaptor<Query> route = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(bulkOperations).upsert(route.capture(), ArgumentMatchers.any(Update.class));
+        assertEquals("node1:user", route.getValue().getQueryObject().get("_id"));
+        Mockito.verify(bulkOperations, Mockito.never()).remove(ArgumentMatchers.any(Query.class));
+        Mockito.verify(bulkOperations).execute();
+    }
+
+    @Test
+    void shouldWriteOnlyTheLastRouteChangeOfAUser() {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn("1");
+        sessionRegistry.register("user", session);
+        relay.userConnected("user");
+        sessionRegistry.unregister(session);
+        relay.userDisconnected("user");
+        relay.userConnected("other");
+
+        assertEquals(1, pendingWrites.size());
+        runPendingWrites();
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(bulkOperations, Mockito.times(2)).remove(removed.capture());
+        assertEquals(List.of("node1:other", "node1:user"), removed.getAllValues().stream()
+                .map(query -> query.getQueryObject().getString("_id")).sorted().toList());
+        Mockito.verify(bulkOperations, Mockito.never()).upsert(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class));
+        Mockito.verify(bulkOperations).execute();
+    }
+
+    @Test
+    void shouldOnlyPublishNotificationsForThisNode() {
+        relay.receive(new RelayedNotification("node2", "node1", "user", "mine", "n1"));
+        relay.receive(new RelayedNotification("node2", "node3", "user", "other", "n2"));
+        relay.receive(new RelayedNotification("node2", null, null, "broadcast", null));
+        relay.receive(new RelayedNotification("node1", null, null, "own broadcast", null));
+
+        ArgumentCaptor<RemoteNotificationEvent> events = ArgumentCaptor.forClass(RemoteNotificationEvent.class);
+        Mockito.verify(eventPublisher, Mockito.times(2)).publishEvent(events.capture());
+        assertEquals(List.of("mine", "broadcast"),
+                events.getAllValues().stream().map(RemoteNotificationEvent::getMessage).toList());
+        assertEquals("n1", events.getAllValues().get(0).getNotificationId());
+        assertTrue(events.getAllValues().get(1).isBroadcast());
+    }
+}
@@ -0,0 +1,97 @@
+package ba.edu.ibu.frent.core.cache;
+
+import ba.edu.ibu.frent.core.model.ChangeStreamToken;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.model.User;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheInvalidationBusTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+    private final CacheInvalidationBus bus = createBus();
+
+    private CacheInvalidationBus createBus() {
+        Mockito.when(mongoTemplate.getCollectionName(Movie.class)).thenReturn("movie");
+        Mockito.when(mongoTemplate.getCollectionName(User.class)).thenReturn("user");
+        Mockito.when(mongoTemplate.getCollectionName(Rental.class)).thenReturn("rental");
+        return new CacheInvalidationBus(mongoTemplate, eventPublisher, Mockito.mock(TaskScheduler.class), "node1", 5000);
+    }
+
+    private static BsonDocument key(ObjectId id) {
+        return new BsonDocument("_id", new BsonObjectId(id));
+    }
+
+    @Test
+    void shouldPublishTheIdOfTheWrittenDocument() {
+        ObjectId id = new ObjectId();
+
+        assertTrue(bus.publish("movie", OperationType.UPDATE, key(id), null, null));
+
+        ArgumentCaptor<CacheInvalidationEvent> event = ArgumentCaptor.forClass(CacheInvalidationEvent.class);
+        Mockito.verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().concerns(Movie.class));
+        assertEquals(id.toHexString(), event.getValue().getDocumentId());
+        assertFalse(event.getValue().isDeleted());
+    }
+
+    @Test
+    void shouldInvalidateTheWholeCollectionWhenTheStreamEnds() {
+        assertFalse(bus.publish("user", OperationType.INVALIDATE, null, null, null));
+
+        ArgumentCaptor<CacheInvalidationEvent> event = ArgumentCaptor.forClass(CacheInvalidationEvent.class);
+        Mockito.verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().concerns(User.class));
+        assertTrue(event.getValue().isAll());
+    }
+
+    @Test
+    void shouldStoreOnlyTheLatestTokenOfACollectionOnce() {
+        bus.publish("rental", OperationType.INSERT, key(new ObjectId()), null, new BsonDocument("_data", new BsonString("1")));
+        bus.publish("rental", OperationType.DELETE, key(new ObjectId()), null, new BsonDocument("_data", new BsonString("2")));
+
+        bus.flushTokens();
+        bus.flushTokens();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(mongoTemplate, Mockito.times(1))
+                .upsert(query.capture(), update.capture(), ArgumentMatchers.eq(ChangeStreamToken.class));
+        assertEquals("node1:rental", query.getValue().getQueryObject().get("_id"));
+        assertTrue(update.getValue().getUpdateObject().toJson().contains("\"2\""));
+    }
+
+    @Test
+    void shouldDropAMovieWrittenOnAnotherNodeFromTheCache() {
+        MovieRepository movieRepository = Mockito.mock(MovieRepository.class);
+        MovieCache movieCache = new MovieCache(movieRepository, 100, 60);
+        Movie movie = new Movie();
+        movie.setId("a");
+        Mockito.when(movieRepository.findById("a")).thenReturn(Optional.of(movie));
+        movieCache.get("a");
+
+        movieCache.onInvalidation(new CacheInvalidationEvent(User.class, "a", false, null));
+        assertEquals(1, movieCache.getStats().getSize());
+        movieCache.onInvalidation(new CacheInvalidationEvent(Movie.class, "a", false, null));
+        assertEquals(0, movieCache.getStats().getSize());
+    }
+}
@@ -0,0 +1,125 @@
+package ba.edu.ibu.frent.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void shouldExpireEntriesAfterTheTimeToLive() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 100, now::get);
+        cache.put("key", "value");
+
+        now.addAndGet(99);
+        assertEquals("value", cache.get("key"));
+        now.addAndGet(1);
+        assertNull(cache.get("key"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void shouldNeverKeepAnEntryPastItsOwnExpiry() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 100, now::get);
+        cache.put("key", "value", now.get() + 10);
+
+        now.addAndGet(10);
+        assertNull(cache.get("key"));
+
+        cache.put("expired", "value", now.get() - 1);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyReadEntry() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, 100, now::get);
+        cache.put("a", "1");
+        now.incrementAndGet();
+        cache.put("b", "2");
+        now.incrementAndGet();
+        cache.get("a");
+        now.incrementAndGet();
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void shouldInvalidateMatchingEntries() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 100, now::get);
+        cache.put("a", "user1");
+        cache.put("b", "user2");
+        cache.put("c", "user1");
+
+        assertEquals(2, cache.invalidateIf((key, value) -> value.equals("user1")));
+        assertEquals("user2", cache.get("b"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void shouldFreeATenthOfTheCacheAndDropExpiredEntriesFirst() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 100, now::get);
+        cache.put("expiring", "value", now.get() + 5);
+        for (int i = 0; i < 9; i++) {
+            now.incrementAndGet();
+            cache.put("key" + i, "value");
+        }
+        now.addAndGet(10);
+        cache.put("last", "value");
+
+        assertEquals(9, cache.size());
+        assertNull(cache.get("key0"));
+        assertEquals("value", cache.get("key1"));
+        assertEquals("value", cache.get("last"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void shouldOnlyRemoveTheGivenValue() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 100, now::get);
+        String first = new String("value");
+        String second = new String("value");
+        cache.put("key", second);
+
+        cache.invalidate("key", first);
+        assertSame(second, cache.get("key"));
+        cache.invalidate("key", second);
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void shouldStayConsistentUnderConcurrentReadsAndWrites() throws InterruptedException {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100, 60_000);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    int key = (i * 31 + offset) % 500;
+                    Integer value = cache.get(key);
+                    if (value != null) {
+                        assertEquals(key, value);
+                    } else {
+                        cache.put(key, key);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, cache.getHits() + cache.getMisses());
+        // Puts that raced with a running sweep may leave the cache over its size until the next put sweeps it
+        cache.put(-1, -1);
+        assertTrue(cache.size() <= 100);
+    }
+}
@@ -0,0 +1,93 @@
+package ba.edu.ibu.frent.core.cache;
+
+import ba.edu.ibu.frent.core.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtPrincipalCacheTest {
+
+    private final JwtPrincipalCache jwtPrincipalCache = new JwtPrincipalCache(100, 60);
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        return user;
+    }
+
+    @Test
+    void shouldCacheATokenWithoutAnExpirationForTheTimeToLive() {
+        User user = user("user");
+
+        jwtPrincipalCache.put("token", user, null, jwtPrincipalCache.generation("user"));
+
+        assertSame(user, jwtPrincipalCache.get("token"));
+    }
+
+    @Test
+    void shouldNotCacheAnExpiredToken() {
+        jwtPrincipalCache.put("token", user("user"), new Date(System.currentTimeMillis() - 1000), 0);
+
+        assertNull(jwtPrincipalCache.get("token"));
+    }
+
+    @Test
+    void shouldForgetTheTokensOfAnInvalidatedUser() {
+        jwtPrincipalCache.put("first", user("user"), new Date(System.currentTimeMillis() + 60_000), 0);
+        jwtPrincipalCache.put("second", user("other"), null, 0);
+
+        jwtPrincipalCache.invalidateUser("user");
+
+        assertNull(jwtPrincipalCache.get("first"));
+        assertNotNull(jwtPrincipalCache.get("second"));
+    }
+
+    @Test
+    void shouldNotCacheAPrincipalLoadedBeforeItsUserWasInvalidated() {
+        long generation = jwtPrincipalCache.generation("user");
+        User loaded = user("user");
+
+        jwtPrincipalCache.invalidateUser("user");
+        jwtPrincipalCache.put("token", loaded, null, generation);
+
+        assertNull(jwtPrincipalCache.get("token"));
+        jwtPrincipalCache.put("token", loaded, null, jwtPrincipalCache.generation("user"));
+        assertSame(loaded, jwtPrincipalCache.get("token"));
+    }
+
+    @Test
+    void shouldNotCacheAPrincipalLoadedBeforeTheCacheWasCleared() {
+        long generation = jwtPrincipalCache.generation("user");
+
+        jwtPrincipalCache.clear();
+        jwtPrincipalCache.put("token", user("user"), null, generation);
+
+        assertNull(jwtPrincipalCache.get("token"));
+    }
+
+    @Test
+    void shouldKeepCachingTheOtherUsersAfterAnInvalidation() {
+        long generation = jwtPrincipalCache.generation("other");
+
+        jwtPrincipalCache.invalidateUser("user");
+        jwtPrincipalCache.put("token", user("other"), null, generation);
+
+        assertNotNull(jwtPrincipalCache.get("token"));
+    }
+
+    @Test
+    void shouldInvalidateEveryTokenOfAUserAfterThePruning() {
+        jwtPrincipalCache.put("first", user("user"), null, 0);
+        jwtPrincipalCache.put("second", user("user"), new Date(System.currentTimeMillis() + 60_000), 0);
+        jwtPrincipalCache.put("third", user("other"), null, 0);
+
+        jwtPrincipalCache.pruneIndex();
+        jwtPrincipalCache.invalidateUser("user");
+
+        assertNull(jwtPrincipalCache.get("first"));
+        assertNull(jwtPrincipalCache.get("second"));
+        assertNotNull(jwtPrincipalCache.get("third"));
+    }
+}
@@ -0,0 +1,61 @@
+package ba.edu.ibu.frent.core.cache;
+
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieCacheTest {
+
+    private final MovieRepository movieRepository = Mockito.mock(MovieRepository.class);
+    private final MovieCache movieCache = new MovieCache(movieRepository, 100, 60);
+
+    private static Movie movie(String id) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        return movie;
+    }
+
+    @Test
+    void shouldLoadAMovieOnlyOnce() {
+        Mockito.when(movieRepository.findById("a")).thenReturn(Optional.of(movie("a")));
+
+        movieCache.get("a");
+        movieCache.get("a");
+
+        Mockito.verify(movieRepository, Mockito.times(1)).findById("a");
+        assertEquals(1, movieCache.getStats().getHits());
+        assertEquals(1, movieCache.getStats().getMisses());
+    }
+
+    @Test
+    void shouldLoadOnlyTheMissingMoviesWithOneQuery() {
+        Mockito.when(movieRepository.findById("a")).thenReturn(Optional.of(movie("a")));
+        Mockito.when(movieRepository.findAllById(List.of("b", "c"))).thenReturn(List.of(movie("b")));
+        movieCache.get("a");
+
+        List<Movie> movies = movieCache.getAll(List.of("a", "b", "c"));
+
+        assertEquals(List.of("a", "b"), movies.stream().map(Movie::getId).toList());
+        Mockito.verify(movieRepository, Mockito.times(1)).findAllById(ArgumentMatchers.any());
+    }
+
+    @Test
+    void shouldNotCacheAMovieLoadedWhileTheCatalogChanged() {
+        Mockito.when(movieRepository.findById("a")).thenAnswer(invocation -> {
+            movieCache.invalidate("a");
+            return Optional.of(movie("a"));
+        });
+
+        movieCache.get("a");
+
+        assertEquals(0, movieCache.getStats().getSize());
+        assertEquals(1, movieCache.getStats().getCatalogVersion());
+    }
+}
@@ -0,0 +1,61 @@
+package ba.edu.ibu.frent.core.index;
+
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.service.RentalSummaryService;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateRentalMigrationTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final RentalSummaryService rentalSummaryService = Mockito.mock(RentalSummaryService.class);
+    private final DuplicateRentalMigration migration = new DuplicateRentalMigration(mongoTemplate, rentalSummaryService);
+
+    @Test
+    void shouldReturnAllButTheOldestActiveRentalOfAMovie() {
+        ObjectId oldest = new ObjectId("650000000000000000000001");
+        ObjectId newer = new ObjectId("650000000000000000000002");
+        ObjectId newest = new ObjectId("650000000000000000000003");
+        Document group = new Document("_id", new Document("username", "alice").append("movieId", "m1"))
+                .append("ids", List.of(newest, oldest, newer))
+                .append("count", 3);
+        Mockito.when(mongoTemplate.aggregate(ArgumentMatchers.any(Aggregation.class), ArgumentMatchers.eq(Rental.class), ArgumentMatchers.eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(group), new Document()));
+        Mockito.when(mongoTemplate.updateMulti(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class), ArgumentMatchers.eq(Rental.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        migration.migrate();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(mongoTemplate).updateMulti(query.capture(), update.capture(), ArgumentMatchers.eq(Rental.class));
+        assertEquals(List.of(newer, newest), query.getValue().getQueryObject().get("_id", Document.class).get("$in"));
+        assertEquals(true, update.getValue().getUpdateObject().get("$set", Document.class).get("returned"));
+        Mockito.verify(rentalSummaryService).recordRentalsReturned("alice", 2);
+    }
+
+    @Test
+    void shouldDoNothingWithoutDuplicates() {
+        Mockito.when(mongoTemplate.aggregate(ArgumentMatchers.any(Aggregation.class), ArgumentMatchers.eq(Rental.class), ArgumentMatchers.eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        migration.migrate();
+
+        Mockito.verifyNoInteractions(rentalSummaryService);
+        Mockito.verify(mongoTemplate, Mockito.never()).updateMulti(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class), ArgumentMatchers.eq(Rental.class));
+    }
+}
@@ -0,0 +1,125 @@
+package ba.edu.ibu.frent.core.index;
+
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.model.User;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexManagerTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final IndexOperations indexOps = Mockito.mock(IndexOperations.class);
+    private final IndexMigration migration = Mockito.mock(IndexMigration.class);
+    private IndexManager indexManager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(Set.of(Rental.class, User.class));
+        mappingContext.initialize();
+        Mockito.when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        Mockito.when(mongoTemplate.indexOps(ArgumentMatchers.anyString())).thenReturn(indexOps);
+        Mockito.when(mongoTemplate.getCollection(ArgumentMatchers.anyString()))
+                .thenReturn(Mockito.mock(MongoCollection.class, Mockito.RETURNS_DEEP_STUBS));
+        indexManager = new IndexManager(mongoTemplate, List.of(migration));
+    }
+
+    private static Document options(List<IndexDefinition> indexes, String name) {
+        return indexes.stream()
+                .map(IndexDefinition::getIndexOptions)
+                .filter(options -> name.equals(options.getString("name")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void shouldCreateTheDeclaredIndexes() {
+        indexManager.ensureIndexes();
+
+        ArgumentCaptor<IndexDefinition> indexes = ArgumentCaptor.forClass(IndexDefinition.class);
+        InOrder inOrder = Mockito.inOrder(migration, indexOps);
+        inOrder.verify(migration).migrate();
+        inOrder.verify(indexOps, Mockito.atLeastOnce()).ensureIndex(indexes.capture());
+        assertEquals(new Document("returned", false), options(indexes.getAllValues(), "dueDate_1").get("partialFilterExpression"));
+        assertEquals(new Document("returned", false), options(indexes.getAllValues(), "username_1_movieId_1").get("partialFilterExpression"));
+        assertEquals(true, options(indexes.getAllValues(), "username_1").get("unique"));
+        assertEquals(true, options(indexes.getAllValues(), "email_1").get("unique"));
+        options(indexes.getAllValues(), "wishlist_1");
+    }
+
+    private static boolean named(IndexDefinition index, String name) {
+        return index != null && name.equals(index.getIndexOptions().getString("name"));
+    }
+
+    @Test
+    void shouldBuildTheReplacementBeforeDroppingAnIndexWhoseDefinitionChanged() {
+        Mockito.when(indexOps.ensureIndex(ArgumentMatchers.argThat(index -> named(index, "dueDate_1"))))
+                .thenThrow(new UncategorizedMongoDbException("Index with name: dueDate_1 already exists with different options", null));
+        Mockito.when(indexOps.getIndexInfo()).thenReturn(List.of(new IndexInfo(List.of(), "dueDate_1", false, false, null)));
+
+        indexManager.ensureIndexes();
+
+        InOrder inOrder = Mockito.inOrder(indexOps);
+        inOrder.verify(indexOps).ensureIndex(ArgumentMatchers.argThat(index -> named(index, "dueDate_1_next")));
+        inOrder.verify(indexOps).dropIndex("dueDate_1");
+        Mockito.verify(indexOps, Mockito.never()).dropIndex("username_1");
+        assertTrue(indexManager.hasIndex("rental", "dueDate_1"));
+    }
+
+    @Test
+    void shouldKeepTheOldIndexAndFailWhenTheReplacementCannotBeBuilt() {
+        Mockito.when(indexOps.ensureIndex(ArgumentMatchers.argThat(index -> named(index, "username_1_movieId_1"))))
+                .thenThrow(new UncategorizedMongoDbException("Index with name: username_1_movieId_1 already exists with different options", null));
+        Mockito.when(indexOps.ensureIndex(ArgumentMatchers.argThat(index -> named(index, "username_1_movieId_1_next"))))
+                .thenThrow(new UncategorizedMongoDbException("E11000 duplicate key error", null));
+        Mockito.when(indexOps.getIndexInfo()).thenReturn(List.of(new IndexInfo(List.of(), "username_1_movieId_1", false, false, null)));
+
+        assertThrows(IllegalStateException.class, () -> indexManager.ensureIndexes());
+
+        Mockito.verify(indexOps, Mockito.never()).dropIndex(ArgumentMatchers.anyString());
+        assertFalse(indexManager.hasIndex("rental", "username_1_movieId_1"));
+    }
+
+    @Test
+    void shouldFailWhenANewIndexCannotBeCreated() {
+        Mockito.when(indexOps.ensureIndex(ArgumentMatchers.argThat(index -> named(index, "email_1"))))
+                .thenThrow(new UncategorizedMongoDbException("E11000 duplicate key error", null));
+        Mockito.when(indexOps.getIndexInfo()).thenReturn(List.of());
+
+        assertThrows(IllegalStateException.class, () -> indexManager.ensureIndexes());
+    }
+
+    @Test
+    void shouldRecognizeAReplacementBuiltOnAnEarlierStart() {
+        Mockito.when(indexOps.ensureIndex(ArgumentMatchers.argThat(index -> named(index, "dueDate_1"))))
+                .thenThrow(new UncategorizedMongoDbException("Index already exists with a different name: dueDate_1_next", null));
+        Mockito.when(indexOps.getIndexInfo()).thenReturn(List.of(IndexInfo.indexInfoOf(new Document("name", "dueDate_1_next")
+                .append("key", new Document("dueDate", 1))
+                .append("partialFilterExpression", new Document("returned", false)))));
+
+        indexManager.ensureIndexes();
+
+        Mockito.verify(indexOps, Mockito.never()).dropIndex(ArgumentMatchers.anyString());
+        assertTrue(indexManager.hasIndex("rental", "dueDate_1"));
+    }
+}
@@ -0,0 +1,53 @@
+package ba.edu.ibu.frent.core.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(1000, START);
+
+    @Test
+    void shouldExpireKeysOnTheirTickAndNeverEarly() {
+        wheel.schedule("soon", START + 1500);
+        wheel.schedule("later", START + 5000);
+
+        assertTrue(wheel.advance(START + 1999).isEmpty());
+        assertEquals(List.of("soon"), wheel.advance(START + 2000));
+        assertEquals(List.of("later"), wheel.advance(START + 10_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void shouldCascadeDistantDeadlinesDownToTheirExactTick() {
+        long threeDays = 3L * 24 * 60 * 60 * 1000;
+        wheel.schedule("distant", START + threeDays + 250);
+
+        assertTrue(wheel.advance(START + threeDays).isEmpty());
+        assertEquals(List.of("distant"), wheel.advance(START + threeDays + 1000));
+    }
+
+    @Test
+    void shouldCancelAndReplaceDeadlines() {
+        wheel.schedule("cancelled", START + 3000);
+        wheel.schedule("moved", START + 3000);
+        wheel.schedule("moved", START + 90_000);
+
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("unknown"));
+        assertTrue(wheel.advance(START + 60_000).isEmpty());
+        assertEquals(List.of("moved"), wheel.advance(START + 90_000));
+    }
+
+    @Test
+    void shouldExpirePastDeadlinesOnTheNextTick() {
+        wheel.schedule("past", START - 60_000);
+
+        assertEquals(List.of("past"), wheel.advance(START + 1000));
+    }
+}
@@ -0,0 +1,73 @@
+package ba.edu.ibu.frent.core.search;
+
+import ba.edu.ibu.frent.core.cache.CacheInvalidationEvent;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.model.enums.Genre;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieSearchIndexTest {
+
+    private MovieRepository movieRepository;
+    private MovieSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        movieRepository = Mockito.mock(MovieRepository.class);
+        Mockito.when(movieRepository.findAll()).thenReturn(List.of(
+                new Movie("1", "The Godfather", "A mafia family drama", "s", "b", "Francis Ford Coppola", List.of(Genre.CRIME, Genre.DRAMA), 1972, true, 5.99, "v"),
+                new Movie("2", "Apocalypse Now", "A journey up the river", "s", "b", "Francis Ford Coppola", List.of(Genre.DRAMA), 1979, true, 4.99, "v"),
+                new Movie("3", "Interstellar", "Explorers travel through a wormhole", "s", "b", "Christopher Nolan", List.of(Genre.SCIENCE_FICTION), 2014, true, 6.99, "v")
+        ));
+        index = new MovieSearchIndex(movieRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void shouldMatchWordPrefixes() {
+        assertEquals(List.of("1"), index.search("god", 0, 10));
+        assertEquals(List.of("3"), index.search("WORM", 0, 10));
+    }
+
+    @Test
+    void shouldRequireEveryTermAndRankTitleMatchesFirst() {
+        assertEquals(List.of("2", "1"), index.search("coppola", 0, 10));
+        assertEquals(List.of("1"), index.search("coppola godfather", 0, 10));
+        assertEquals(List.of("3"), index.search("science fiction", 0, 10));
+    }
+
+    @Test
+    void shouldPaginateRankedResults() {
+        assertEquals(List.of("1"), index.search("drama", 0, 1));
+        assertEquals(List.of("2"), index.search("drama", 1, 1));
+        assertTrue(index.search("drama", 2, 1).isEmpty());
+    }
+
+    @Test
+    void shouldReflectUpdatesAndRemovals() {
+        index.index(new Movie("3", "Tenet", "Time inversion", "s", "b", "Christopher Nolan", List.of(Genre.ACTION), 2020, true, 6.99, "v"));
+        assertTrue(index.search("interstellar", 0, 10).isEmpty());
+        assertEquals(List.of("3"), index.search("tenet", 0, 10));
+
+        index.remove("3");
+        assertTrue(index.search("nolan", 0, 10).isEmpty());
+    }
+
+    @Test
+    void shouldApplyMoviesWrittenOnOtherNodes() {
+        Mockito.when(movieRepository.findById("4")).thenReturn(Optional.of(
+                new Movie("4", "Godzilla", "d", "s", "b", "Ishiro Honda", List.of(Genre.SCIENCE_FICTION), 1954, true, 2.99, "v")));
+
+        index.onInvalidation(new CacheInvalidationEvent(Movie.class, "4", false, null));
+        index.onInvalidation(new CacheInvalidationEvent(Movie.class, "1", true, null));
+
+        assertEquals(List.of("4"), index.search("god", 0, 10));
+    }
+}
@@ -0,0 +1,73 @@
+package ba.edu.ibu.frent.core.search;
+
+import ba.edu.ibu.frent.core.cache.CacheInvalidationEvent;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.model.enums.Genre;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieSuggestionTrieTest {
+
+    private MovieRepository movieRepository;
+    private MovieSuggestionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        movieRepository = Mockito.mock(MovieRepository.class);
+        Mockito.when(movieRepository.findAll()).thenReturn(List.of(
+                new Movie("1", "The Godfather", "d", "s", "b", "Francis Ford Coppola", List.of(Genre.CRIME), 1972, true, 5.99, "v"),
+                new Movie("2", "Apocalypse Now", "d", "s", "b", "Francis Ford Coppola", List.of(Genre.DRAMA), 1979, true, 4.99, "v"),
+                new Movie("3", "Gone Girl", "d", "s", "b", "David Fincher", List.of(Genre.THRILLER), 2014, true, 3.99, "v")
+        ));
+        trie = new MovieSuggestionTrie(movieRepository);
+        trie.rebuild();
+    }
+
+    @Test
+    void shouldCompleteFromAnyWord() {
+        assertEquals(List.of("The Godfather", "Gone Girl"), trie.suggest("go", 10));
+        assertEquals(List.of("The Godfather"), trie.suggest("THE  GOD", 10));
+        assertEquals(List.of("Francis Ford Coppola"), trie.suggest("ford", 10));
+    }
+
+    @Test
+    void shouldRespectTheLimit() {
+        assertEquals(1, trie.suggest("go", 1).size());
+        assertTrue(trie.suggest("", 10).isEmpty());
+    }
+
+    @Test
+    void shouldKeepSharedPhrasesUntilTheLastMovieIsRemoved() {
+        trie.remove("1");
+        assertEquals(List.of("Francis Ford Coppola"), trie.suggest("coppola", 10));
+        assertTrue(trie.suggest("godfather", 10).isEmpty());
+
+        trie.remove("2");
+        assertTrue(trie.suggest("coppola", 10).isEmpty());
+    }
+
+    @Test
+    void shouldReplacePhrasesOnUpdate() {
+        trie.index(new Movie("3", "Fight Club", "d", "s", "b", "David Fincher", List.of(Genre.DRAMA), 1999, true, 3.99, "v"));
+        assertEquals(List.of("The Godfather"), trie.suggest("go", 10));
+        assertEquals(List.of("Fight Club", "David Fincher"), trie.suggest("fi", 10));
+    }
+
+    @Test
+    void shouldApplyMoviesWrittenOnOtherNodes() {
+        Mockito.when(movieRepository.findById("4")).thenReturn(Optional.of(
+                new Movie("4", "Godzilla", "d", "s", "b", "Ishiro Honda", List.of(Genre.SCIENCE_FICTION), 1954, true, 2.99, "v")));
+
+        trie.onInvalidation(new CacheInvalidationEvent(Movie.class, "4", false, null));
+        trie.onInvalidation(new CacheInvalidationEvent(Movie.class, "1", true, null));
+
+        assertEquals(List.of("Godzilla"), trie.suggest("god", 10));
+    }
+}
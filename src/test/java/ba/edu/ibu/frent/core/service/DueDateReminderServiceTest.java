@@ -0,0 +1,140 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.model.ReminderCheckpoint;
+import ba.edu.ibu.frent.core.model.ReminderMarker;
+import ba.edu.ibu.frent.core.model.User;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import ba.edu.ibu.frent.core.repository.ReminderCheckpointRepository;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DueDateReminderServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 10);
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final MovieRepository movieRepository = Mockito.mock(MovieRepository.class);
+    private final ReminderCheckpointRepository checkpointRepository = Mockito.mock(ReminderCheckpointRepository.class);
+    private final NotificationService notificationService = Mockito.mock(NotificationService.class);
+    private final MailSender mailSender = Mockito.mock(MailSender.class);
+    private final BulkOperations markers = Mockito.mock(BulkOperations.class);
+    private DueDateReminderService dueDateReminderService;
+
+    private static Rental rental(String username, LocalDate dueDate) {
+        return new Rental(null, username, "movie", TODAY.minusDays(7), dueDate, null, 3.99, false, "video");
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setEmail(username + "@mail.com");
+        return user;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Movie movie = new Movie();
+        movie.setId("movie");
+        movie.setTitle("The Godfather");
+        Mockito.when(movieRepository.findAllById(ArgumentMatchers.any())).thenReturn(List.of(movie));
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(User.class)))
+                .thenReturn(List.of(user("first")));
+        Mockito.when(checkpointRepository.findById(TODAY.toString())).thenReturn(Optional.empty());
+        Mockito.when(mongoTemplate.bulkOps(ArgumentMatchers.any(BulkOperations.BulkMode.class), ArgumentMatchers.eq(ReminderMarker.class)))
+                .thenReturn(markers);
+        dueDateReminderService = new DueDateReminderService(mongoTemplate, new MovieCache(movieRepository, 100, 60), checkpointRepository,
+                notificationService, mailSender, Mockito.mock(TaskExecutor.class), 3);
+    }
+
+    @Test
+    void shouldRemindEveryUserOnceAndRecordTheProgress() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Rental.class))).thenReturn(
+                List.of(rental("first", TODAY.minusDays(1)), rental("first", TODAY.plusDays(2)), rental("second", TODAY.plusDays(1))),
+                List.of(rental("second", TODAY.plusDays(1)), rental("third", TODAY)),
+                List.of());
+
+        dueDateReminderService.run(TODAY);
+
+        Mockito.verify(notificationService).sendMessage("first",
+                "Hello, first! Your rental for The Godfather is overdue. Please return it as soon as possible. Thank you!");
+        Mockito.verify(notificationService).sendMessage("first",
+                "Hello, first! Your rental for The Godfather will expire in 2 days. Please return it soon. Thank you!");
+        Mockito.verify(notificationService).sendMessage("second",
+                "Hello, second! Your rental for The Godfather will expire in 1 day. Please return it soon. Thank you!");
+        Mockito.verify(notificationService, Mockito.never()).sendMessage(ArgumentMatchers.eq("third"), ArgumentMatchers.anyString());
+        Mockito.verify(mailSender, Mockito.times(2)).send(ArgumentMatchers.anyList(),
+                ArgumentMatchers.eq("Hello! This is a reminder to return your rentals on time. Thank you!"),
+                ArgumentMatchers.eq("Frent Rental Reminder"));
+
+        ArgumentCaptor<ReminderCheckpoint> checkpoint = ArgumentCaptor.forClass(ReminderCheckpoint.class);
+        Mockito.verify(checkpointRepository, Mockito.times(3)).save(checkpoint.capture());
+        ReminderCheckpoint finished = checkpoint.getValue();
+        assertTrue(finished.isCompleted());
+        assertEquals("third", finished.getLastUsername());
+        assertEquals(4, finished.getProcessedRentals());
+        assertEquals(2, finished.getRemindedUsers());
+    }
+
+    @Test
+    void shouldNotRepeatACompletedRun() {
+        ReminderCheckpoint checkpoint = new ReminderCheckpoint(TODAY.toString());
+        checkpoint.setCompleted(true);
+        Mockito.when(checkpointRepository.findById(TODAY.toString())).thenReturn(Optional.of(checkpoint));
+
+        dueDateReminderService.run(TODAY);
+
+        Mockito.verifyNoInteractions(mongoTemplate, notificationService, mailSender);
+    }
+
+    @Test
+    void shouldRemindTheRentalsOfExpiredEvents() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Rental.class)))
+                .thenReturn(List.of(rental("first", LocalDate.now().plusDays(3))));
+
+        dueDateReminderService.remindRentals(List.of("rental"));
+
+        Mockito.verify(notificationService).sendMessage("first",
+                "Hello, first! Your rental for The Godfather will expire in 3 days. Please return it soon. Thank you!");
+        Mockito.verify(mailSender).send(ArgumentMatchers.anyList(), ArgumentMatchers.anyString(), ArgumentMatchers.eq("Frent Rental Reminder"));
+        Mockito.verifyNoInteractions(checkpointRepository);
+    }
+
+    @Test
+    void shouldSkipRentalsThatWereAlreadyRemindedToday() {
+        Rental reminded = rental("first", LocalDate.now().plusDays(1));
+        reminded.setId("reminded");
+        Rental pending = rental("second", LocalDate.now().plusDays(2));
+        pending.setId("pending");
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Rental.class)))
+                .thenReturn(List.of(reminded, pending));
+        BulkOperationException duplicate = Mockito.mock(BulkOperationException.class);
+        Mockito.when(duplicate.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)));
+        Mockito.when(markers.execute()).thenThrow(duplicate);
+
+        dueDateReminderService.remindRentals(List.of("reminded", "pending"));
+
+        Mockito.verify(markers).insert(ArgumentMatchers.argThat((ReminderMarker marker) ->
+                marker.getId().equals("reminded:" + LocalDate.now())));
+        Mockito.verify(notificationService, Mockito.never()).sendMessage(ArgumentMatchers.eq("first"), ArgumentMatchers.anyString());
+        Mockito.verify(notificationService).sendMessage(ArgumentMatchers.eq("second"), ArgumentMatchers.anyString());
+    }
+}
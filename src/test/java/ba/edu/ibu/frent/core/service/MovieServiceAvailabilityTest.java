@@ -0,0 +1,78 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.exceptions.repository.ResourceAlreadyExistsException;
+import ba.edu.ibu.frent.core.exceptions.repository.ResourceNotFoundException;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import ba.edu.ibu.frent.core.search.MovieSearchIndex;
+import ba.edu.ibu.frent.core.search.MovieSuggestionTrie;
+import ba.edu.ibu.frent.rest.dto.MovieDTO;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieServiceAvailabilityTest {
+
+    private final MovieRepository movieRepository = Mockito.mock(MovieRepository.class);
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final WishlistNotificationService wishlistNotificationService = Mockito.mock(WishlistNotificationService.class);
+    private final MovieCache movieCache = Mockito.mock(MovieCache.class);
+    private final MovieService movieService = new MovieService(movieRepository, mongoTemplate, wishlistNotificationService,
+            Mockito.mock(MovieSearchIndex.class), Mockito.mock(MovieSuggestionTrie.class), movieCache);
+
+    private void findAndModifyReturns(Movie movie) {
+        Mockito.when(mongoTemplate.findAndModify(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class),
+                ArgumentMatchers.any(FindAndModifyOptions.class), ArgumentMatchers.eq(Movie.class))).thenReturn(movie);
+    }
+
+    @Test
+    void shouldMakeAnUnavailableMovieAvailableAndNotifyTheWishlist() {
+        Movie movie = new Movie();
+        movie.setId("id");
+        movie.setTitle("Title");
+        movie.setAvailable(true);
+        findAndModifyReturns(movie);
+
+        MovieDTO updated = movieService.setAvailable("id");
+
+        assertEquals("Title", updated.getTitle());
+        Mockito.verify(movieCache).invalidate("id");
+        Mockito.verify(wishlistNotificationService).notifyWishlistUsers(ArgumentMatchers.eq("id"),
+                ArgumentMatchers.anyString(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+    }
+
+    @Test
+    void shouldRejectAMovieThatIsAlreadyAvailable() {
+        findAndModifyReturns(null);
+        Mockito.when(movieRepository.existsById("id")).thenReturn(true);
+
+        assertThrows(ResourceAlreadyExistsException.class, () -> movieService.setAvailable("id"));
+        Mockito.verifyNoInteractions(wishlistNotificationService);
+    }
+
+    @Test
+    void shouldRejectAMovieThatIsAlreadyUnavailable() {
+        findAndModifyReturns(null);
+        Mockito.when(movieRepository.existsById("id")).thenReturn(true);
+
+        assertThrows(ResourceAlreadyExistsException.class, () -> movieService.setUnavailable("id"));
+        Mockito.verifyNoInteractions(wishlistNotificationService);
+    }
+
+    @Test
+    void shouldRejectAMissingMovie() {
+        findAndModifyReturns(null);
+        Mockito.when(movieRepository.existsById("id")).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> movieService.setAvailable("id"));
+        assertThrows(ResourceNotFoundException.class, () -> movieService.setUnavailable("id"));
+        Mockito.verifyNoInteractions(wishlistNotificationService);
+    }
+}
@@ -0,0 +1,86 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.exceptions.general.BadRequestException;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.repository.MovieRepository;
+import ba.edu.ibu.frent.core.search.MovieSearchIndex;
+import ba.edu.ibu.frent.core.search.MovieSuggestionTrie;
+import ba.edu.ibu.frent.rest.dto.MovieDTO;
+import ba.edu.ibu.frent.rest.dto.MoviePageDTO;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieServicePagingTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final MovieService movieService = new MovieService(Mockito.mock(MovieRepository.class), mongoTemplate,
+            Mockito.mock(WishlistNotificationService.class), Mockito.mock(MovieSearchIndex.class),
+            Mockito.mock(MovieSuggestionTrie.class), Mockito.mock(MovieCache.class));
+
+    private static Movie movie(String id) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        return movie;
+    }
+
+    @Test
+    void shouldStartAfterTheCursorAndContinueFromTheLastMovieOfAFullSlice() {
+        String cursor = "650000000000000000000009";
+        String last = "650000000000000000000007";
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Movie.class)))
+                .thenReturn(List.of(movie("650000000000000000000008"), movie(last)));
+
+        MoviePageDTO page = movieService.getMoviesAfter(cursor, 2);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoTemplate).find(query.capture(), ArgumentMatchers.eq(Movie.class));
+        assertEquals(new Document("$lt", new ObjectId(cursor)), query.getValue().getQueryObject().get("_id"));
+        assertEquals(new Document("_id", -1), query.getValue().getSortObject());
+        assertEquals(2, query.getValue().getLimit());
+        assertEquals(2, page.getMovies().size());
+        assertEquals(last, page.getNextCursor());
+    }
+
+    @Test
+    void shouldEndWithAShortSlice() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Movie.class)))
+                .thenReturn(List.of(movie("650000000000000000000001")));
+
+        MoviePageDTO page = movieService.getMoviesAfter(null, 2);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoTemplate).find(query.capture(), ArgumentMatchers.eq(Movie.class));
+        assertFalse(query.getValue().getQueryObject().containsKey("_id"));
+        assertEquals(List.of("650000000000000000000001"), page.getMovies().stream().map(MovieDTO::getId).toList());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldReturnAnEmptyLastSliceAfterAFullOne() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Movie.class)))
+                .thenReturn(List.of());
+
+        MoviePageDTO page = movieService.getMoviesAfter("650000000000000000000001", 2);
+
+        assertTrue(page.getMovies().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldRejectAnInvalidCursorOrSize() {
+        assertThrows(BadRequestException.class, () -> movieService.getMoviesAfter("invalid", 2));
+        assertThrows(BadRequestException.class, () -> movieService.getMoviesAfter(null, 0));
+        Mockito.verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,78 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationCoalescerTest {
+
+    private final NotificationService notificationService = Mockito.mock(NotificationService.class);
+    private final MailSender mailSender = Mockito.mock(MailSender.class);
+    private final NotificationCoalescer notificationCoalescer = new NotificationCoalescer(notificationService, mailSender, 60_000, 50);
+
+    @Test
+    void shouldWaitForTheWindowToPass() {
+        notificationCoalescer.add("user", "user@mail.com", "movie", "notification", "subject", "message");
+
+        notificationCoalescer.flush();
+
+        Mockito.verifyNoInteractions(notificationService, mailSender);
+    }
+
+    @Test
+    void shouldDeliverASingleNotificationUnchanged() {
+        notificationCoalescer.add("user", "user@mail.com", "movie", "notification", "subject", "message");
+
+        notificationCoalescer.flushAll();
+
+        Mockito.verify(notificationService).sendMessage("user", "notification");
+        Mockito.verify(mailSender).send(List.of("user@mail.com"), "message", "subject");
+    }
+
+    @Test
+    void shouldMergeTheNotificationsOfAUserIntoOneDigest() {
+        for (int i = 0; i < 10; i++) {
+            notificationCoalescer.add("user", "user@mail.com", "movie" + i, "notification " + i, "subject " + i, "message " + i);
+        }
+
+        notificationCoalescer.flushAll();
+
+        Mockito.verify(notificationService, Mockito.times(1)).sendMessage(ArgumentMatchers.eq("user"),
+                ArgumentMatchers.argThat(message -> message.contains("notification 0") && message.contains("notification 9")));
+        Mockito.verify(mailSender, Mockito.times(1)).send(ArgumentMatchers.anyList(),
+                ArgumentMatchers.argThat(message -> message.contains("message 0") && message.contains("message 9")),
+                ArgumentMatchers.eq("10 updates to movies in your wishlist"));
+        assertEquals(10, notificationCoalescer.getReceived());
+        assertEquals(1, notificationCoalescer.getMessagesSent());
+    }
+
+    @Test
+    void shouldOnlyKeepTheLatestNotificationOfAMovie() {
+        notificationCoalescer.add("user", "user@mail.com", "movie", "old price", "subject", "old price");
+        notificationCoalescer.add("user", "user@mail.com", "movie", "new price", "subject", "new price");
+
+        notificationCoalescer.flushAll();
+
+        Mockito.verify(notificationService).sendMessage("user", "new price");
+        Mockito.verify(mailSender).send(List.of("user@mail.com"), "new price", "subject");
+    }
+
+    @Test
+    void shouldShareOneEmailRequestBetweenUsersWithTheSameDigest() {
+        for (String username : List.of("first", "second")) {
+            notificationCoalescer.add(username, username + "@mail.com", "a", "notification a", "subject a", "message a");
+            notificationCoalescer.add(username, username + "@mail.com", "b", "notification b", "subject b", "message b");
+        }
+
+        notificationCoalescer.flushAll();
+
+        Mockito.verify(notificationService, Mockito.times(2)).sendMessage(ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+        Mockito.verify(mailSender, Mockito.times(1)).send(
+                ArgumentMatchers.argThat(emails -> emails.size() == 2), ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+    }
+}
@@ -0,0 +1,107 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.exceptions.general.BadRequestException;
+import ba.edu.ibu.frent.core.model.InboxNotification;
+import ba.edu.ibu.frent.rest.dto.NotificationDTO;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationInboxServiceTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final NotificationInboxService notificationInboxService = new NotificationInboxService(mongoTemplate, 2, 100);
+
+    private static InboxNotification notification(String message) {
+        InboxNotification notification = new InboxNotification("user", message, false);
+        notification.setId(new ObjectId().toHexString());
+        return notification;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldWriteNotificationsInBatches() {
+        notificationInboxService.record("user", "first");
+        Mockito.verifyNoInteractions(mongoTemplate);
+
+        notificationInboxService.record("user", "second");
+        notificationInboxService.record("user", "third");
+        notificationInboxService.flush();
+
+        ArgumentCaptor<Collection<InboxNotification>> batches = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(mongoTemplate, Mockito.times(2)).insertAll(batches.capture());
+        assertEquals(2, batches.getAllValues().get(0).size());
+        assertEquals(1, batches.getAllValues().get(1).size());
+    }
+
+    @Test
+    void shouldOnlyMarkReplayedNotificationsAsDeliveredWhenAsked() {
+        List<InboxNotification> undelivered = List.of(notification("first"), notification("second"));
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(InboxNotification.class)))
+                .thenReturn(undelivered);
+
+        List<NotificationDTO> replayed = notificationInboxService.findUndelivered("user");
+
+        assertEquals(List.of("first", "second"), replayed.stream().map(NotificationDTO::getMessage).toList());
+        Mockito.verify(mongoTemplate, Mockito.never()).updateMulti(ArgumentMatchers.any(Query.class),
+                ArgumentMatchers.any(Update.class), ArgumentMatchers.eq(InboxNotification.class));
+
+        notificationInboxService.markDelivered(replayed.stream().map(NotificationDTO::getId).toList());
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(mongoTemplate).updateMulti(ArgumentMatchers.any(Query.class), update.capture(),
+                ArgumentMatchers.eq(InboxNotification.class));
+        assertEquals(true, update.getValue().getUpdateObject().get("$set", org.bson.Document.class).get("delivered"));
+    }
+
+    @Test
+    void shouldRecordNotificationsAsUndelivered() {
+        String id = notificationInboxService.record("user", "first");
+        notificationInboxService.flush();
+
+        ArgumentCaptor<Collection<InboxNotification>> batch = captureInsert();
+        InboxNotification written = batch.getValue().iterator().next();
+        assertEquals(id, written.getId());
+        assertFalse(written.isDelivered());
+    }
+
+    @Test
+    void shouldRetryDeliveriesOfNotificationsThatAreNotWrittenYet() {
+        Mockito.when(mongoTemplate.updateMulti(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class),
+                        ArgumentMatchers.eq(InboxNotification.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null), UpdateResult.acknowledged(1, 1L, null));
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(InboxNotification.class)))
+                .thenReturn(List.of());
+
+        notificationInboxService.recordDelivered("remote");
+        notificationInboxService.flush();
+        notificationInboxService.flush();
+        notificationInboxService.flush();
+
+        Mockito.verify(mongoTemplate, Mockito.times(2)).updateMulti(ArgumentMatchers.any(Query.class),
+                ArgumentMatchers.any(Update.class), ArgumentMatchers.eq(InboxNotification.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<Collection<InboxNotification>> captureInsert() {
+        ArgumentCaptor<Collection<InboxNotification>> batch = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(mongoTemplate).insertAll(batch.capture());
+        return batch;
+    }
+
+    @Test
+    void shouldRejectAnInvalidCursor() {
+        assertThrows(BadRequestException.class, () -> notificationInboxService.getInbox("user", "invalid", 10));
+    }
+}
@@ -0,0 +1,121 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.api.notifications.NotificationRelay;
+import ba.edu.ibu.frent.core.api.notifications.RemoteNotificationEvent;
+import ba.edu.ibu.frent.rest.websockets.MainSocketHandler;
+import ba.edu.ibu.frent.rest.websockets.WebSocketDeliveryMetrics;
+import ba.edu.ibu.frent.rest.websockets.WebSocketSessionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationServiceTest {
+
+    private final MainSocketHandler mainSocketHandler = Mockito.mock(MainSocketHandler.class);
+    private final WebSocketSessionRegistry sessionRegistry = new WebSocketSessionRegistry();
+    private final WebSocketDeliveryMetrics deliveryMetrics = new WebSocketDeliveryMetrics();
+    private final ThreadPoolTaskExecutor notificationExecutor = Mockito.mock(ThreadPoolTaskExecutor.class);
+    private final NotificationRelay notificationRelay = Mockito.mock(NotificationRelay.class);
+    private final NotificationInboxService notificationInboxService = Mockito.mock(NotificationInboxService.class);
+    private final List<Runnable> pendingDeliveries = new ArrayList<>();
+    private NotificationService notificationService;
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn(id);
+        return session;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Mockito.doAnswer(invocation -> pendingDeliveries.add(invocation.getArgument(0)))
+                .when(notificationExecutor).execute(ArgumentMatchers.any(Runnable.class));
+        notificationService = new NotificationService(mainSocketHandler, sessionRegistry, deliveryMetrics, notificationExecutor,
+                notificationRelay, notificationInboxService);
+        sessionRegistry.register("first", session("1"));
+        sessionRegistry.register("second", session("2"));
+    }
+
+    @Test
+    void shouldBroadcastInTheBackgroundOncePerSession() {
+        notificationService.broadcastMessage("message");
+
+        Mockito.verifyNoInteractions(mainSocketHandler);
+        assertEquals(2, pendingDeliveries.size());
+
+        pendingDeliveries.forEach(Runnable::run);
+        Mockito.verify(mainSocketHandler, Mockito.times(2))
+                .send(ArgumentMatchers.any(WebSocketSession.class), ArgumentMatchers.any(TextMessage.class));
+    }
+
+    @Test
+    void shouldOnlyEnqueueMessagesForConnectedUsers() {
+        notificationService.sendMessage("offline", "message");
+        notificationService.sendMessage("first", "message");
+
+        assertEquals(1, pendingDeliveries.size());
+        pendingDeliveries.get(0).run();
+        Mockito.verify(mainSocketHandler).sendMessage("first", "message");
+    }
+
+    @Test
+    void shouldRelayEveryMessageToTheOtherNodes() {
+        notificationService.sendMessage("offline", "message");
+        notificationService.broadcastMessage("broadcast");
+
+        Mockito.verify(notificationRelay).sendToUser(ArgumentMatchers.eq("offline"), ArgumentMatchers.eq("message"), ArgumentMatchers.any());
+        Mockito.verify(notificationRelay).broadcast("broadcast");
+    }
+
+    @Test
+    void shouldOnlyMarkMessagesAsDeliveredOnceASessionReceivedThem() {
+        Mockito.when(notificationInboxService.record("first", "sent")).thenReturn("n1");
+        Mockito.when(notificationInboxService.record("second", "failed")).thenReturn("n2");
+        Mockito.when(notificationInboxService.record("offline", "message")).thenReturn("n3");
+        Mockito.when(mainSocketHandler.sendMessage("first", "sent")).thenReturn(true);
+        Mockito.when(mainSocketHandler.sendMessage("second", "failed")).thenReturn(false);
+
+        notificationService.sendMessage("first", "sent");
+        notificationService.sendMessage("second", "failed");
+        notificationService.sendMessage("offline", "message");
+        Mockito.verify(notificationInboxService, Mockito.never()).recordDelivered(ArgumentMatchers.any());
+
+        pendingDeliveries.forEach(Runnable::run);
+        Mockito.verify(notificationInboxService).recordDelivered("n1");
+        Mockito.verify(notificationInboxService, Mockito.never()).recordDelivered("n2");
+        Mockito.verify(notificationInboxService, Mockito.never()).recordDelivered("n3");
+    }
+
+    @Test
+    void shouldDeliverNotificationsFromOtherNodesOnlyLocally() {
+        Mockito.when(mainSocketHandler.sendMessage("first", "message")).thenReturn(true);
+
+        notificationService.onRemoteNotification(new RemoteNotificationEvent("first", "message", "n1"));
+        notificationService.onRemoteNotification(new RemoteNotificationEvent(null, "broadcast", null));
+
+        assertEquals(3, pendingDeliveries.size());
+        pendingDeliveries.forEach(Runnable::run);
+        Mockito.verify(notificationInboxService).recordDelivered("n1");
+        Mockito.verifyNoInteractions(notificationRelay);
+    }
+
+    @Test
+    void shouldCountDeliveriesRejectedBySaturatedWorkers() {
+        Mockito.doThrow(new TaskRejectedException("full"))
+                .when(notificationExecutor).execute(ArgumentMatchers.any(Runnable.class));
+
+        notificationService.broadcastMessage("message");
+
+        assertEquals(2, notificationService.getStats().getRejected());
+    }
+}
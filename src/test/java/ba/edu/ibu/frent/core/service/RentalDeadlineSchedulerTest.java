@@ -0,0 +1,91 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.cache.CacheInvalidationEvent;
+import ba.edu.ibu.frent.core.model.Rental;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalDeadlineSchedulerTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final DueDateReminderService dueDateReminderService = Mockito.mock(DueDateReminderService.class);
+    private final SchedulerLeaseService leaseService = Mockito.mock(SchedulerLeaseService.class);
+    private final RentalDeadlineScheduler scheduler = new RentalDeadlineScheduler(mongoTemplate, dueDateReminderService,
+            leaseService, LocalTime.of(0, 0), 1000, 72);
+
+    private static Rental rental(String id, LocalDate dueDate) {
+        return new Rental(id, "user", "movie", LocalDate.now(), dueDate, null, 3.99, false, "video");
+    }
+
+    @Test
+    void shouldKeepNoEventsWithoutTheLease() {
+        Mockito.when(leaseService.holds(ArgumentMatchers.anyString())).thenReturn(false);
+
+        scheduler.start();
+        scheduler.register(rental("rental", LocalDate.now().plusDays(2)));
+        scheduler.tick();
+
+        assertEquals(0, scheduler.getScheduledCount());
+        Mockito.verifyNoInteractions(mongoTemplate, dueDateReminderService);
+    }
+
+    @Test
+    void shouldFillTheWheelWhenTakingTheLease() {
+        Mockito.when(leaseService.holds(ArgumentMatchers.anyString())).thenReturn(true);
+        Mockito.when(mongoTemplate.stream(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Rental.class)))
+                .thenReturn(Stream.of(rental("rental", LocalDate.now().plusDays(2))));
+
+        scheduler.start();
+
+        assertTrue(scheduler.getScheduledCount() > 0);
+    }
+
+    @Test
+    void shouldOnlyKeepEventsWithinTheHorizon() {
+        Mockito.when(leaseService.holds(ArgumentMatchers.anyString())).thenReturn(true);
+        Mockito.when(mongoTemplate.stream(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Rental.class)))
+                .thenReturn(Stream.empty());
+        scheduler.start();
+
+        scheduler.register(rental("far", LocalDate.now().plusDays(30)));
+        assertEquals(0, scheduler.getScheduledCount());
+
+        scheduler.register(rental("near", LocalDate.now().plusDays(6)));
+        assertEquals(1, scheduler.getScheduledCount());
+    }
+
+    @Test
+    void shouldDropTheWheelWhenLosingTheLease() {
+        Mockito.when(leaseService.holds(ArgumentMatchers.anyString())).thenReturn(true, false);
+        Mockito.when(mongoTemplate.stream(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Rental.class)))
+                .thenReturn(Stream.of(rental("rental", LocalDate.now().plusDays(2))));
+        scheduler.start();
+
+        scheduler.tick();
+
+        assertEquals(0, scheduler.getScheduledCount());
+        Mockito.verifyNoInteractions(dueDateReminderService);
+    }
+
+    @Test
+    void shouldIgnoreRentalsWrittenElsewhereWithoutTheLease() {
+        Mockito.when(leaseService.holds(ArgumentMatchers.anyString())).thenReturn(false);
+        scheduler.start();
+
+        scheduler.onInvalidation(new CacheInvalidationEvent(Rental.class, "rental", false, new Document("dueDate", "2030-01-01")));
+        scheduler.onInvalidation(CacheInvalidationEvent.allOf(Rental.class));
+
+        assertEquals(0, scheduler.getScheduledCount());
+        Mockito.verifyNoInteractions(mongoTemplate);
+    }
+}
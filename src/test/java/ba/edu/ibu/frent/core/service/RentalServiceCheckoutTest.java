@@ -0,0 +1,113 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.index.IndexManager;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.model.User;
+import ba.edu.ibu.frent.core.repository.RentalRepository;
+import ba.edu.ibu.frent.core.repository.UserRepository;
+import ba.edu.ibu.frent.rest.dto.RentalDTO;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalServiceCheckoutTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final RentalDeadlineScheduler rentalDeadlineScheduler = Mockito.mock(RentalDeadlineScheduler.class);
+    private final RentalSummaryService rentalSummaryService = Mockito.mock(RentalSummaryService.class);
+    private final IndexManager indexManager = Mockito.mock(IndexManager.class);
+    private RentalService rentalService;
+
+    private static Movie movie(String id, boolean available) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setTitle("Movie " + id);
+        movie.setAvailable(available);
+        movie.setRentalPrice(3.99);
+        movie.setVideo("video-" + id);
+        return movie;
+    }
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("user");
+        user.setCart(new LinkedHashSet<>(List.of("a", "b")));
+        Mockito.when(mongoTemplate.findOne(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(User.class))).thenReturn(user);
+        Mockito.when(mongoTemplate.getCollectionName(Rental.class)).thenReturn("rental");
+        Mockito.when(indexManager.hasIndex("rental", "username_1_movieId_1")).thenReturn(true);
+        rentalService = new RentalService(Mockito.mock(RentalRepository.class), Mockito.mock(MovieCache.class), mongoTemplate,
+                Mockito.mock(UserRepository.class), rentalDeadlineScheduler, rentalSummaryService, indexManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRentEveryMovieInTheCartAndEmptyIt() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Movie.class)))
+                .thenReturn(List.of(movie("a", true), movie("b", true)));
+
+        List<RentalDTO> rentals = rentalService.checkout("user");
+
+        assertEquals(Set.of("a", "b"), Set.copyOf(rentals.stream().map(RentalDTO::getMovieId).toList()));
+        ArgumentCaptor<Collection<Rental>> inserted = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(mongoTemplate).insertAll(inserted.capture());
+        assertEquals(2, inserted.getValue().size());
+        assertTrue(inserted.getValue().stream().allMatch(rental -> rental.getId() != null && !rental.isReturned()));
+        ArgumentCaptor<Update> cart = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(mongoTemplate).updateFirst(ArgumentMatchers.any(Query.class), cart.capture(), ArgumentMatchers.eq(User.class));
+        assertTrue(cart.getValue().getUpdateObject().get("$pullAll", Document.class).containsKey("cart"));
+        Mockito.verify(rentalDeadlineScheduler, Mockito.times(2)).register(ArgumentMatchers.any(Rental.class));
+        Mockito.verify(rentalSummaryService).recordRentalsCreated(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRemoveTheInsertedRentalsWhenOneIsAlreadyRented() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Movie.class)))
+                .thenReturn(List.of(movie("a", true), movie("b", true)));
+        Mockito.when(mongoTemplate.insertAll(ArgumentMatchers.anyCollection()))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+
+        assertThrows(IllegalStateException.class, () -> rentalService.checkout("user"));
+
+        ArgumentCaptor<Collection<Rental>> inserted = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(mongoTemplate).insertAll(inserted.capture());
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(mongoTemplate).remove(removed.capture(), ArgumentMatchers.eq(Rental.class));
+        assertEquals(inserted.getValue().stream().map(Rental::getId).toList(),
+                removed.getValue().getQueryObject().get("_id", Document.class).get("$in"));
+        Mockito.verify(mongoTemplate, Mockito.never()).updateFirst(ArgumentMatchers.any(Query.class),
+                ArgumentMatchers.any(Update.class), ArgumentMatchers.eq(User.class));
+        Mockito.verifyNoInteractions(rentalDeadlineScheduler, rentalSummaryService);
+    }
+
+    @Test
+    void shouldNotRentAnythingWhenAMovieIsUnavailable() {
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Movie.class)))
+                .thenReturn(List.of(movie("a", true), movie("b", false)));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> rentalService.checkout("user"));
+
+        assertEquals("Movie b is not available for rental.", exception.getMessage());
+        Mockito.verify(mongoTemplate, Mockito.never()).insertAll(ArgumentMatchers.anyCollection());
+        Mockito.verify(mongoTemplate, Mockito.never()).updateFirst(ArgumentMatchers.any(Query.class),
+                ArgumentMatchers.any(Update.class), ArgumentMatchers.eq(User.class));
+        Mockito.verifyNoInteractions(rentalDeadlineScheduler, rentalSummaryService);
+    }
+}
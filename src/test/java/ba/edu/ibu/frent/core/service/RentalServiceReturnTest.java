@@ -0,0 +1,153 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.exceptions.repository.ResourceNotFoundException;
+import ba.edu.ibu.frent.core.index.IndexManager;
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.repository.RentalRepository;
+import ba.edu.ibu.frent.core.repository.UserRepository;
+import ba.edu.ibu.frent.rest.dto.RentalDTO;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalServiceReturnTest {
+
+    private final RentalRepository rentalRepository = Mockito.mock(RentalRepository.class);
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final RentalDeadlineScheduler rentalDeadlineScheduler = Mockito.mock(RentalDeadlineScheduler.class);
+    private final RentalSummaryService rentalSummaryService = Mockito.mock(RentalSummaryService.class);
+    private final RentalService rentalService = new RentalService(rentalRepository, Mockito.mock(MovieCache.class), mongoTemplate,
+            Mockito.mock(UserRepository.class), rentalDeadlineScheduler, rentalSummaryService, Mockito.mock(IndexManager.class));
+
+    private static Rental rental(boolean returned, LocalDate returnDate) {
+        return new Rental("id", "user", "movie", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 11), returnDate, 3.99, returned, "video");
+    }
+
+    private void findAndModifyReturns(Rental rental) {
+        Mockito.when(mongoTemplate.findAndModify(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class),
+                ArgumentMatchers.any(FindAndModifyOptions.class), ArgumentMatchers.eq(Rental.class))).thenReturn(rental);
+    }
+
+    @Test
+    void shouldReturnAnActiveRental() {
+        findAndModifyReturns(rental(true, LocalDate.now()));
+
+        RentalDTO returned = rentalService.returnRental("id");
+
+        assertTrue(returned.isReturned());
+        Mockito.verify(rentalDeadlineScheduler).cancel("id");
+        Mockito.verify(rentalSummaryService).recordRentalsReturned("user", 1);
+    }
+
+    @Test
+    void shouldKeepTheReturnDateOfARentalThatWasAlreadyReturned() {
+        LocalDate returnDate = LocalDate.of(2024, 1, 5);
+        findAndModifyReturns(null);
+        Mockito.when(rentalRepository.findById("id")).thenReturn(Optional.of(rental(true, returnDate)));
+
+        RentalDTO returned = rentalService.returnRental("id");
+
+        assertEquals(returnDate, returned.getReturnDate());
+        Mockito.verifyNoInteractions(rentalDeadlineScheduler, rentalSummaryService);
+    }
+
+    @Test
+    void shouldRejectAMissingRental() {
+        findAndModifyReturns(null);
+        Mockito.when(rentalRepository.findById("id")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> rentalService.returnRental("id"));
+        Mockito.verifyNoInteractions(rentalDeadlineScheduler, rentalSummaryService);
+    }
+
+    private void overdueRentalsAre(Document... groups) {
+        Mockito.when(mongoTemplate.aggregate(ArgumentMatchers.any(Aggregation.class), ArgumentMatchers.eq(Rental.class),
+                ArgumentMatchers.eq(Document.class))).thenReturn(new AggregationResults<>(List.of(groups), new Document()));
+    }
+
+    private void updateMultiModifies(long count) {
+        Mockito.when(mongoTemplate.updateMulti(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class),
+                ArgumentMatchers.eq(Rental.class))).thenReturn(UpdateResult.acknowledged(count, count, null));
+    }
+
+    @Test
+    void shouldReportOverdueRentalsWithoutWritingThem() {
+        Rental overdue = new Rental("id", "user", "movie", LocalDate.now().minusDays(10), LocalDate.now().minusDays(1), null,
+                3.99, false, "video");
+        Mockito.when(mongoTemplate.find(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(Rental.class)))
+                .thenReturn(List.of(overdue, rental(true, LocalDate.of(2024, 1, 5))));
+
+        List<RentalDTO> rentals = rentalService.getRentalsForUser("user");
+
+        assertTrue(rentals.get(0).isOverdue());
+        assertFalse(rentals.get(0).isReturned());
+        assertFalse(rentals.get(1).isOverdue());
+        Mockito.verify(mongoTemplate, Mockito.never()).updateMulti(ArgumentMatchers.any(Query.class),
+                ArgumentMatchers.any(Update.class), ArgumentMatchers.eq(Rental.class));
+    }
+
+    @Test
+    void shouldReturnEveryOverdueRentalWithOneUpdate() {
+        LocalDate today = LocalDate.now();
+        overdueRentalsAre(new Document("_id", "user").append("ids", List.of("r1", "r2")).append("count", 2),
+                new Document("_id", "other").append("ids", List.of("r3")).append("count", 1));
+        updateMultiModifies(3);
+
+        rentalService.returnAllOverdueRentals();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(mongoTemplate).updateMulti(query.capture(), update.capture(), ArgumentMatchers.eq(Rental.class));
+        Document criteria = query.getValue().getQueryObject();
+        assertEquals(new Document("$in", List.of("r1", "r2", "r3")), criteria.get("_id"));
+        Document overdue = criteria.getList("$and", Document.class).get(0);
+        assertEquals(false, overdue.get("returned"));
+        assertTrue(overdue.containsKey("returnDate"));
+        assertNull(overdue.get("returnDate"));
+        assertEquals(new Document("$lt", today), overdue.get("dueDate"));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(true, set.get("returned"));
+        assertEquals(today, set.get("returnDate"));
+        Mockito.verify(rentalSummaryService).recordRentalsReturned(Map.of("user", 2L, "other", 1L));
+        Mockito.verify(rentalSummaryService, Mockito.never()).rebuild(ArgumentMatchers.any());
+    }
+
+    @Test
+    void shouldRebuildTheSummariesWhenARentalWasReturnedDuringTheSweep() {
+        overdueRentalsAre(new Document("_id", "user").append("ids", List.of("r1", "r2")).append("count", 2));
+        updateMultiModifies(1);
+
+        rentalService.returnAllOverdueRentals();
+
+        Mockito.verify(rentalSummaryService).rebuild("user");
+        Mockito.verify(rentalSummaryService, Mockito.never()).recordRentalsReturned(ArgumentMatchers.anyMap());
+    }
+
+    @Test
+    void shouldNotWriteAnythingWithoutOverdueRentals() {
+        overdueRentalsAre();
+
+        rentalService.returnAllOverdueRentals();
+
+        Mockito.verify(mongoTemplate, Mockito.never()).updateMulti(ArgumentMatchers.any(Query.class),
+                ArgumentMatchers.any(Update.class), ArgumentMatchers.eq(Rental.class));
+        Mockito.verifyNoInteractions(rentalSummaryService);
+    }
+}
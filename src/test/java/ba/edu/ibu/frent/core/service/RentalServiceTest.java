@@ -1,5 +1,8 @@
 package ba.edu.ibu.frent.core.service;
 
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.index.IndexManager;
+import ba.edu.ibu.frent.core.model.Movie;
 import ba.edu.ibu.frent.core.model.Rental;
 import ba.edu.ibu.frent.core.repository.RentalRepository;
 import ba.edu.ibu.frent.rest.dto.RentalDTO;
@@ -12,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
 
 import java.util.Optional;
 
@@ -22,6 +26,12 @@ class RentalServiceTest {
     @MockBean
     RentalRepository rentalRepository;
 
+    @MockBean
+    MovieCache movieCache;
+
+    @MockBean
+    IndexManager indexManager;
+
     @Autowired
     RentalService rentalService;
 
@@ -51,4 +61,52 @@ class RentalServiceTest {
         RentalDTO foundRental = rentalService.getRentalById("id");
         Assertions.assertThat(foundRental.getId()).isEqualTo("id");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldRejectASecondActiveRentalOfTheSameMovie() {
+        Movie movie = new Movie();
+        movie.setId("movieId");
+        movie.setAvailable(true);
+        movie.setRentalPrice(5.99);
+
+        Mockito.when(movieCache.get("movieId")).thenReturn(Optional.of(movie));
+        Mockito.when(rentalRepository.save(ArgumentMatchers.any(Rental.class))).thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+        Assertions.assertThatThrownBy(() -> rentalService.addRentalForUser("username", "movieId", new RentalRequestDTO()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("You already have an active rental for this movie.");
+    }
+
+    @Test
+    public void shouldLookUpActiveRentalsUntilTheUniqueIndexExists() {
+        Movie movie = new Movie();
+        movie.setId("movieId");
+        movie.setAvailable(true);
+        movie.setRentalPrice(5.99);
+
+        Mockito.when(movieCache.get("movieId")).thenReturn(Optional.of(movie));
+        Mockito.when(indexManager.hasIndex(ArgumentMatchers.anyString(), ArgumentMatchers.eq("username_1_movieId_1"))).thenReturn(false);
+        Mockito.when(rentalRepository.existsByUsernameAndMovieIdAndReturnedFalse("username", "movieId")).thenReturn(true);
+        Assertions.assertThatThrownBy(() -> rentalService.addRentalForUser("username", "movieId", new RentalRequestDTO()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("You already have an active rental for this movie.");
+        Mockito.verify(rentalRepository, Mockito.never()).save(ArgumentMatchers.any(Rental.class));
+    }
+
+    @Test
+    public void shouldLeaveDuplicatesToTheUniqueIndexOnceItExists() {
+        Movie movie = new Movie();
+        movie.setId("movieId");
+        movie.setAvailable(true);
+        movie.setRentalPrice(5.99);
+        Rental rental = new Rental();
+        rental.setId("id");
+        rental.setUsername("username");
+        rental.setMovieId("movieId");
+
+        Mockito.when(movieCache.get("movieId")).thenReturn(Optional.of(movie));
+        Mockito.when(indexManager.hasIndex(ArgumentMatchers.anyString(), ArgumentMatchers.eq("username_1_movieId_1"))).thenReturn(true);
+        Mockito.when(rentalRepository.save(ArgumentMatchers.any(Rental.class))).thenReturn(rental);
+        rentalService.addRentalForUser("username", "movieId", new RentalRequestDTO());
+        Mockito.verify(rentalRepository, Mockito.never()).existsByUsernameAndMovieIdAndReturnedFalse(ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+    }
+}
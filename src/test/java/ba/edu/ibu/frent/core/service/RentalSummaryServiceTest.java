@@ -0,0 +1,123 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.model.Rental;
+import ba.edu.ibu.frent.core.model.RentalSummary;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalSummaryServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 10);
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private RentalSummaryService rentalSummaryService;
+
+    private static Rental rental(LocalDate rentalDate, boolean returned) {
+        return new Rental("id", "username", "movie", rentalDate, rentalDate.plusDays(7), null, 3.99, returned, "video");
+    }
+
+    private static RentalSummary summary(LocalDate lastRentalDate) {
+        RentalSummary summary = new RentalSummary("username");
+        summary.setRentalCount(2);
+        summary.setLastRentalDate(lastRentalDate);
+        return summary;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(mongoTemplate.getCollectionName(RentalSummary.class)).thenReturn("rental_summaries");
+        rentalSummaryService = new RentalSummaryService(mongoTemplate);
+    }
+
+    @Test
+    void shouldIncrementTheSummaryOfANewRental() {
+        rentalSummaryService.recordRentalCreated(rental(TODAY, false));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(mongoTemplate).upsert(ArgumentMatchers.any(Query.class), update.capture(), ArgumentMatchers.eq(RentalSummary.class));
+        Document increments = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(3.99, increments.get("totalSpent"));
+        assertEquals(1, increments.get("rentalCount"));
+        assertEquals(1, increments.get("activeRentals"));
+        assertEquals(TODAY, ((Document) update.getValue().getUpdateObject().get("$max")).get("lastRentalDate"));
+    }
+
+    @Test
+    void shouldIncrementTheSummaryOfACheckoutOnce() {
+        rentalSummaryService.recordRentalsCreated(List.of(rental(TODAY.minusDays(1), false), rental(TODAY, false)));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(mongoTemplate).upsert(ArgumentMatchers.any(Query.class), update.capture(), ArgumentMatchers.eq(RentalSummary.class));
+        Document increments = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(7.98, (double) increments.get("totalSpent"), 0.0001);
+        assertEquals(2, increments.get("rentalCount"));
+        assertEquals(2L, increments.get("activeRentals"));
+        assertEquals(TODAY, ((Document) update.getValue().getUpdateObject().get("$max")).get("lastRentalDate"));
+    }
+
+    @Test
+    void shouldRebuildTheSummaryWhenTheLatestRentalIsDeleted() {
+        Mockito.when(mongoTemplate.findAndModify(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class),
+                ArgumentMatchers.any(FindAndModifyOptions.class), ArgumentMatchers.eq(RentalSummary.class))).thenReturn(summary(TODAY));
+
+        rentalSummaryService.recordRentalDeleted(rental(TODAY, true));
+
+        Mockito.verify(mongoTemplate).aggregate(ArgumentMatchers.any(Aggregation.class), ArgumentMatchers.eq(Rental.class), ArgumentMatchers.eq(Document.class));
+    }
+
+    @Test
+    void shouldOnlyDecrementTheSummaryWhenAnOlderRentalIsDeleted() {
+        Mockito.when(mongoTemplate.findAndModify(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class),
+                ArgumentMatchers.any(FindAndModifyOptions.class), ArgumentMatchers.eq(RentalSummary.class))).thenReturn(summary(TODAY));
+
+        rentalSummaryService.recordRentalDeleted(rental(TODAY.minusDays(3), false));
+
+        Mockito.verify(mongoTemplate, Mockito.never()).aggregate(ArgumentMatchers.any(Aggregation.class), ArgumentMatchers.eq(Rental.class), ArgumentMatchers.eq(Document.class));
+    }
+
+    @Test
+    void shouldReturnAnEmptySummaryForAUserWithoutRentals() {
+        RentalSummary summary = rentalSummaryService.getSummary("username");
+
+        assertEquals("username", summary.getId());
+        assertEquals(0, summary.getTotalSpent());
+        assertEquals(0, summary.getActiveRentals());
+        assertNull(summary.getLastRentalDate());
+    }
+
+    @Test
+    void shouldTakeTheReturnedRentalsOfSeveralUsersOffWithOneBulkWrite() {
+        BulkOperations summaries = Mockito.mock(BulkOperations.class);
+        Mockito.when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RentalSummary.class)).thenReturn(summaries);
+        Map<String, Long> returned = new HashMap<>();
+        returned.put("first", 2L);
+        returned.put("second", 1L);
+        returned.put(null, 1L);
+
+        rentalSummaryService.recordRentalsReturned(returned);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(summaries, Mockito.times(2)).updateOne(ArgumentMatchers.any(Query.class), update.capture());
+        assertTrue(update.getAllValues().stream()
+                .map(value -> value.getUpdateObject().get("$inc", Document.class).get("activeRentals"))
+                .toList().containsAll(List.of(-2L, -1L)));
+        Mockito.verify(summaries).execute();
+    }
+}
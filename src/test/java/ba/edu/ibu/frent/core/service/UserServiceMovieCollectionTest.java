@@ -0,0 +1,89 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.cache.JwtPrincipalCache;
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.exceptions.repository.ResourceNotFoundException;
+import ba.edu.ibu.frent.core.model.Movie;
+import ba.edu.ibu.frent.core.model.User;
+import ba.edu.ibu.frent.core.repository.UserRepository;
+import ba.edu.ibu.frent.rest.dto.MovieCollectionDTO;
+import ba.edu.ibu.frent.rest.dto.MovieDTO;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserServiceMovieCollectionTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final MovieCache movieCache = Mockito.mock(MovieCache.class);
+    private final UserService userService = new UserService(Mockito.mock(UserRepository.class),
+            Mockito.mock(JwtPrincipalCache.class), mongoTemplate, movieCache);
+
+    private void findOneReturns(User user) {
+        Mockito.when(mongoTemplate.findOne(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(User.class)))
+                .thenReturn(user);
+    }
+
+    private static Movie movie(String id, double rentalPrice, boolean available) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setRentalPrice(rentalPrice);
+        movie.setAvailable(available);
+        return movie;
+    }
+
+    @Test
+    void shouldLeaveMissingMoviesOutOfTheCart() {
+        User user = new User();
+        user.setCart(Set.of("available", "missing"));
+        findOneReturns(user);
+        Mockito.when(movieCache.getAll(Set.of("available", "missing"))).thenReturn(List.of(movie("available", 5.0, true)));
+
+        MovieCollectionDTO cart = userService.getCartMovies("user");
+
+        assertEquals(List.of("available"), cart.getMovies().stream().map(MovieDTO::getId).toList());
+        assertEquals(5.0, cart.getTotal());
+    }
+
+    @Test
+    void shouldKeepUnavailableMoviesInTheWishlist() {
+        User user = new User();
+        user.setWishlist(Set.of("available", "unavailable"));
+        findOneReturns(user);
+        Mockito.when(movieCache.getAll(Set.of("available", "unavailable")))
+                .thenReturn(List.of(movie("available", 5.0, true), movie("unavailable", 2.5, false)));
+
+        MovieCollectionDTO wishlist = userService.getWishlistMovies("user");
+
+        assertEquals(2, wishlist.getMovies().size());
+        assertFalse(wishlist.getMovies().stream().filter(movie -> movie.getId().equals("unavailable"))
+                .findFirst().orElseThrow().isAvailable());
+        assertEquals(7.5, wishlist.getTotal());
+    }
+
+    @Test
+    void shouldReturnAnEmptyCollectionWithoutLoadingMovies() {
+        findOneReturns(new User());
+
+        MovieCollectionDTO cart = userService.getCartMovies("user");
+        MovieCollectionDTO wishlist = userService.getWishlistMovies("user");
+
+        assertTrue(cart.getMovies().isEmpty());
+        assertEquals(0.0, cart.getTotal());
+        assertTrue(wishlist.getMovies().isEmpty());
+        Mockito.verifyNoInteractions(movieCache);
+    }
+
+    @Test
+    void shouldFailForAMissingUser() {
+        assertThrows(ResourceNotFoundException.class, () -> userService.getCartMovies("missing"));
+        assertThrows(ResourceNotFoundException.class, () -> userService.getWishlistMovies("missing"));
+    }
+}
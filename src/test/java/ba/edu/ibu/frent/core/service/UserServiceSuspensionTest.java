@@ -0,0 +1,53 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.cache.JwtPrincipalCache;
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.exceptions.repository.ResourceNotFoundException;
+import ba.edu.ibu.frent.core.model.User;
+import ba.edu.ibu.frent.core.repository.UserRepository;
+import ba.edu.ibu.frent.rest.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserServiceSuspensionTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final JwtPrincipalCache jwtPrincipalCache = Mockito.mock(JwtPrincipalCache.class);
+    private final UserService userService = new UserService(Mockito.mock(UserRepository.class), jwtPrincipalCache, mongoTemplate,
+            Mockito.mock(MovieCache.class));
+
+    private void findAndModifyReturns(User user) {
+        Mockito.when(mongoTemplate.findAndModify(ArgumentMatchers.any(Query.class), ArgumentMatchers.any(Update.class),
+                ArgumentMatchers.any(FindAndModifyOptions.class), ArgumentMatchers.eq(User.class))).thenReturn(user);
+    }
+
+    @Test
+    void shouldSuspendAUserAndForgetTheirTokens() {
+        User user = new User();
+        user.setId("id");
+        user.setUsername("user");
+        user.setIsSuspended(true);
+        findAndModifyReturns(user);
+
+        UserDTO suspended = userService.suspendUser("id");
+
+        assertTrue(suspended.getIsSuspended());
+        Mockito.verify(jwtPrincipalCache).invalidateUser("user");
+    }
+
+    @Test
+    void shouldRejectAMissingUser() {
+        findAndModifyReturns(null);
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.suspendUser("id"));
+        assertThrows(ResourceNotFoundException.class, () -> userService.unsuspendUser("id"));
+        Mockito.verifyNoInteractions(jwtPrincipalCache);
+    }
+}
@@ -1,5 +1,8 @@
 package ba.edu.ibu.frent.core.service;
 
+import ba.edu.ibu.frent.core.cache.MovieCache;
+import ba.edu.ibu.frent.core.exceptions.repository.ResourceNotFoundException;
+import ba.edu.ibu.frent.core.model.Movie;
 import ba.edu.ibu.frent.core.model.User;
 import ba.edu.ibu.frent.core.repository.UserRepository;
 import ba.edu.ibu.frent.rest.dto.UserDTO;
@@ -13,7 +16,9 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @AutoConfigureMockMvc
 @SpringBootTest
@@ -22,6 +27,9 @@ class UserServiceTest {
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    MovieCache movieCache;
+
     @Autowired
     UserService userService;
 
@@ -51,4 +59,27 @@ class UserServiceTest {
         UserDTO foundUser = userService.getUserById("id");
         Assertions.assertThat(foundUser.getUsername()).isEqualTo("username");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldRejectUnavailableMoviesAddedToTheCart() {
+        Movie available = new Movie();
+        available.setAvailable(true);
+        Movie unavailable = new Movie();
+
+        Mockito.when(movieCache.getAll(Set.of("available", "unavailable"))).thenReturn(List.of(available, unavailable));
+        Assertions.assertThatThrownBy(() -> userService.addAllToCart(List.of("available", "unavailable"), "username"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("The movie is not available.");
+    }
+
+    @Test
+    public void shouldRejectMissingMoviesAddedToTheCart() {
+        Movie available = new Movie();
+        available.setAvailable(true);
+
+        Mockito.when(movieCache.getAll(Set.of("available", "missing"))).thenReturn(List.of(available));
+        Assertions.assertThatThrownBy(() -> userService.addAllToCart(List.of("available", "missing"), "username"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        Mockito.verify(movieCache, Mockito.never()).get(ArgumentMatchers.anyString());
+    }
+}
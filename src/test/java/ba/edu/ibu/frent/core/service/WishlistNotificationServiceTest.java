@@ -0,0 +1,85 @@
+package ba.edu.ibu.frent.core.service;
+
+import ba.edu.ibu.frent.core.api.mailsender.MailSender;
+import ba.edu.ibu.frent.core.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WishlistNotificationServiceTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final NotificationService notificationService = Mockito.mock(NotificationService.class);
+    private final MailSender mailSender = Mockito.mock(MailSender.class);
+    private final ThreadPoolTaskExecutor notificationExecutor = Mockito.mock(ThreadPoolTaskExecutor.class);
+    private final List<Runnable> pendingEvents = new ArrayList<>();
+    private WishlistNotificationService wishlistNotificationService;
+
+    private static User user(int i) {
+        User user = new User();
+        user.setUsername("user" + i);
+        user.setEmail("user" + i + "@mail.com");
+        return user;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Mockito.doAnswer(invocation -> pendingEvents.add(invocation.getArgument(0)))
+                .when(notificationExecutor).execute(ArgumentMatchers.any(Runnable.class));
+        Mockito.when(mongoTemplate.stream(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(User.class)))
+                .thenAnswer(invocation -> IntStream.range(0, 501).mapToObj(WishlistNotificationServiceTest::user));
+        wishlistNotificationService = new WishlistNotificationService(mongoTemplate, notificationService, mailSender,
+                notificationExecutor, new NotificationCoalescer(notificationService, mailSender, 0, 50));
+    }
+
+    @Test
+    void shouldOnlyEnqueueASingleEvent() {
+        wishlistNotificationService.notifyWishlistUsers("movie", "notification", "subject", "message");
+
+        assertEquals(1, pendingEvents.size());
+        Mockito.verifyNoInteractions(mongoTemplate, notificationService, mailSender);
+    }
+
+    @Test
+    void shouldNotifyUsersInBatches() {
+        wishlistNotificationService.notifyWishlistUsers("movie", "notification", "subject", "message");
+        pendingEvents.get(0).run();
+
+        Mockito.verify(mongoTemplate, Mockito.times(1)).stream(ArgumentMatchers.any(Query.class), ArgumentMatchers.eq(User.class));
+        Mockito.verify(notificationService, Mockito.times(501)).sendMessage(ArgumentMatchers.anyString(), ArgumentMatchers.eq("notification"));
+        Mockito.verify(mailSender).send(ArgumentMatchers.argThat(emails -> emails.size() == 500), ArgumentMatchers.eq("message"), ArgumentMatchers.eq("subject"));
+        Mockito.verify(mailSender).send(ArgumentMatchers.argThat(emails -> emails.size() == 1), ArgumentMatchers.eq("message"), ArgumentMatchers.eq("subject"));
+    }
+
+    @Test
+    void shouldHandCoalescedNotificationsToTheCoalescer() {
+        NotificationCoalescer notificationCoalescer = new NotificationCoalescer(notificationService, mailSender, 60_000, 50);
+        wishlistNotificationService = new WishlistNotificationService(mongoTemplate, notificationService, mailSender,
+                notificationExecutor, notificationCoalescer);
+
+        wishlistNotificationService.notifyWishlistUsers("movie", "notification", "subject", "message");
+        pendingEvents.get(0).run();
+
+        Mockito.verifyNoInteractions(notificationService, mailSender);
+        assertEquals(501, notificationCoalescer.getReceived());
+    }
+
+    @Test
+    void shouldSkipWebSocketMessagesForEmailOnlyNotifications() {
+        wishlistNotificationService.notifyWishlistUsers("movie", null, "subject", "message");
+        pendingEvents.get(0).run();
+
+        Mockito.verifyNoInteractions(notificationService);
+        Mockito.verify(mailSender, Mockito.times(2)).send(ArgumentMatchers.anyList(), ArgumentMatchers.eq("message"), ArgumentMatchers.eq("subject"));
+    }
+}
@@ -1,5 +1,6 @@
 package ba.edu.ibu.frent.rest.controllers;
 
+import ba.edu.ibu.frent.core.cache.JwtPrincipalCache;
 import ba.edu.ibu.frent.core.model.enums.Genre;
 import ba.edu.ibu.frent.core.service.JwtService;
 import ba.edu.ibu.frent.core.service.MovieService;
@@ -7,6 +8,7 @@ import ba.edu.ibu.frent.core.service.UserService;
 import ba.edu.ibu.frent.rest.configuration.SecurityConfiguration;
 import com.jayway.jsonpath.JsonPath;
 import ba.edu.ibu.frent.rest.dto.MovieDTO;
+import ba.edu.ibu.frent.rest.dto.MoviePageDTO;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,11 +18,14 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,6 +43,9 @@ class MovieControllerTest {
     @MockBean
     JwtService jwtService;
 
+    @MockBean
+    JwtPrincipalCache jwtPrincipalCache;
+
     @MockBean
     UserService userService;
 
@@ -72,4 +80,84 @@ class MovieControllerTest {
         assertEquals("Title", JsonPath.read(response, "$.[0].title"));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnASliceWithTheNextCursor() throws Exception {
+        MovieDTO movie = new MovieDTO();
+        movie.setId("650000000000000000000007");
+        movie.setTitle("Title");
+
+        Mockito.when(movieService.getMoviesAfter("650000000000000000000009", 1))
+                .thenReturn(new MoviePageDTO(List.of(movie), "650000000000000000000007"));
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/api/movies/after?cursor=650000000000000000000009&size=1")
+                        .contentType(MediaType.APPLICATION_JSON)
+        ).andReturn();
+
+        String response = result.getResponse().getContentAsString();
+        assertEquals(1, (Integer) JsonPath.read(response, "$.movies.length()"));
+        assertEquals("Title", JsonPath.read(response, "$.movies[0].title"));
+        assertEquals("650000000000000000000007", JsonPath.read(response, "$.nextCursor"));
+    }
+
+    @Test
+    void shouldReturnAnEmptyLastSliceWithoutACursor() throws Exception {
+        Mockito.when(movieService.getMoviesAfter("650000000000000000000001", 1))
+                .thenReturn(new MoviePageDTO(List.of(), null));
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/api/movies/after?cursor=650000000000000000000001&size=1")
+                        .contentType(MediaType.APPLICATION_JSON)
+        ).andReturn();
+
+        String response = result.getResponse().getContentAsString();
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(0, (Integer) JsonPath.read(response, "$.movies.length()"));
+        assertNull(JsonPath.read(response, "$.nextCursor"));
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    @SuppressWarnings("unchecked")
+    void shouldStreamOneJsonObjectPerLine() throws Exception {
+        MovieDTO first = new MovieDTO();
+        first.setId("first");
+        first.setTitle("First");
+        MovieDTO second = new MovieDTO();
+        second.setId("second");
+        second.setTitle("Second");
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<MovieDTO> consumer = invocation.getArgument(0);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(movieService).streamAllMovies(Mockito.any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/api/movies/allMovies/stream")
+        ).andReturn();
+
+        assertEquals(200, result.getResponse().getStatus());
+        assertTrue(result.getResponse().getContentType().startsWith(MediaType.APPLICATION_NDJSON_VALUE));
+        String response = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(response.endsWith("\n"));
+        String[] lines = response.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("First", JsonPath.read(lines[0], "$.title"));
+        assertEquals("Second", JsonPath.read(lines[1], "$.title"));
+    }
+
+    @Test
+    void shouldNotStreamMoviesToAnonymousUsers() throws Exception {
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/api/movies/allMovies/stream")
+        ).andReturn();
+
+        assertNotEquals(200, result.getResponse().getStatus());
+        Mockito.verifyNoInteractions(movieService);
+    }
+}
@@ -1,5 +1,7 @@
 package ba.edu.ibu.frent.rest.controllers;
 
+import ba.edu.ibu.frent.core.cache.JwtPrincipalCache;
+import ba.edu.ibu.frent.core.service.DueDateReminderService;
 import ba.edu.ibu.frent.core.service.JwtService;
 import ba.edu.ibu.frent.core.service.RentalService;
 import ba.edu.ibu.frent.core.service.UserService;
@@ -35,9 +37,15 @@ class RentalControllerTest {
     @MockBean
     RentalService rentalService;
 
+    @MockBean
+    DueDateReminderService dueDateReminderService;
+
     @MockBean
     JwtService jwtService;
 
+    @MockBean
+    JwtPrincipalCache jwtPrincipalCache;
+
     @MockBean
     UserService userService;
 
@@ -1,5 +1,6 @@
 package ba.edu.ibu.frent.rest.controllers;
 
+import ba.edu.ibu.frent.core.cache.JwtPrincipalCache;
 import ba.edu.ibu.frent.core.service.JwtService;
 import ba.edu.ibu.frent.core.service.UserService;
 import ba.edu.ibu.frent.rest.configuration.SecurityConfiguration;
@@ -35,6 +36,9 @@ class UserControllerTest {
     @MockBean
     JwtService jwtService;
 
+    @MockBean
+    JwtPrincipalCache jwtPrincipalCache;
+
     @MockBean
     UserService userService;
 
@@ -0,0 +1,78 @@
+package ba.edu.ibu.frent.rest.filters;
+
+import ba.edu.ibu.frent.core.cache.JwtPrincipalCache;
+import ba.edu.ibu.frent.core.model.User;
+import ba.edu.ibu.frent.core.model.enums.UserType;
+import ba.edu.ibu.frent.core.service.JwtService;
+import ba.edu.ibu.frent.core.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthenticationFilterTest {
+
+    private final JwtService jwtService = Mockito.mock(JwtService.class);
+    private final UserService userService = Mockito.mock(UserService.class);
+    private final JwtPrincipalCache jwtPrincipalCache = new JwtPrincipalCache(100, 60);
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+
+    JwtAuthenticationFilterTest() {
+        ReflectionTestUtils.setField(filter, "jwtService", jwtService);
+        ReflectionTestUtils.setField(filter, "userService", userService);
+        ReflectionTestUtils.setField(filter, "jwtPrincipalCache", jwtPrincipalCache);
+        Mockito.when(jwtService.verify("token"))
+                .thenReturn(new JwtService.VerifiedToken("user", "MEMBER", new Date(System.currentTimeMillis() + 60_000)));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setUserType(UserType.MEMBER);
+        return user;
+    }
+
+    @Test
+    void shouldCacheThePrincipalOfAVerifiedToken() throws Exception {
+        User loaded = user("user");
+        Mockito.when(userService.userDetailsService()).thenReturn(username -> loaded);
+
+        authenticate();
+
+        assertSame(loaded, jwtPrincipalCache.get("token"));
+        assertSame(loaded, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+    @Test
+    void shouldNotCacheAPrincipalWhoseUserWasWrittenDuringTheLookup() throws Exception {
+        User stale = user("user");
+        // The user is updated, and its tokens invalidated, after the lookup read it but before the filter caches it
+        Mockito.when(userService.userDetailsService()).thenReturn(username -> {
+            jwtPrincipalCache.invalidateUser(username);
+            return stale;
+        });
+
+        authenticate();
+
+        assertNull(jwtPrincipalCache.get("token"));
+    }
+}
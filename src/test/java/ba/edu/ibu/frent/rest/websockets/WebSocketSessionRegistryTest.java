@@ -0,0 +1,61 @@
+package ba.edu.ibu.frent.rest.websockets;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebSocketSessionRegistryTest {
+
+    private final WebSocketSessionRegistry registry = new WebSocketSessionRegistry();
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn(id);
+        return session;
+    }
+
+    @Test
+    void shouldKeepEverySessionOfAUser() {
+        WebSocketSession firstTab = session("1");
+        WebSocketSession secondTab = session("2");
+        registry.register("user", firstTab);
+        registry.register("user", secondTab);
+
+        assertEquals(2, registry.getSessions("user").size());
+        assertEquals(2, registry.getSessionCount());
+    }
+
+    @Test
+    void shouldDropTheUserWithTheLastSession() {
+        WebSocketSession firstTab = session("1");
+        WebSocketSession secondTab = session("2");
+        registry.register("user", firstTab);
+        registry.register("user", secondTab);
+
+        assertEquals("user", registry.unregister(firstTab));
+        assertTrue(registry.isConnected("user"));
+        registry.unregister(secondTab);
+        assertFalse(registry.isConnected("user"));
+        assertTrue(registry.getSessions("user").isEmpty());
+        assertEquals(0, registry.getSessionCount());
+    }
+
+    @Test
+    void shouldIgnoreUnknownSessions() {
+        assertNull(registry.unregister(session("unknown")));
+        assertEquals(0, registry.getSessionCount());
+    }
+
+    @Test
+    void shouldListTheConnectedUsers() {
+        registry.register("first", session("1"));
+        registry.register("first", session("2"));
+        registry.register("second", session("3"));
+
+        assertEquals(Set.of("first", "second"), registry.getUsernames());
+    }
+}